@@ -1,14 +1,15 @@
 package org.msdemt.demo;
 
 import org.msdemt.demo.list.LinkedList;
-import org.msdemt.demo.list.List;
 
 /**
  * 使用双向链表实现双端队列
+ * <p>
+ * 直接使用LinkedList头尾的操作，不经过索引查找
  */
 public class Deque<E> {
 
-    private List<E> list = new LinkedList<>();
+    private LinkedList<E> list = new LinkedList<>();
 
     public int size() {
         return list.size();
@@ -28,16 +29,16 @@ public class Deque<E> {
      * @param element
      */
     public void enQueueRear(E element) {
-        list.add(element);
+        list.addLast(element);
     }
 
     /**
      * 队头出队列
      *
-     * @return
+     * @return 队列为空时返回null
      */
     public E deQueueFront() {
-        return list.remove(0);
+        return list.pollFirst();
     }
 
     /**
@@ -46,24 +47,24 @@ public class Deque<E> {
      * @param element
      */
     public void enQueueFront(E element) {
-        list.add(0, element);
+        list.addFirst(element);
     }
 
     /**
      * 队尾出队列
      *
-     * @return
+     * @return 队列为空时返回null
      */
     public E deQueueRear() {
-        return list.remove(list.size() - 1);
+        return list.pollLast();
     }
 
     public E front() {
-        return list.get(0);
+        return list.peekFirst();
     }
 
     public E rear() {
-        return list.get(list.size() - 1);
+        return list.peekLast();
     }
 
 }
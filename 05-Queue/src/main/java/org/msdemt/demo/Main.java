@@ -1,7 +1,64 @@
 package org.msdemt.demo;
 
+import org.msdemt.demo.bounded.BoundedDeque;
+import org.msdemt.demo.bounded.BoundedQueue;
+import org.msdemt.demo.bounded.OverflowPolicy;
+import org.msdemt.demo.bounded.QueueMetrics;
+import org.msdemt.demo.bounded.WatermarkListener;
 import org.msdemt.demo.circle.CircleDeque;
 import org.msdemt.demo.circle.CircleQueue;
+import org.msdemt.demo.circle.LongCircleDeque;
+import org.msdemt.demo.concurrent.BlockingCircleDeque;
+import org.msdemt.demo.concurrent.BlockingCircleQueue;
+import org.msdemt.demo.concurrent.MpmcRingQueue;
+import org.msdemt.demo.concurrent.ShardedQueue;
+import org.msdemt.demo.concurrent.SpscRingQueue;
+import org.msdemt.demo.concurrent.WorkStealingDeque;
+import org.msdemt.demo.concurrent.WorkStealingScheduler;
+import org.msdemt.demo.concurrent.ring.BatchEventProcessor;
+import org.msdemt.demo.concurrent.ring.BusySpinWaitStrategy;
+import org.msdemt.demo.concurrent.ring.EventHandler;
+import org.msdemt.demo.concurrent.ring.ParkingWaitStrategy;
+import org.msdemt.demo.concurrent.ring.RingBuffer;
+import org.msdemt.demo.concurrent.ring.SequenceBarrier;
+import org.msdemt.demo.concurrent.ring.WaitStrategy;
+import org.msdemt.demo.concurrent.ring.YieldingWaitStrategy;
+import org.msdemt.demo.list.LinkedList;
+import org.msdemt.demo.scheduler.MultiLevelFeedbackQueue;
+import org.msdemt.demo.scheduler.MultiLevelFeedbackQueue.Task;
+import org.msdemt.demo.timer.Timeout;
+import org.msdemt.demo.timer.TimingWheel;
+import org.msdemt.demo.window.DoubleSwag;
+import org.msdemt.demo.window.LongSlidingWindow;
+import org.msdemt.demo.window.LongSwag;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
 
 public class Main {
 
@@ -74,9 +131,1568 @@ public class Main {
         }
     }
 
-    public static void main(String[] args) {
-        test2();
-        test3();
+    /**
+     * 一个生产者线程、一个消费者线程传递count个元素，打印吞吐量
+     */
+    static void test4() {
+        int count = 1000_0000;
+
+        Times.test("SpscRingQueue", () -> {
+            SpscRingQueue<Integer> queue = new SpscRingQueue<>(1 << 14);
+            runSpsc(count, e -> {
+                while (!queue.offer(e)) Thread.yield();
+            }, () -> {
+                Integer e;
+                while ((e = queue.poll()) == null) Thread.yield();
+                return e;
+            });
+        });
+
+        Times.test("CircleQueue + ReentrantLock", () -> {
+            CircleQueue<Integer> queue = new CircleQueue<>();
+            ReentrantLock lock = new ReentrantLock();
+            runSpsc(count, e -> {
+                lock.lock();
+                try {
+                    queue.enQueue(e);
+                } finally {
+                    lock.unlock();
+                }
+            }, () -> {
+                while (true) {
+                    lock.lock();
+                    try {
+                        if (!queue.isEmpty()) return queue.deQueue();
+                    } finally {
+                        lock.unlock();
+                    }
+                    Thread.yield();
+                }
+            });
+        });
+
+        Times.test("ArrayBlockingQueue", () -> {
+            ArrayBlockingQueue<Integer> queue = new ArrayBlockingQueue<>(1 << 14);
+            runSpsc(count, e -> {
+                while (!queue.offer(e)) Thread.yield();
+            }, () -> {
+                Integer e;
+                while ((e = queue.poll()) == null) Thread.yield();
+                return e;
+            });
+        });
+    }
+
+    interface Producer {
+        void produce(Integer element);
+    }
+
+    interface Consumer {
+        Integer consume();
+    }
+
+    private static final Integer[] VALUES = new Integer[1024];
+
+    static {
+        for (int i = 0; i < VALUES.length; i++) {
+            VALUES[i] = i;
+        }
+    }
+
+    /**
+     * 启动一个生产者线程和一个消费者线程，校验元素顺序并打印每秒操作数
+     */
+    private static void runSpsc(int count, Producer producer, Consumer consumer) {
+        Thread producerThread = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                producer.produce(VALUES[i & (VALUES.length - 1)]);
+            }
+        });
+
+        long begin = System.nanoTime();
+        producerThread.start();
+        for (int i = 0; i < count; i++) {
+            Asserts.test(consumer.consume() == VALUES[i & (VALUES.length - 1)]);
+        }
+        long end = System.nanoTime();
+        join(producerThread);
+        System.out.println("ops/s：" + (long) (count * 1e9 / (end - begin)));
+    }
+
+    static void join(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * MpmcRingQueue压力测试：
+     * 1. 每个元素恰好被消费一次
+     * 2. 对于任意一个消费者，来自同一个生产者的元素是按入队顺序取出的
+     */
+    static void test5() {
+        int producers = 4;
+        int consumers = 4;
+        int perProducer = 20_0000;
+        MpmcRingQueue<Long> queue = new MpmcRingQueue<>(64);
+        AtomicIntegerArray consumed = new AtomicIntegerArray(producers * perProducer);
+
+        Thread[] threads = new Thread[producers + consumers];
+        for (int p = 0; p < producers; p++) {
+            long id = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    Long element = (id << 32) | i;
+                    while (!queue.offer(element)) Thread.yield();
+                }
+            });
+        }
+        int total = producers * perProducer;
+        AtomicInteger remaining = new AtomicInteger(total);
+        for (int c = 0; c < consumers; c++) {
+            threads[producers + c] = new Thread(() -> {
+                int[] last = new int[producers];
+                Arrays.fill(last, -1);
+                while (remaining.get() > 0) {
+                    Long element = queue.poll();
+                    if (element == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    remaining.decrementAndGet();
+                    int id = (int) (element >>> 32);
+                    int seq = (int) (long) element;
+                    Asserts.test(seq > last[id]);
+                    last[id] = seq;
+                    Asserts.test(consumed.getAndIncrement(id * perProducer + seq) == 0);
+                }
+            });
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) join(thread);
+
+        for (int i = 0; i < total; i++) {
+            Asserts.test(consumed.get(i) == 1);
+        }
+        Asserts.test(queue.isEmpty());
+        System.out.println("MpmcRingQueue压力测试完成：" + total);
+    }
+
+    /**
+     * MpmcRingQueue吞吐量：生产者、消费者数量从1增加到CPU核数
+     */
+    static void test6() {
+        int maxThreads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        int count = 500_0000;
+        for (int n = 1; n <= maxThreads; n <<= 1) {
+            int threadCount = n;
+            Times.test("MpmcRingQueue " + n + "P/" + n + "C", () -> {
+                MpmcRingQueue<Integer> queue = new MpmcRingQueue<>(1 << 14);
+                runMpmc(threadCount, count, e -> {
+                    while (!queue.offer(e)) Thread.yield();
+                }, () -> {
+                    Integer e;
+                    while ((e = queue.poll()) == null) Thread.yield();
+                    return e;
+                });
+            });
+        }
+    }
+
+    /**
+     * 启动threadCount个生产者和threadCount个消费者，共传递count个元素，打印每秒操作数
+     */
+    private static void runMpmc(int threadCount, int count, Producer producer, Consumer consumer) {
+        int perThread = count / threadCount;
+        Thread[] threads = new Thread[threadCount * 2];
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    producer.produce(VALUES[i & (VALUES.length - 1)]);
+                }
+            });
+            threads[threadCount + t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    consumer.consume();
+                }
+            });
+        }
+
+        long begin = System.nanoTime();
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) join(thread);
+        long end = System.nanoTime();
+        System.out.println("ops/s：" + (long) (perThread * threadCount * 1e9 / (end - begin)));
+    }
+
+    static class ValueEvent {
+        long raw;
+        long parsed;
+        long enriched;
+    }
+
+    /**
+     * 事件环：parse → enrich → persist 三级消费者读取同一个RingBuffer，打印每秒事件数
+     */
+    static void test7() {
+        int count = 2000_0000;
+        // 忙等需要每个线程独占一个核心（1个生产者 + 3个消费者）
+        if (Runtime.getRuntime().availableProcessors() >= 4) {
+            runPipeline("BusySpinWaitStrategy", new BusySpinWaitStrategy(), count);
+        }
+        runPipeline("YieldingWaitStrategy", new YieldingWaitStrategy(), count);
+        runPipeline("ParkingWaitStrategy", new ParkingWaitStrategy(), count);
+    }
+
+    private static void runPipeline(String title, WaitStrategy waitStrategy, int count) {
+        Times.test(title, () -> {
+            RingBuffer<ValueEvent> ringBuffer = new RingBuffer<>(ValueEvent::new, 1 << 16, waitStrategy);
+
+            BatchEventProcessor<ValueEvent> parse = new BatchEventProcessor<>(ringBuffer, ringBuffer.newBarrier(),
+                    (event, sequence, endOfBatch) -> event.parsed = event.raw * 2);
+
+            SequenceBarrier enrichBarrier = ringBuffer.newBarrier(parse.sequence());
+            BatchEventProcessor<ValueEvent> enrich = new BatchEventProcessor<>(ringBuffer, enrichBarrier,
+                    (event, sequence, endOfBatch) -> event.enriched = event.parsed + 1);
+
+            long[] sum = new long[1];
+            SequenceBarrier persistBarrier = ringBuffer.newBarrier(enrich.sequence());
+            BatchEventProcessor<ValueEvent> persist = new BatchEventProcessor<>(ringBuffer, persistBarrier,
+                    new EventHandler<ValueEvent>() {
+                        long batchSum;
+
+                        @Override
+                        public void onEvent(ValueEvent event, long sequence, boolean endOfBatch) {
+                            batchSum += event.enriched;
+                            // 每批只写一次结果
+                            if (endOfBatch) sum[0] = batchSum;
+                        }
+                    });
+            ringBuffer.addGatingSequences(persist.sequence());
+
+            Thread[] threads = {new Thread(parse), new Thread(enrich), new Thread(persist)};
+            for (Thread thread : threads) thread.start();
+
+            long begin = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                long sequence = ringBuffer.next();
+                ringBuffer.get(sequence).raw = i;
+                ringBuffer.publish(sequence);
+            }
+            while (persist.sequence().get() < count - 1) {
+                Thread.yield();
+            }
+            long end = System.nanoTime();
+
+            parse.halt();
+            enrich.halt();
+            persist.halt();
+            for (Thread thread : threads) join(thread);
+
+            // sum(2i + 1) = count^2
+            Asserts.test(sum[0] == (long) count * count);
+            System.out.println("events/s：" + (long) (count * 1e9 / (end - begin)));
+        });
+    }
+
+    static void test8() {
+        BlockingCircleDeque<Integer> deque = new BlockingCircleDeque<>(4);
+        deque.enQueueRear(2);
+        deque.enQueueFront(1);
+        deque.enQueueRear(3);
+        deque.enQueueRear(4);
+        Asserts.test(!deque.offerFront(0));
+        Asserts.test(deque.rear() == 4);
+        Asserts.test(deque.pollRear() == 4);
+
+        List<Integer> batch = new ArrayList<>();
+        Asserts.test(deque.drainTo(batch, 10) == 3);
+        Asserts.test(batch.equals(Arrays.asList(1, 2, 3)));
+        try {
+            Asserts.test(deque.pollFront(10, TimeUnit.MILLISECONDS) == null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * BlockingCircleQueue：大量消费者阻塞在take上，一个生产者不断put
+     * <p>
+     * 运行在JDK 21及以上时使用虚拟线程（10万个消费者），否则退化为平台线程（1000个消费者）
+     */
+    static void test9() {
+        ExecutorService executor = newVirtualThreadExecutor();
+        boolean virtual = executor != null;
+        int consumers = virtual ? 10_0000 : 1000;
+        int perConsumer = 10;
+        if (!virtual) {
+            executor = Executors.newFixedThreadPool(consumers);
+        }
+
+        ExecutorService consumerExecutor = executor;
+        Times.test("BlockingCircleQueue " + consumers + (virtual ? "个虚拟线程" : "个平台线程") + "消费者", () -> {
+            BlockingCircleQueue<Integer> queue = new BlockingCircleQueue<>(1 << 12);
+            CountDownLatch done = new CountDownLatch(consumers);
+            for (int i = 0; i < consumers; i++) {
+                consumerExecutor.execute(() -> {
+                    try {
+                        for (int j = 0; j < perConsumer; j++) {
+                            queue.take();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    done.countDown();
+                });
+            }
+
+            long count = (long) consumers * perConsumer;
+            long begin = System.nanoTime();
+            try {
+                for (long i = 0; i < count; i++) {
+                    queue.put(VALUES[(int) i & (VALUES.length - 1)]);
+                }
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            long end = System.nanoTime();
+            System.out.println("ops/s：" + (long) (count * 1e9 / (end - begin)));
+        });
+        executor.shutdown();
+    }
+
+    /**
+     * 通过反射调用Executors.newVirtualThreadPerTaskExecutor（JDK 21），不影响在JDK 8上编译运行
+     *
+     * @return 不支持虚拟线程时返回null
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    static void test10() {
+        WorkStealingDeque<Integer> deque = new WorkStealingDeque<>(2);
+        for (int i = 0; i < 10; i++) {
+            deque.push(i);
+        }
+        Asserts.test(deque.size() == 10);
+        Asserts.test(deque.steal() == 0);
+        Asserts.test(deque.pop() == 9);
+        Asserts.test(deque.steal() == 1);
+        while (deque.pop() != null) ;
+        Asserts.test(deque.isEmpty());
+        Asserts.test(deque.steal() == null);
+    }
+
+    /**
+     * 递归求斐波那契数（01-TheComplexity中的fib1）：WorkStealingScheduler对比ForkJoinPool
+     */
+    static void test11() {
+        int n = 36;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+
+        Times.test("fib1", () -> System.out.println(fib1(n)));
+
+        WorkStealingScheduler scheduler = new WorkStealingScheduler(parallelism);
+        Times.test("WorkStealingScheduler(" + parallelism + ")", () -> {
+            System.out.println(scheduler.invoke(new FibTask(n)));
+        });
+        scheduler.shutdown();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Times.test("ForkJoinPool(" + parallelism + ")", () -> {
+            System.out.println(pool.invoke(new FibRecursiveTask(n)));
+        });
+        pool.shutdown();
+    }
+
+    /**
+     * 小于这个值时不再拆分任务
+     */
+    private static final int FIB_THRESHOLD = 20;
+
+    public static int fib1(int n) {
+        if (n <= 1) return n;
+        return fib1(n - 1) + fib1(n - 2);
+    }
+
+    static class FibTask extends WorkStealingScheduler.Task<Integer> {
+        final int n;
+
+        FibTask(int n) {
+            this.n = n;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (n < FIB_THRESHOLD) return fib1(n);
+            FibTask f1 = new FibTask(n - 1);
+            f1.fork();
+            int f2 = new FibTask(n - 2).compute();
+            return f1.join() + f2;
+        }
+    }
+
+    static class FibRecursiveTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        final int n;
+
+        FibRecursiveTask(int n) {
+            this.n = n;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (n < FIB_THRESHOLD) return fib1(n);
+            FibRecursiveTask f1 = new FibRecursiveTask(n - 1);
+            f1.fork();
+            int f2 = new FibRecursiveTask(n - 2).compute();
+            return f1.join() + f2;
+        }
+    }
+
+    /**
+     * TimingWheel：随机schedule、cancel，每个任务必须恰好在到期的tick执行
+     */
+    static void test12() {
+        TimingWheel wheel = new TimingWheel(8);
+        Random random = new Random(1);
+        List<Timeout> timeouts = new ArrayList<>();
+        int[] wrong = new int[1];
+        for (int i = 0; i < 10_0000; i++) {
+            long delay = random.nextInt(100) == 0 ? random.nextInt(100_0000) : random.nextInt(1000);
+            Timeout[] holder = new Timeout[1];
+            holder[0] = wheel.schedule(delay, () -> {
+                // currentTick已经指向下一个tick
+                if (holder[0].deadline() != wheel.currentTick() - 1) wrong[0]++;
+            });
+            timeouts.add(holder[0]);
+            if (random.nextInt(3) == 0) {
+                timeouts.get(random.nextInt(timeouts.size())).cancel();
+            }
+            if (random.nextInt(10) == 0) {
+                wheel.tick();
+            }
+        }
+        while (!wheel.isEmpty()) {
+            wheel.tick();
+        }
+        for (Timeout timeout : timeouts) {
+            Asserts.test(timeout.isCancelled() != timeout.isExpired());
+        }
+        Asserts.test(wrong[0] == 0);
+        System.out.println(wheel);
+    }
+
+    /**
+     * 1000万个定时任务，每个任务在1000次schedule之后被取消（模拟请求超时：绝大多数请求在超时前完成）
+     */
+    static void test13() {
+        int count = 1000_0000;
+        int window = 1000;
+        Runnable task = () -> {
+        };
+
+        Times.test("TimingWheel", () -> {
+            TimingWheel wheel = new TimingWheel();
+            Random random = new Random(1);
+            Timeout[] outstanding = new Timeout[window];
+            for (int i = 0; i < count; i++) {
+                int slot = i % window;
+                if (outstanding[slot] != null) outstanding[slot].cancel();
+                outstanding[slot] = wheel.schedule(1 + random.nextInt(6_0000), task);
+                // 每1000次schedule推进一个tick
+                if (slot == 0) wheel.tick();
+            }
+            System.out.println(wheel);
+        });
+
+        Times.test("ScheduledThreadPoolExecutor", () -> {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+            executor.setRemoveOnCancelPolicy(true);
+            Random random = new Random(1);
+            ScheduledFuture<?>[] outstanding = new ScheduledFuture<?>[window];
+            for (int i = 0; i < count; i++) {
+                int slot = i % window;
+                if (outstanding[slot] != null) outstanding[slot].cancel(false);
+                outstanding[slot] = executor.schedule(task, 1 + random.nextInt(6_0000), TimeUnit.MILLISECONDS);
+            }
+            executor.shutdownNow();
+        });
+    }
+
+    /**
+     * 滑动窗口与暴力扫描的结果必须一致
+     */
+    static void test14() {
+        int windowSize = 37;
+        Random random = new Random(1);
+        LongSlidingWindow window = new LongSlidingWindow(windowSize);
+        LongSwag maxSwag = new LongSwag(Math::max, Long.MIN_VALUE, windowSize);
+        // 矩阵乘法满足结合律但不满足交换律：用2x2的0/1矩阵（编码为4个bit）验证聚合顺序
+        LongSwag matrixSwag = new LongSwag(Main::multiply, 0b1001, windowSize);
+        DoubleSwag sumSwag = new DoubleSwag(Double::sum, 0, windowSize);
+        CircleQueue<Long> queue = new CircleQueue<>();
+        for (int i = 0; i < 10_0000; i++) {
+            long value = random.nextInt(1000);
+            window.push(value);
+            maxSwag.push(value);
+            matrixSwag.push(value & 0b1111);
+            sumSwag.push(value);
+            queue.enQueue(value);
+            if (queue.size() > windowSize) queue.deQueue();
+
+            long max = Long.MIN_VALUE;
+            long min = Long.MAX_VALUE;
+            long sum = 0;
+            long product = 0b1001;
+            for (int j = 0; j < queue.size(); j++) {
+                long e = queue.deQueue();
+                max = Math.max(max, e);
+                min = Math.min(min, e);
+                sum += e;
+                product = multiply(product, e & 0b1111);
+                queue.enQueue(e);
+            }
+            Asserts.test(window.max() == max && window.min() == min && window.sum() == sum);
+            Asserts.test(maxSwag.query() == max);
+            Asserts.test(matrixSwag.query() == product);
+            Asserts.test(sumSwag.query() == sum);
+        }
+    }
+
+    /**
+     * 布尔矩阵乘法，4个bit依次是a b c d，表示矩阵 [[a b] [c d]]
+     */
+    private static long multiply(long m1, long m2) {
+        long a1 = m1 >> 3 & 1, b1 = m1 >> 2 & 1, c1 = m1 >> 1 & 1, d1 = m1 & 1;
+        long a2 = m2 >> 3 & 1, b2 = m2 >> 2 & 1, c2 = m2 >> 1 & 1, d2 = m2 & 1;
+        long a = (a1 & a2) | (b1 & c2);
+        long b = (a1 & b2) | (b1 & d2);
+        long c = (c1 & a2) | (d1 & c2);
+        long d = (c1 & b2) | (d1 & d2);
+        return a << 3 | b << 2 | c << 1 | d;
+    }
+
+    /**
+     * 窗口大小为10万，每次push之后求最大值、最小值
+     */
+    static void test15() {
+        int windowSize = 10_0000;
+        int count = 100_0000;
+        Random random = new Random(1);
+        long[] data = new long[count];
+        for (int i = 0; i < count; i++) {
+            data[i] = random.nextLong();
+        }
+
+        Times.test("LongSlidingWindow", () -> {
+            LongSlidingWindow window = new LongSlidingWindow(windowSize);
+            long checksum = 0;
+            for (long value : data) {
+                window.push(value);
+                checksum += window.max() ^ window.min();
+            }
+            System.out.println(checksum);
+        });
+
+        Times.test("LongSwag", () -> {
+            LongSwag maxSwag = new LongSwag(Math::max, Long.MIN_VALUE, windowSize);
+            LongSwag minSwag = new LongSwag(Math::min, Long.MAX_VALUE, windowSize);
+            long checksum = 0;
+            for (long value : data) {
+                maxSwag.push(value);
+                minSwag.push(value);
+                checksum += maxSwag.query() ^ minSwag.query();
+            }
+            System.out.println(checksum);
+        });
+
+        // 每次重新扫描整个窗口，只测0.1%的数据
+        Times.test("CircleQueue扫描（0.1%的数据）", () -> {
+            CircleQueue<Long> queue = new CircleQueue<>();
+            for (int i = 0; i < windowSize; i++) {
+                queue.enQueue(data[i]);
+            }
+            for (int i = windowSize; i < windowSize + count / 1000; i++) {
+                queue.deQueue();
+                queue.enQueue(data[i]);
+                long max = Long.MIN_VALUE;
+                long min = Long.MAX_VALUE;
+                for (int j = 0; j < windowSize; j++) {
+                    long e = queue.deQueue();
+                    max = Math.max(max, e);
+                    min = Math.min(min, e);
+                    queue.enQueue(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 多个小段之间滚动，重新打开之后继续读写，顺序和size都要正确
+     */
+    static void test16() throws IOException {
+        File dir = Files.createTempDirectory("mapped-queue").toFile();
+        int segmentSize = 1024;
+        Random random = new Random(1);
+        CircleQueue<byte[]> expected = new CircleQueue<>();
+
+        MappedQueue queue = new MappedQueue(dir, segmentSize, false);
+        Asserts.test(queue.isEmpty() && queue.deQueue() == null && queue.front() == null);
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 100; i++) {
+                byte[] element = new byte[random.nextInt(200)];
+                random.nextBytes(element);
+                queue.enQueue(element);
+                expected.enQueue(element);
+            }
+            for (int i = 0; i < 60; i++) {
+                Asserts.test(Arrays.equals(queue.front(), expected.front()));
+                Asserts.test(Arrays.equals(queue.deQueue(), expected.deQueue()));
+            }
+            Asserts.test(queue.size() == expected.size());
+
+            // 模拟重启
+            queue.close();
+            queue = new MappedQueue(dir, segmentSize, false);
+            Asserts.test(queue.size() == expected.size());
+        }
+
+        while (!expected.isEmpty()) {
+            Asserts.test(Arrays.equals(queue.deQueue(), expected.deQueue()));
+        }
+        Asserts.test(queue.isEmpty() && queue.size() == 0);
+
+        // 读完的段要被回收：除了checkpoint，最多剩下写入段和一个备用段
+        File[] files = dir.listFiles();
+        Asserts.test(files != null && files.length <= 3);
+        System.out.println(queue + " files=" + files.length);
+
+        queue.enQueue(new byte[0]);
+        queue.enQueue(new byte[segmentSize - 4]);
+        Asserts.test(queue.deQueue().length == 0);
+        Asserts.test(queue.deQueue().length == segmentSize - 4);
+        queue.clear();
+        Asserts.test(queue.isEmpty());
+        queue.close();
+        deleteDirectory(dir);
+    }
+
+    /**
+     * 吞吐量，syncOnWrite为true时每次入队都要force，只测少量记录
+     */
+    static void test17() throws IOException {
+        benchmarkMappedQueue(false, 200_0000, 100);
+        benchmarkMappedQueue(true, 2000, 100);
+    }
+
+    private static void benchmarkMappedQueue(boolean syncOnWrite, int count, int recordSize) throws IOException {
+        File dir = Files.createTempDirectory("mapped-queue").toFile();
+        byte[] record = new byte[recordSize];
+        MappedQueue queue = new MappedQueue(dir, 16 << 20, syncOnWrite);
+        String title = "MappedQueue syncOnWrite=" + syncOnWrite + " " + count + "条";
+        Times.test(title + " 入队", () -> {
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                queue.enQueue(record);
+            }
+            printThroughput(count, recordSize, System.nanoTime() - start);
+        });
+        Times.test(title + " 出队", () -> {
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                queue.deQueue();
+            }
+            printThroughput(count, recordSize, System.nanoTime() - start);
+        });
+        queue.close();
+        deleteDirectory(dir);
+    }
+
+    private static void printThroughput(int count, int recordSize, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.println(String.format("records/s：%.0f  MB/s：%.1f",
+                count / seconds, (double) count * recordSize / seconds / (1 << 20)));
+    }
+
+    private static void deleteDirectory(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    /**
+     * 原来按索引操作LinkedList（remove(0)、get(size - 1)）与头尾直接操作、环形数组的对比，
+     * 同时统计每次操作分配的字节数
+     */
+    static void test18() {
+        int count = 500_0000;
+        int depth = 1000;
+
+        benchmarkQueue("LinkedList按索引（原来的Queue）", count, () -> {
+            LinkedList<Integer> list = new LinkedList<>();
+            for (int i = 0; i < depth; i++) list.add(i);
+            long checksum = 0;
+            for (int i = 0; i < count; i++) {
+                list.add(i);
+                checksum += list.get(0);
+                checksum += list.remove(0);
+            }
+            return checksum;
+        });
+        benchmarkQueue("Queue", count, () -> {
+            Queue<Integer> queue = new Queue<>();
+            for (int i = 0; i < depth; i++) queue.enQueue(i);
+            long checksum = 0;
+            for (int i = 0; i < count; i++) {
+                queue.enQueue(i);
+                checksum += queue.front();
+                checksum += queue.deQueue();
+            }
+            return checksum;
+        });
+        benchmarkQueue("CircleQueue", count, () -> {
+            CircleQueue<Integer> queue = new CircleQueue<>();
+            for (int i = 0; i < depth; i++) queue.enQueue(i);
+            long checksum = 0;
+            for (int i = 0; i < count; i++) {
+                queue.enQueue(i);
+                checksum += queue.front();
+                checksum += queue.deQueue();
+            }
+            return checksum;
+        });
+
+        benchmarkQueue("LinkedList按索引（原来的Deque）", count, () -> {
+            LinkedList<Integer> list = new LinkedList<>();
+            for (int i = 0; i < depth; i++) list.add(i);
+            long checksum = 0;
+            for (int i = 0; i < count; i++) {
+                list.add(0, i);
+                checksum += list.get(list.size() - 1);
+                checksum += list.remove(list.size() - 1);
+            }
+            return checksum;
+        });
+        benchmarkQueue("Deque", count, () -> {
+            Deque<Integer> deque = new Deque<>();
+            for (int i = 0; i < depth; i++) deque.enQueueRear(i);
+            long checksum = 0;
+            for (int i = 0; i < count; i++) {
+                deque.enQueueFront(i);
+                checksum += deque.rear();
+                checksum += deque.deQueueRear();
+            }
+            return checksum;
+        });
+        benchmarkQueue("CircleDeque", count, () -> {
+            CircleDeque<Integer> deque = new CircleDeque<>();
+            for (int i = 0; i < depth; i++) deque.enQueueRear(i);
+            long checksum = 0;
+            for (int i = 0; i < count; i++) {
+                deque.enQueueFront(i);
+                checksum += deque.rear();
+                checksum += deque.deQueueRear();
+            }
+            return checksum;
+        });
+    }
+
+    private static void benchmarkQueue(String title, int count, LongSupplier task) {
+        // 热身
+        task.getAsLong();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        boolean allocation = threads instanceof com.sun.management.ThreadMXBean;
+        long threadId = Thread.currentThread().getId();
+        Times.test(title, () -> {
+            long bytes = allocation ? ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threadId) : 0;
+            long start = System.nanoTime();
+            long checksum = task.getAsLong();
+            long nanos = System.nanoTime() - start;
+            if (allocation) {
+                bytes = ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threadId) - bytes;
+            }
+            System.out.println(String.format("ops/s：%.0f  B/op：%s  checksum=%d", count / (nanos / 1e9),
+                    allocation ? String.format("%.1f", (double) bytes / count) : "-", checksum));
+        });
+    }
+
+    /**
+     * 有界队列的溢出策略、水位回调、统计
+     */
+    static void test19() throws InterruptedException {
+        BoundedQueue<Integer> reject = new BoundedQueue<>(3, OverflowPolicy.REJECT, true);
+        for (int i = 0; i < 5; i++) {
+            Asserts.test(reject.enQueue(i) == i < 3);
+        }
+        Asserts.test(reject.metrics().rejected() == 2 && reject.deQueue() == 0);
+
+        BoundedQueue<Integer> dropOldest = new BoundedQueue<>(3, OverflowPolicy.DROP_OLDEST, true);
+        for (int i = 0; i < 5; i++) {
+            Asserts.test(dropOldest.enQueue(i));
+        }
+        Asserts.test(dropOldest.metrics().dropped() == 2);
+        Asserts.test(dropOldest.deQueue() == 2 && dropOldest.deQueue() == 3 && dropOldest.deQueue() == 4);
+        Asserts.test(dropOldest.deQueue() == null);
+
+        BoundedQueue<Integer> dropNewest = new BoundedQueue<>(3, OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 5; i++) {
+            dropNewest.enQueue(i);
+        }
+        Asserts.test(dropNewest.front() == 0 && dropNewest.size() == 3);
+
+        // 双端队列从头部入队时，最旧的元素在尾部
+        BoundedDeque<Integer> deque = new BoundedDeque<>(3, OverflowPolicy.DROP_OLDEST, true);
+        for (int i = 0; i < 5; i++) {
+            deque.enQueueFront(i);
+        }
+        Asserts.test(deque.front() == 4 && deque.rear() == 2);
+        Asserts.test(deque.deQueueRear() == 2 && deque.deQueueFront() == 4 && deque.takeRear() == 3);
+
+        // 水位回调只在跨过水位时各触发一次
+        int[] events = new int[2];
+        BoundedQueue<Integer> watermarks = new BoundedQueue<>(10, OverflowPolicy.REJECT);
+        watermarks.setWatermarks(2, 8, new WatermarkListener() {
+            @Override
+            public void onHighWatermark(int size) {
+                Asserts.test(size == 8 && events[0] == events[1]);
+                events[0]++;
+            }
+
+            @Override
+            public void onLowWatermark(int size) {
+                Asserts.test(size == 2 && events[0] == events[1] + 1);
+                events[1]++;
+            }
+        });
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 10; i++) watermarks.enQueue(i);
+            for (int i = 0; i < 5; i++) watermarks.deQueue();
+            for (int i = 0; i < 5; i++) watermarks.enQueue(i);
+            while (!watermarks.isEmpty()) watermarks.deQueue();
+        }
+        Asserts.test(events[0] == 3 && events[1] == 3);
+
+        // BLOCK：消费者比生产者慢，生产者被阻塞，队列不会超过容量
+        BoundedQueue<Integer> block = new BoundedQueue<>(100, OverflowPolicy.BLOCK, true);
+        int count = 10_0000;
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < count; i++) {
+                    block.enQueue(i);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        QueueMetrics before = block.metrics();
+        for (int i = 0; i < count; i++) {
+            Asserts.test(block.take() == i);
+            if ((i & 1023) == 0) Thread.yield();
+        }
+        join(producer);
+        QueueMetrics after = block.metrics();
+        Asserts.test(after.peakSize() <= 100 && after.enqueued() == count && after.dequeued() == count);
+        System.out.println(after);
+        System.out.println(String.format("入队速率：%.0f/s  出队速率：%.0f/s",
+                after.enqueueRate(before), after.dequeueRate(before)));
+    }
+
+    /**
+     * 关闭统计时的额外开销
+     */
+    static void test20() throws InterruptedException {
+        int count = 1000_0000;
+        int batch = 64;
+
+        Times.test("BlockingCircleQueue", () -> {
+            BlockingCircleQueue<Integer> queue = new BlockingCircleQueue<>(1024);
+            for (int i = 0; i < count; i += batch) {
+                for (int j = 0; j < batch; j++) queue.offer(VALUES[j]);
+                for (int j = 0; j < batch; j++) queue.poll();
+            }
+        });
+        for (boolean metricsEnabled : new boolean[]{false, true}) {
+            Times.test("BoundedQueue metrics=" + metricsEnabled, () -> {
+                BoundedQueue<Integer> queue = new BoundedQueue<>(1024, OverflowPolicy.REJECT, metricsEnabled);
+                try {
+                    for (int i = 0; i < count; i += batch) {
+                        for (int j = 0; j < batch; j++) queue.enQueue(VALUES[j]);
+                        for (int j = 0; j < batch; j++) queue.deQueue();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+    }
+
+    /**
+     * 扩容、缩容之后元素的顺序不变，突发之后容量会降下来
+     */
+    static void test21() {
+        Random random = new Random(1);
+        CircleDeque<Integer> deque = new CircleDeque<>();
+        ArrayDeque<Integer> expected = new ArrayDeque<>();
+        for (int round = 0; round < 20; round++) {
+            // 一轮增长、一轮下降
+            boolean growing = (round & 1) == 0;
+            for (int i = 0; i < 10_0000; i++) {
+                int op = random.nextInt(10);
+                if (op < (growing ? 7 : 3) || expected.isEmpty()) {
+                    if (random.nextBoolean()) {
+                        deque.enQueueFront(i);
+                        expected.addFirst(i);
+                    } else {
+                        deque.enQueueRear(i);
+                        expected.addLast(i);
+                    }
+                } else if (random.nextBoolean()) {
+                    Asserts.test(deque.deQueueFront().equals(expected.pollFirst()));
+                } else {
+                    Asserts.test(deque.deQueueRear().equals(expected.pollLast()));
+                }
+                Asserts.test(deque.size() == expected.size());
+            }
+            if (!expected.isEmpty()) {
+                Asserts.test(deque.front().equals(expected.peekFirst()) && deque.rear().equals(expected.peekLast()));
+            }
+            Asserts.test(deque.capacity() <= Math.max(10, expected.size() * 4 + 4));
+        }
+        deque.trimToSize();
+        Asserts.test(deque.capacity() == Math.max(10, expected.size()));
+        while (!expected.isEmpty()) {
+            Asserts.test(deque.deQueueFront().equals(expected.pollFirst()));
+        }
+        System.out.println("CircleDeque shrinkCount=" + deque.shrinkCount() + " reclaimed=" + deque.reclaimedCapacity());
+
+        CircleQueue<Integer> queue = new CircleQueue<>();
+        for (int i = 0; i < 100_0000; i++) queue.enQueue(i);
+        int peak = queue.capacity();
+        for (int i = 0; i < 100_0000 - 5; i++) Asserts.test(queue.deQueue() == i);
+        Asserts.test(queue.capacity() < 100 && queue.front() == 100_0000 - 5);
+        queue.trimToSize();
+        Asserts.test(queue.capacity() == 10 && queue.reclaimedCapacity() == peak - 10);
+        queue.enQueue(-1);
+        queue.clear();
+        Asserts.test(queue.isEmpty() && queue.capacity() == 10);
+    }
+
+    /**
+     * 5000万个元素的突发：出队之后释放的内存，以及在容量边界附近反复入队、出队时没有来回扩缩容
+     */
+    static void test22() {
+        int burst = 5000_0000;
+        Times.test("CircleQueue突发" + burst + "个元素", () -> {
+            CircleQueue<Integer> queue = new CircleQueue<>();
+            for (int i = 0; i < burst; i++) {
+                queue.enQueue(VALUES[i & 1023]);
+            }
+            int peak = queue.capacity();
+            for (int i = 0; i < burst; i++) {
+                queue.deQueue();
+            }
+            // 开启压缩指针时每个引用4字节
+            System.out.println(String.format("峰值容量：%d  当前容量：%d  缩容%d次  释放约%.1fMB",
+                    peak, queue.capacity(), queue.shrinkCount(), queue.reclaimedCapacity() * 4.0 / (1 << 20)));
+        });
+
+        Times.test("CircleDeque在缩容边界附近入队、出队", () -> {
+            CircleDeque<Integer> deque = new CircleDeque<>();
+            for (int i = 0; i < 100_0000; i++) deque.enQueueRear(VALUES[i & 1023]);
+            // 停在缩容的阈值上：再出队一个就会缩容
+            while (deque.size() > (deque.capacity() >> 2) + 1) deque.deQueueFront();
+            int shrinkCount = deque.shrinkCount();
+            for (int i = 0; i < 1000_0000; i++) {
+                deque.deQueueFront();
+                deque.enQueueRear(VALUES[i & 1023]);
+                deque.deQueueRear();
+                deque.enQueueFront(VALUES[i & 1023]);
+            }
+            // 第一次出队缩容之后，数量是容量的一半，不会再扩容、缩容
+            System.out.println("额外的缩容次数：" + (deque.shrinkCount() - shrinkCount) + " 容量：" + deque.capacity());
+        });
+    }
+
+    /**
+     * ShardedQueue：每个元素恰好被消费一次，对每个消费者而言同一个生产者的元素按顺序出队
+     */
+    static void test23() {
+        int producers = 8;
+        int consumers = 2;
+        int perProducer = 10_0000;
+        ShardedQueue<Long> queue = new ShardedQueue<>(4, 64, 16);
+        AtomicIntegerArray consumed = new AtomicIntegerArray(producers * perProducer);
+
+        Thread[] threads = new Thread[producers + consumers];
+        for (int p = 0; p < producers; p++) {
+            long id = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    Long element = (id << 32) | i;
+                    while (!queue.offer(element)) Thread.yield();
+                }
+            });
+        }
+        int total = producers * perProducer;
+        AtomicInteger remaining = new AtomicInteger(total);
+        for (int c = 0; c < consumers; c++) {
+            threads[producers + c] = new Thread(() -> {
+                int[] last = new int[producers];
+                Arrays.fill(last, -1);
+                List<Long> batch = new ArrayList<>();
+                while (remaining.get() > 0) {
+                    batch.clear();
+                    if (queue.drainTo(batch, 100) == 0) {
+                        Thread.yield();
+                        continue;
+                    }
+                    remaining.addAndGet(-batch.size());
+                    for (long element : batch) {
+                        int id = (int) (element >>> 32);
+                        int seq = (int) element;
+                        Asserts.test(seq > last[id]);
+                        last[id] = seq;
+                        Asserts.test(consumed.getAndIncrement(id * perProducer + seq) == 0);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) join(thread);
+
+        for (int i = 0; i < total; i++) {
+            Asserts.test(consumed.get(i) == 1);
+        }
+        Asserts.test(queue.isEmpty() && queue.poll() == null);
+        System.out.println("ShardedQueue压力测试完成：" + total);
+    }
+
+    /**
+     * 生产者从1增加到64，一个消费者批量取出：ShardedQueue（每个生产者一个车道）与单个MpmcRingQueue对比
+     */
+    static void test24() {
+        int count = 400_0000;
+        for (int n = 1; n <= 64; n <<= 1) {
+            int producers = n;
+            ShardedQueue<Integer> sharded = new ShardedQueue<>(producers, 1024, 64);
+            runManyProducers("ShardedQueue 生产者" + producers, count, producers,
+                    sharded::offer, batch -> sharded.drainTo(batch, 256));
+
+            MpmcRingQueue<Integer> mpmc = new MpmcRingQueue<>(1024 * producers);
+            runManyProducers("MpmcRingQueue 生产者" + producers, count, producers, mpmc::offer, batch -> {
+                Integer element;
+                int taken = 0;
+                while (taken < 256 && (element = mpmc.poll()) != null) {
+                    batch.add(element);
+                    taken++;
+                }
+                return taken;
+            });
+        }
+    }
+
+    private interface Offer {
+        boolean offer(Integer element);
+    }
+
+    private interface Drain {
+        int drainTo(List<Integer> batch);
+    }
+
+    private static void runManyProducers(String title, int count, int producers, Offer offer, Drain drain) {
+        Times.test(title, () -> {
+            int perProducer = count / producers;
+            Thread[] threads = new Thread[producers];
+            for (int p = 0; p < producers; p++) {
+                threads[p] = new Thread(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        while (!offer.offer(VALUES[i & (VALUES.length - 1)])) Thread.yield();
+                    }
+                });
+            }
+            long begin = System.nanoTime();
+            for (Thread thread : threads) thread.start();
+            List<Integer> batch = new ArrayList<>(256);
+            int remaining = perProducer * producers;
+            while (remaining > 0) {
+                batch.clear();
+                int taken = drain.drainTo(batch);
+                if (taken == 0) Thread.yield();
+                remaining -= taken;
+            }
+            long end = System.nanoTime();
+            for (Thread thread : threads) join(thread);
+            System.out.println("ops/s：" + (long) (perProducer * producers * 1e9 / (end - begin)));
+        });
+    }
+
+    /**
+     * 多级反馈队列：按级别选择、用完时间片降级、定期提升
+     */
+    static void test25() {
+        MultiLevelFeedbackQueue<String> mlfq = new MultiLevelFeedbackQueue<>(new long[]{2, 4, 8}, 100);
+        mlfq.submit("batch", 2);
+        mlfq.submit("a");
+        mlfq.submit("b");
+
+        Task<String> task = mlfq.next();
+        Asserts.test(task.job().equals("a") && mlfq.quantum(task) == 2);
+        // 让出CPU，没有用完时间片，留在第0级的队尾
+        mlfq.requeue(task, 1);
+        Asserts.test(task.level() == 0 && mlfq.size(0) == 2);
+
+        task = mlfq.next();
+        Asserts.test(task.job().equals("b"));
+        mlfq.requeue(task, 2);
+        Asserts.test(task.level() == 1);
+
+        // a在第0级累计用完时间片，即使每次都提前让出也会降级
+        task = mlfq.next();
+        Asserts.test(task.job().equals("a") && mlfq.quantum(task) == 1);
+        mlfq.requeue(task, 1);
+        Asserts.test(task.level() == 1 && mlfq.size(0) == 0);
+
+        // 第0级为空，取第1级
+        task = mlfq.next();
+        Asserts.test(task.job().equals("b") && mlfq.quantum(task) == 4);
+        mlfq.complete(task, 3);
+
+        // 最低级的任务不会再降级
+        task = mlfq.next();
+        Asserts.test(task.job().equals("a"));
+        mlfq.requeue(task, 4);
+        task = mlfq.next();
+        Asserts.test(task.job().equals("batch") || task.job().equals("a"));
+        for (int i = 0; i < 20 && task != null; i++) {
+            mlfq.requeue(task, mlfq.quantum(task));
+            Asserts.test(task.level() <= 2);
+            task = mlfq.next();
+        }
+
+        // 经过boostInterval之后，所有任务回到第0级
+        Asserts.test(mlfq.boostCount() > 0);
+        mlfq.boost();
+        Asserts.test(mlfq.size(0) == mlfq.size());
+        System.out.println(mlfq);
+    }
+
+    /**
+     * 单CPU离散时间模拟：90%的短任务、10%的长任务，负载约90%
+     * 对比MLFQ、轮转（只有一级，时间片10）、先来先服务（只有一级，时间片无限），
+     * 新任务到达时会抢占低级别的任务
+     */
+    static void test26() {
+        int count = 20_0000;
+        Random random = new Random(1);
+        long[] arrivals = new long[count];
+        long[] needs = new long[count];
+        long time = 0;
+        for (int i = 0; i < count; i++) {
+            boolean shortJob = random.nextInt(10) != 0;
+            needs[i] = shortJob ? 1 + random.nextInt(10) : 200 + random.nextInt(1800);
+            arrivals[i] = time;
+            // 平均服务时间约115，平均到达间隔128
+            time += (long) (-Math.log(1 - random.nextDouble()) * 128);
+        }
+
+        simulate("MLFQ", new MultiLevelFeedbackQueue<>(new long[]{10, 40, 160, 640}, 100_0000), arrivals, needs);
+        simulate("轮转", new MultiLevelFeedbackQueue<>(new long[]{10}, Long.MAX_VALUE), arrivals, needs);
+        simulate("先来先服务", new MultiLevelFeedbackQueue<>(new long[]{Long.MAX_VALUE}, Long.MAX_VALUE), arrivals, needs);
+    }
+
+    private static void simulate(String title, MultiLevelFeedbackQueue<Integer> mlfq, long[] arrivals, long[] needs) {
+        Times.test(title, () -> {
+            int count = arrivals.length;
+            long[] remaining = needs.clone();
+            long[] turnaround = new long[count];
+            long time = 0;
+            long decisions = 0;
+            int arrived = 0;
+            int completed = 0;
+            long begin = System.nanoTime();
+            while (completed < count) {
+                while (arrived < count && arrivals[arrived] <= time) {
+                    mlfq.submit(arrived++);
+                }
+                Task<Integer> task = mlfq.next();
+                if (task == null) {
+                    // CPU空闲，直接跳到下一个任务到达
+                    time = arrivals[arrived];
+                    continue;
+                }
+                decisions++;
+                int job = task.job();
+                long ran = Math.min(mlfq.quantum(task), remaining[job]);
+                if (task.level() > 0 && arrived < count) {
+                    // 新任务进入最高级，抢占低级别的任务：运行到新任务到达为止，已用的时间片累计在当前级别
+                    ran = Math.min(ran, Math.max(1, arrivals[arrived] - time));
+                }
+                time += ran;
+                remaining[job] -= ran;
+                if (remaining[job] == 0) {
+                    mlfq.complete(task, ran);
+                    turnaround[job] = time - arrivals[job];
+                    completed++;
+                } else {
+                    mlfq.requeue(task, ran);
+                }
+            }
+            long nanos = System.nanoTime() - begin;
+
+            LongCircleDeque shortJobs = new LongCircleDeque();
+            LongCircleDeque longJobs = new LongCircleDeque();
+            for (int i = 0; i < count; i++) {
+                if (needs[i] <= 10) {
+                    shortJobs.enQueueRear(turnaround[i]);
+                } else {
+                    longJobs.enQueueRear(turnaround[i]);
+                }
+            }
+            System.out.println(String.format("调度次数/s：%.0f  完成任务/千时间单位：%.2f",
+                    decisions / (nanos / 1e9), count * 1000.0 / time));
+            System.out.println("短任务周转时间 " + percentiles(shortJobs) + "  长任务周转时间 " + percentiles(longJobs));
+        });
+    }
+
+    private static String percentiles(LongCircleDeque values) {
+        long[] sorted = new long[values.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = values.get(i);
+        }
+        Arrays.sort(sorted);
+        return "p50=" + sorted[sorted.length / 2] + " p99=" + sorted[(int) (sorted.length * 0.99)]
+                + " max=" + sorted[sorted.length - 1];
+    }
+
+    /**
+     * WorkStealingScheduler：compute抛出异常时，invoke、join抛出CompletionException，工作线程不受影响
+     */
+    static void test27() {
+        WorkStealingScheduler scheduler = new WorkStealingScheduler(2);
+        for (int round = 0; round < 100; round++) {
+            // 根任务抛出异常
+            try {
+                scheduler.invoke(new FailingTask(0));
+                Asserts.test(false);
+            } catch (CompletionException e) {
+                Asserts.test(e.getCause() instanceof IllegalStateException);
+            }
+            // fork出去的子任务抛出异常，由join传到根任务
+            try {
+                scheduler.invoke(new FailingTask(5));
+                Asserts.test(false);
+            } catch (CompletionException e) {
+                Asserts.test(e.getCause() instanceof IllegalStateException);
+            }
+        }
+        // 工作线程仍然在执行任务
+        Asserts.test(scheduler.invoke(new FibTask(25)) == fib1(25));
+        scheduler.shutdown();
+    }
+
+    /**
+     * depth为0时抛出异常，否则fork一个depth - 1的子任务并join
+     */
+    static class FailingTask extends WorkStealingScheduler.Task<Integer> {
+        final int depth;
+
+        FailingTask(int depth) {
+            this.depth = depth;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (depth == 0) {
+                throw new IllegalStateException("task failed");
+            }
+            FailingTask child = new FailingTask(depth - 1);
+            child.fork();
+            return child.join() + 1;
+        }
+    }
+
+    /**
+     * ShardedQueue：一个车道很忙、一个车道只有少量元素，poll每个车道最多连续取batchSize个，冷车道不会饿死
+     */
+    static void test28() throws InterruptedException {
+        int batchSize = 4;
+        ShardedQueue<Integer> queue = new ShardedQueue<>(2, 1024, batchSize);
+        // 每个生产者线程分配到一个车道：热车道1000个元素（0 ~ 999），冷车道10个元素（-1 ~ -10）
+        Thread hot = new Thread(() -> {
+            for (int i = 0; i < 1000; i++) {
+                queue.offer(i);
+            }
+        });
+        Thread cold = new Thread(() -> {
+            for (int i = 1; i <= 10; i++) {
+                queue.offer(-i);
+            }
+        });
+        hot.start();
+        hot.join();
+        cold.start();
+        cold.join();
+
+        int run = 0;
+        boolean lastHot = false;
+        int coldTaken = 0;
+        for (int i = 0; i < 1010; i++) {
+            Integer element = queue.poll();
+            Asserts.test(element != null);
+            boolean isHot = element >= 0;
+            run = isHot == lastHot ? run + 1 : 1;
+            lastHot = isHot;
+            if (!isHot) {
+                coldTaken++;
+            }
+            // 冷车道还有元素时，同一个车道最多连续取batchSize个
+            if (coldTaken < 10) {
+                Asserts.test(run <= batchSize);
+            }
+        }
+        Asserts.test(queue.poll() == null && coldTaken == 10);
+    }
+
+    /**
+     * 模拟更新checkpoint时写到一半崩溃：最新的槽被破坏，重启后回到上一次完整的位置和计数
+     */
+    static void test29() throws IOException {
+        File dir = Files.createTempDirectory("mapped-queue").toFile();
+        MappedQueue queue = new MappedQueue(dir, 1024, false);
+        for (int i = 0; i < 5; i++) {
+            queue.enQueue(new byte[]{(byte) i});
+        }
+        Asserts.test(queue.deQueue()[0] == 0 && queue.deQueue()[0] == 1);
+        queue.close();
+
+        // checkpoint的布局：写位置的两个槽在0、32，读位置的两个槽在64、96，每个槽的计数在偏移16
+        // 第5次写入用的是槽1，第2次读取用的是槽0
+        File checkpoint = new File(dir, "checkpoint");
+        corruptLong(checkpoint, 32 + 16);
+        corruptLong(checkpoint, 64 + 16);
+        queue = new MappedQueue(dir, 1024, false);
+        // 写位置回到4个元素之后，读位置回到1个元素之后
+        Asserts.test(queue.size() == 3);
+        Asserts.test(queue.deQueue()[0] == 1 && queue.deQueue()[0] == 2 && queue.deQueue()[0] == 3);
+        Asserts.test(queue.isEmpty() && queue.deQueue() == null);
+
+        // 之后的写入覆盖掉没有记录下来的元素，位置和计数保持一致
+        queue.enQueue(new byte[]{5});
+        queue.close();
+        queue = new MappedQueue(dir, 1024, false);
+        Asserts.test(queue.size() == 1 && queue.deQueue()[0] == 5 && queue.isEmpty());
+        queue.close();
+
+        // 两个槽都损坏时拒绝打开
+        corruptLong(checkpoint, 16);
+        corruptLong(checkpoint, 32 + 16);
+        try {
+            new MappedQueue(dir, 1024, false);
+            Asserts.test(false);
+        } catch (UncheckedIOException e) {
+        }
+        deleteDirectory(dir);
+    }
+
+    private static void corruptLong(File file, long offset) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(offset);
+            long value = raf.readLong();
+            raf.seek(offset);
+            raf.writeLong(~value);
+        }
+    }
+
+    /**
+     * WorkStealingScheduler.shutdown：还没有开始执行的任务被取消，等待它们的invoke、join抛出CancellationException
+     */
+    static void test30() throws InterruptedException {
+        WorkStealingScheduler scheduler = new WorkStealingScheduler(1);
+        CountDownLatch forked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Throwable[] errors = new Throwable[2];
+        // 唯一的工作线程执行根任务：fork出子任务之后阻塞，shutdown之后才join
+        Thread rootWaiter = new Thread(() -> {
+            try {
+                scheduler.invoke(new BlockingTask(forked, release));
+            } catch (Throwable e) {
+                errors[0] = e;
+            }
+        });
+        rootWaiter.start();
+        forked.await();
+
+        // 工作线程被占用，这个任务一直在提交队列中
+        Thread pendingWaiter = new Thread(() -> {
+            try {
+                scheduler.invoke(new FibTask(10));
+            } catch (Throwable e) {
+                errors[1] = e;
+            }
+        });
+        pendingWaiter.start();
+        while (pendingWaiter.getState() != Thread.State.WAITING) {
+            Thread.yield();
+        }
+
+        scheduler.shutdown();
+        pendingWaiter.join(1000);
+        Asserts.test(!pendingWaiter.isAlive() && errors[1] instanceof CancellationException);
+
+        // 正在执行的根任务继续执行完，它join的子任务已经被取消
+        release.countDown();
+        rootWaiter.join(1000);
+        Asserts.test(!rootWaiter.isAlive() && errors[0] instanceof CancellationException);
+    }
+
+    static class BlockingTask extends WorkStealingScheduler.Task<Integer> {
+        final CountDownLatch forked;
+        final CountDownLatch release;
+
+        BlockingTask(CountDownLatch forked, CountDownLatch release) {
+            this.forked = forked;
+            this.release = release;
+        }
+
+        @Override
+        protected Integer compute() {
+            FibTask child = new FibTask(10);
+            child.fork();
+            forked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return child.join();
+        }
+    }
+
+    /**
+     * BatchEventProcessor：run之前的halt不会丢失；handler抛出异常结束run之后可以再次run；
+     * 设置了ExceptionHandler时跳过出错的事件继续处理
+     */
+    static void test31() throws InterruptedException {
+        RingBuffer<ValueEvent> ringBuffer = new RingBuffer<>(ValueEvent::new, 16, new YieldingWaitStrategy());
+        List<Long> handled = new ArrayList<>();
+        // raw等于failAt[0]的事件处理失败一次
+        long[] failAt = {2};
+        BatchEventProcessor<ValueEvent> processor = new BatchEventProcessor<>(ringBuffer, ringBuffer.newBarrier(),
+                (event, sequence, endOfBatch) -> {
+                    if (event.raw == failAt[0]) {
+                        failAt[0] = -1;
+                        throw new IllegalStateException("event failed");
+                    }
+                    handled.add(event.raw);
+                });
+        ringBuffer.addGatingSequences(processor.sequence());
+
+        // run之前halt：run直接返回
+        processor.halt();
+        Thread thread = new Thread(processor);
+        thread.start();
+        thread.join(1000);
+        Asserts.test(!thread.isAlive() && !processor.isRunning());
+
+        // 没有ExceptionHandler：异常结束run，序号停在出错的事件之前
+        for (int i = 0; i < 5; i++) {
+            publish(ringBuffer, i);
+        }
+        Throwable[] error = new Throwable[1];
+        thread = new Thread(processor);
+        thread.setUncaughtExceptionHandler((t, e) -> error[0] = e);
+        thread.start();
+        thread.join(1000);
+        Asserts.test(!thread.isAlive() && error[0] instanceof IllegalStateException);
+        Asserts.test(!processor.isRunning() && processor.sequence().get() == 1);
+        Asserts.test(handled.equals(Arrays.asList(0L, 1L)));
+
+        // 再次run，从出错的事件开始；ExceptionHandler收到出错的序号，跳过这个事件
+        failAt[0] = 3;
+        List<Long> failed = new ArrayList<>();
+        processor.setExceptionHandler((e, sequence, event) -> failed.add(sequence));
+        thread = new Thread(processor);
+        thread.start();
+        for (int i = 5; i < 8; i++) {
+            publish(ringBuffer, i);
+        }
+        while (processor.sequence().get() < 7) {
+            Thread.yield();
+        }
+        processor.halt();
+        thread.join(1000);
+        Asserts.test(!thread.isAlive() && !processor.isRunning());
+        Asserts.test(handled.equals(Arrays.asList(0L, 1L, 2L, 4L, 5L, 6L, 7L)));
+        Asserts.test(failed.equals(Arrays.asList(3L)));
+    }
+
+    private static void publish(RingBuffer<ValueEvent> ringBuffer, long raw) {
+        long sequence = ringBuffer.next();
+        ringBuffer.get(sequence).raw = raw;
+        ringBuffer.publish(sequence);
+    }
+
+    /**
+     * 容量向上取整为2的幂，超过2^30时溢出，构造时直接拒绝
+     */
+    static void test32() {
+        Asserts.test(new SpscRingQueue<Integer>(1000).capacity() == 1024);
+        checkCapacityRejected(() -> new SpscRingQueue<Integer>((1 << 30) + 1));
+        checkCapacityRejected(() -> new SpscRingQueue<Integer>(Integer.MAX_VALUE));
+        Asserts.test(new MpmcRingQueue<Integer>(1000).capacity() == 1024);
+        checkCapacityRejected(() -> new MpmcRingQueue<Integer>((1 << 30) + 1));
+        checkCapacityRejected(() -> new ShardedQueue<Integer>((1 << 30) + 1, 16, 4));
+        checkCapacityRejected(() -> new WorkStealingDeque<Integer>((1 << 30) + 1));
+    }
+
+    private static void checkCapacityRejected(Runnable constructor) {
+        try {
+            constructor.run();
+            Asserts.test(false);
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    /**
+     * MultiLevelFeedbackQueue：boost时正在运行（已经被next()取出）的任务，requeue时同样回到最高级
+     */
+    static void test33() {
+        MultiLevelFeedbackQueue<String> mlfq = new MultiLevelFeedbackQueue<>(new long[]{2, 4, 8}, 1000);
+        mlfq.submit("long", 2);
+        mlfq.submit("short");
+
+        Task<String> running = mlfq.next();
+        Asserts.test(running.job().equals("short"));
+        running = mlfq.next();
+        Asserts.test(running.job().equals("long") && running.level() == 2);
+        // long运行期间发生boost，只有队列中的任务被提升
+        mlfq.boost();
+        mlfq.requeue(running, 3);
+        Asserts.test(running.level() == 0 && mlfq.quantum(running) == 2);
+
+        // 没有发生boost时照常累计时间片并降级
+        running = mlfq.next();
+        mlfq.requeue(running, 2);
+        Asserts.test(running.level() == 1);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        test33();
 
 //		int n = 13;
 //		int m = 7;
@@ -0,0 +1,353 @@
+package org.msdemt.demo;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 基于内存映射文件的持久化队列，元素是byte[]
+ * <p>
+ * 1. 数据按顺序追加到固定大小的段文件中，每条记录为 [int长度][数据]，段的剩余空间放不下时写入结束标记，换到下一个段
+ * 2. 读写位置保存在一个很小的checkpoint文件中，重启时直接读取，不需要扫描段文件
+ * 3. 读完的段文件会被保留一个用作下一个写入段（避免重新创建、分配文件），多余的删除
+ * <p>
+ * 读写位置编码为一个long（高32位是段号，低32位是段内偏移）。读、写两边在checkpoint中各有两个槽，
+ * 每个槽是 [序号][位置][计数][校验和]，每次更新写入序号+1对应的那个槽：写到一半崩溃的槽校验和对不上，
+ * 重启时使用另一个槽（上一次完整的位置和计数），位置和计数不会不一致。
+ * syncOnWrite为false时依赖操作系统回写，进程崩溃不丢数据，机器掉电可能丢失最近的数据；
+ * 为true时每次入队都会force到磁盘
+ * <p>
+ * 不是线程安全的
+ */
+public class MappedQueue implements Closeable {
+    private static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+    private static final int RECORD_HEADER_SIZE = 4;
+    private static final int END_OF_SEGMENT = -1;
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String RECYCLED_FILE = "recycled.seg";
+    private static final int SLOT_SIZE = 32;
+    private static final int WRITE_SLOTS = 0;
+    private static final int READ_SLOTS = 2 * SLOT_SIZE;
+    private static final int CHECKPOINT_SIZE = 4 * SLOT_SIZE;
+    // 槽内的偏移
+    private static final int SEQUENCE = 0;
+    private static final int POINTER = 8;
+    private static final int COUNT = 16;
+    private static final int CHECKSUM = 24;
+
+    private final File directory;
+    private final int segmentSize;
+    private final boolean syncOnWrite;
+    private final MappedByteBuffer checkpoint;
+
+    private int writeSegment;
+    private int writePosition;
+    private MappedByteBuffer writeBuffer;
+    private long writeCount;
+    private long writeSequence;
+
+    private int readSegment;
+    private int readPosition;
+    private ByteBuffer readBuffer;
+    private long readCount;
+    private long readSequence;
+
+    public MappedQueue(File directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE, false);
+    }
+
+    /**
+     * 打开（或者创建）directory中的队列
+     *
+     * @param directory   队列的目录
+     * @param segmentSize 段文件的大小，单条记录不能超过 segmentSize - 4
+     * @param syncOnWrite 每次入队后是否force到磁盘
+     */
+    public MappedQueue(File directory, int segmentSize, boolean syncOnWrite) {
+        if (segmentSize <= RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("segmentSize is too small");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new UncheckedIOException(new IOException("can not create directory: " + directory));
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncOnWrite = syncOnWrite;
+
+        checkpoint = map(new File(directory, CHECKPOINT_FILE), CHECKPOINT_SIZE);
+        int writeSlot = latestSlot(WRITE_SLOTS);
+        long writePointer = checkpoint.getLong(writeSlot + POINTER);
+        writeSegment = segmentOf(writePointer);
+        writePosition = positionOf(writePointer);
+        writeCount = checkpoint.getLong(writeSlot + COUNT);
+        writeSequence = checkpoint.getLong(writeSlot + SEQUENCE);
+        int readSlot = latestSlot(READ_SLOTS);
+        long readPointer = checkpoint.getLong(readSlot + POINTER);
+        readSegment = segmentOf(readPointer);
+        readPosition = positionOf(readPointer);
+        readCount = checkpoint.getLong(readSlot + COUNT);
+        readSequence = checkpoint.getLong(readSlot + SEQUENCE);
+
+        // 上次可能在更新读位置之后、回收段文件之前崩溃
+        if (readSegment > 0) {
+            recycle(readSegment - 1);
+        }
+        writeBuffer = mapSegment(writeSegment);
+        readBuffer = readSegment == writeSegment ? duplicate(writeBuffer) : mapSegment(readSegment);
+    }
+
+    public long size() {
+        return writeCount - readCount;
+    }
+
+    public boolean isEmpty() {
+        return readSegment == writeSegment && readPosition == writePosition;
+    }
+
+    /**
+     * 丢弃所有元素，回收除写入段之外的段文件
+     */
+    public void clear() {
+        while (readSegment < writeSegment) {
+            nextReadSegment();
+        }
+        readPosition = writePosition;
+        readCount = writeCount;
+        saveReadPointer();
+    }
+
+    /**
+     * 入队
+     *
+     * @param element
+     */
+    public void enQueue(byte[] element) {
+        if (element == null) {
+            throw new IllegalArgumentException("element must not be null");
+        }
+        int recordSize = RECORD_HEADER_SIZE + element.length;
+        if (element.length > segmentSize - RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("element is larger than segment: " + element.length);
+        }
+
+        if (writePosition + recordSize > segmentSize) {
+            // 当前段放不下，写入结束标记，换到下一个段
+            if (writePosition + RECORD_HEADER_SIZE <= segmentSize) {
+                writeBuffer.putInt(writePosition, END_OF_SEGMENT);
+            }
+            if (syncOnWrite) {
+                writeBuffer.force();
+            }
+            writeSegment++;
+            writePosition = 0;
+            writeBuffer = mapSegment(writeSegment);
+        }
+
+        writeBuffer.putInt(writePosition, element.length);
+        ((Buffer) writeBuffer).position(writePosition + RECORD_HEADER_SIZE);
+        writeBuffer.put(element);
+        writePosition += recordSize;
+        if (syncOnWrite) {
+            writeBuffer.force();
+        }
+
+        // 先写数据再更新位置
+        writeCount++;
+        saveSlot(WRITE_SLOTS, ++writeSequence, pointer(writeSegment, writePosition), writeCount);
+        if (syncOnWrite) {
+            checkpoint.force();
+        }
+    }
+
+    /**
+     * 出队
+     *
+     * @return 队列为空时返回null
+     */
+    public byte[] deQueue() {
+        if (isEmpty()) return null;
+
+        if (atEndOfSegment()) {
+            nextReadSegment();
+        }
+        byte[] element = read(readBuffer, readPosition);
+        readPosition += RECORD_HEADER_SIZE + element.length;
+
+        readCount++;
+        saveReadPointer();
+        return element;
+    }
+
+    /**
+     * @return 队头元素的拷贝，队列为空时返回null
+     */
+    public byte[] front() {
+        if (isEmpty()) return null;
+
+        if (atEndOfSegment()) {
+            // 结束标记后的记录一定在下一个段的开头
+            ByteBuffer next = readSegment + 1 == writeSegment ? writeBuffer : mapSegment(readSegment + 1);
+            return read(next, 0);
+        }
+        return read(readBuffer, readPosition);
+    }
+
+    /**
+     * 把数据和checkpoint强制写到磁盘
+     */
+    public void force() {
+        writeBuffer.force();
+        checkpoint.force();
+    }
+
+    @Override
+    public void close() {
+        force();
+    }
+
+    private boolean atEndOfSegment() {
+        return readPosition + RECORD_HEADER_SIZE > segmentSize
+                || readBuffer.getInt(readPosition) == END_OF_SEGMENT;
+    }
+
+    private byte[] read(ByteBuffer buffer, int position) {
+        int length = buffer.getInt(position);
+        byte[] element = new byte[length];
+        ByteBuffer source = duplicate(buffer);
+        ((Buffer) source).position(position + RECORD_HEADER_SIZE);
+        source.get(element);
+        return element;
+    }
+
+    /**
+     * 共享同一块映射内存，但有独立的position
+     * <p>
+     * 通过ByteBuffer调用duplicate、通过Buffer调用position，避免用新版本JDK编译后在JDK 8上找不到协变返回类型的方法
+     */
+    private static ByteBuffer duplicate(ByteBuffer buffer) {
+        return buffer.duplicate();
+    }
+
+    private void nextReadSegment() {
+        int finished = readSegment;
+        readSegment++;
+        readPosition = 0;
+        readBuffer = readSegment == writeSegment ? duplicate(writeBuffer) : mapSegment(readSegment);
+        // 先更新读位置，再回收读完的段
+        saveReadPointer();
+        recycle(finished);
+    }
+
+    private void saveReadPointer() {
+        saveSlot(READ_SLOTS, ++readSequence, pointer(readSegment, readPosition), readCount);
+    }
+
+    /**
+     * 写入sequence对应的槽，另一个槽保留上一次的内容
+     *
+     * @param slots WRITE_SLOTS或者READ_SLOTS
+     */
+    private void saveSlot(int slots, long sequence, long pointer, long count) {
+        int slot = slots + (int) (sequence & 1) * SLOT_SIZE;
+        checkpoint.putLong(slot + SEQUENCE, sequence);
+        checkpoint.putLong(slot + POINTER, pointer);
+        checkpoint.putLong(slot + COUNT, count);
+        checkpoint.putLong(slot + CHECKSUM, checksum(sequence, pointer, count));
+    }
+
+    /**
+     * @param slots WRITE_SLOTS或者READ_SLOTS
+     * @return 校验和正确、序号最大的槽的偏移。新建的checkpoint全是0，两个槽都有效
+     */
+    private int latestSlot(int slots) {
+        int latest = -1;
+        for (int slot = slots; slot < slots + 2 * SLOT_SIZE; slot += SLOT_SIZE) {
+            long sequence = checkpoint.getLong(slot + SEQUENCE);
+            long checksum = checksum(sequence, checkpoint.getLong(slot + POINTER), checkpoint.getLong(slot + COUNT));
+            if (checksum != checkpoint.getLong(slot + CHECKSUM)) continue;
+            if (latest < 0 || sequence > checkpoint.getLong(latest + SEQUENCE)) {
+                latest = slot;
+            }
+        }
+        if (latest < 0) {
+            // 每次只写一个槽，两个都损坏说明checkpoint不是这个队列写的
+            throw new UncheckedIOException(new IOException("checkpoint is corrupted: " + directory));
+        }
+        return latest;
+    }
+
+    /**
+     * 全是0时结果也是0
+     */
+    private static long checksum(long sequence, long pointer, long count) {
+        long hash = sequence * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ pointer) * 0xC2B2AE3D27D4EB4FL;
+        hash = (hash ^ count) * 0x165667B19E3779F9L;
+        return hash ^ (hash >>> 32);
+    }
+
+    /**
+     * 回收读完的段文件：保留一个用作以后的写入段，多余的删除
+     */
+    private void recycle(int segment) {
+        File file = segmentFile(segment);
+        if (!file.exists()) return;
+
+        File recycled = new File(directory, RECYCLED_FILE);
+        if (recycled.exists() || !file.renameTo(recycled)) {
+            file.delete();
+        }
+    }
+
+    private MappedByteBuffer mapSegment(int segment) {
+        File file = segmentFile(segment);
+        if (!file.exists()) {
+            File recycled = new File(directory, RECYCLED_FILE);
+            if (recycled.exists()) {
+                recycled.renameTo(file);
+            }
+        }
+        return map(file, segmentSize);
+    }
+
+    private File segmentFile(int segment) {
+        return new File(directory, String.format("%010d.seg", segment));
+    }
+
+    private static MappedByteBuffer map(File file, int size) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (raf.length() < size) {
+                raf.setLength(size);
+            }
+            // 关闭文件之后映射仍然有效
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long pointer(int segment, int position) {
+        return ((long) segment << 32) | (position & 0xFFFFFFFFL);
+    }
+
+    private static int segmentOf(long pointer) {
+        return (int) (pointer >>> 32);
+    }
+
+    private static int positionOf(long pointer) {
+        return (int) pointer;
+    }
+
+    @Override
+    public String toString() {
+        return "size=" + size() + " read=" + readSegment + ":" + readPosition
+                + " write=" + writeSegment + ":" + writePosition;
+    }
+}
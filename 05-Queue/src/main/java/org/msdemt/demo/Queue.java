@@ -1,15 +1,16 @@
 package org.msdemt.demo;
 
 import org.msdemt.demo.list.LinkedList;
-import org.msdemt.demo.list.List;
 
 /**
  * 使用双向链表实现队列
+ * <p>
+ * 直接使用LinkedList头尾的操作，不经过索引查找
  *
  * @param <E>
  */
 public class Queue<E> {
-    private List<E> list = new LinkedList<>();
+    private LinkedList<E> list = new LinkedList<>();
 
     public int size() {
         return list.size();
@@ -24,14 +25,20 @@ public class Queue<E> {
     }
 
     public void enQueue(E element) {
-        list.add(element);
+        list.addLast(element);
     }
 
+    /**
+     * @return 队列为空时返回null
+     */
     public E deQueue() {
-        return list.remove(0);
+        return list.pollFirst();
     }
 
+    /**
+     * @return 队列为空时返回null
+     */
     public E front() {
-        return list.get(0);
+        return list.peekFirst();
     }
 }
@@ -0,0 +1,294 @@
+package org.msdemt.demo.bounded;
+
+import org.msdemt.demo.circle.LongCircleDeque;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 有界队列的公共逻辑：容量、溢出策略、水位回调、统计
+ * <p>
+ * 与BlockingCircleQueue一样用一把ReentrantLock保护底层的循环队列。
+ * 关闭统计时只多了几次null判断；开启统计时，每个元素的入队时间保存在一个并行的LongCircleDeque中，
+ * 出队时计算停留时间，不需要包装元素
+ *
+ * @param <E>
+ */
+public abstract class AbstractBoundedQueue<E> {
+    protected final int capacity;
+    protected final OverflowPolicy policy;
+
+    protected final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private final QueueMetrics metrics;
+    private final LongCircleDeque timestamps;
+
+    private WatermarkListener listener;
+    private int highWatermark;
+    private int lowWatermark;
+    private boolean aboveHighWatermark;
+
+    /**
+     * @param capacity       最多的元素数量
+     * @param policy         队列已满时的处理策略
+     * @param metricsEnabled 是否统计速率、丢弃数量、停留时间
+     */
+    protected AbstractBoundedQueue(int capacity, OverflowPolicy policy, boolean metricsEnabled) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("policy must not be null");
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+        metrics = metricsEnabled ? new QueueMetrics() : null;
+        timestamps = metricsEnabled ? new LongCircleDeque() : null;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public OverflowPolicy policy() {
+        return policy;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return doSize();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            doClear();
+            if (timestamps != null) {
+                timestamps.clear();
+            }
+            notFull.signalAll();
+            checkLowWatermark();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 设置水位回调
+     *
+     * @param lowWatermark  元素数量下降到这个值时调用onLowWatermark
+     * @param highWatermark 元素数量上升到这个值时调用onHighWatermark
+     * @param listener      为null时取消回调
+     */
+    public void setWatermarks(int lowWatermark, int highWatermark, WatermarkListener listener) {
+        if (lowWatermark < 0 || lowWatermark >= highWatermark || highWatermark > capacity) {
+            throw new IllegalArgumentException("require 0 <= lowWatermark < highWatermark <= capacity");
+        }
+        lock.lock();
+        try {
+            this.lowWatermark = lowWatermark;
+            this.highWatermark = highWatermark;
+            this.listener = listener;
+            aboveHighWatermark = false;
+            checkHighWatermark();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 统计数据的快照
+     * @throws IllegalStateException 创建时没有开启统计
+     */
+    public QueueMetrics metrics() {
+        if (metrics == null) {
+            throw new IllegalStateException("metrics are disabled");
+        }
+        lock.lock();
+        try {
+            return metrics.snapshot(doSize(), System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void resetMetrics() {
+        if (metrics == null) {
+            throw new IllegalStateException("metrics are disabled");
+        }
+        lock.lock();
+        try {
+            metrics.reset();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按溢出策略入队
+     *
+     * @param element
+     * @param atFront 是否从头部入队
+     * @return 元素是否进入了队列（REJECT、DROP_NEWEST在队列已满时返回false）
+     * @throws InterruptedException BLOCK策略等待时被中断
+     */
+    protected boolean offer(E element, boolean atFront) throws InterruptedException {
+        if (element == null) {
+            throw new IllegalArgumentException("element must not be null");
+        }
+        lock.lockInterruptibly();
+        try {
+            if (doSize() == capacity) {
+                switch (policy) {
+                    case REJECT:
+                        if (metrics != null) metrics.onReject();
+                        return false;
+                    case DROP_NEWEST:
+                        if (metrics != null) metrics.onDrop();
+                        return false;
+                    case DROP_OLDEST:
+                        // 最旧的元素在另一端
+                        doRemove(!atFront);
+                        if (metrics != null) {
+                            removeTimestamp(!atFront);
+                            metrics.onDrop();
+                        }
+                        break;
+                    case BLOCK:
+                        while (doSize() == capacity) {
+                            notFull.await();
+                        }
+                        break;
+                }
+            }
+
+            doAdd(element, atFront);
+            if (metrics != null) {
+                long now = System.nanoTime();
+                if (atFront) {
+                    timestamps.enQueueFront(now);
+                } else {
+                    timestamps.enQueueRear(now);
+                }
+                metrics.onEnqueue(doSize());
+            }
+            notEmpty.signal();
+            checkHighWatermark();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param atFront 是否从头部出队
+     * @return 队列为空时返回null
+     */
+    protected E poll(boolean atFront) {
+        lock.lock();
+        try {
+            return doSize() == 0 ? null : dequeue(atFront);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 出队，队列为空时等待
+     *
+     * @param atFront 是否从头部出队
+     * @return
+     * @throws InterruptedException
+     */
+    protected E take(boolean atFront) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (doSize() == 0) {
+                notEmpty.await();
+            }
+            return dequeue(atFront);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param atFront 是否查看头部
+     * @return 队列为空时返回null
+     */
+    protected E peek(boolean atFront) {
+        lock.lock();
+        try {
+            return doSize() == 0 ? null : doPeek(atFront);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 调用前必须持有锁，并且队列不为空
+     */
+    private E dequeue(boolean atFront) {
+        E element = doRemove(atFront);
+        if (metrics != null) {
+            metrics.onDequeue(System.nanoTime() - removeTimestamp(atFront));
+        }
+        notFull.signal();
+        checkLowWatermark();
+        return element;
+    }
+
+    private long removeTimestamp(boolean atFront) {
+        return atFront ? timestamps.deQueueFront() : timestamps.deQueueRear();
+    }
+
+    private void checkHighWatermark() {
+        if (listener != null && !aboveHighWatermark && doSize() >= highWatermark) {
+            aboveHighWatermark = true;
+            listener.onHighWatermark(doSize());
+        }
+    }
+
+    private void checkLowWatermark() {
+        if (listener != null && aboveHighWatermark && doSize() <= lowWatermark) {
+            aboveHighWatermark = false;
+            listener.onLowWatermark(doSize());
+        }
+    }
+
+    // 以下方法由子类操作底层的循环队列，调用前已经持有锁
+
+    protected abstract int doSize();
+
+    protected abstract void doClear();
+
+    protected abstract void doAdd(E element, boolean atFront);
+
+    protected abstract E doRemove(boolean atFront);
+
+    protected abstract E doPeek(boolean atFront);
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return "capacity=" + capacity + " policy=" + policy + " size=" + doSize();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.msdemt.demo.bounded;
+
+import org.msdemt.demo.circle.CircleDeque;
+
+/**
+ * 有界循环双端队列，队列已满时按OverflowPolicy处理，支持水位回调和统计
+ * <p>
+ * DROP_OLDEST丢弃的是另一端的元素：从尾部入队时丢弃头部元素，从头部入队时丢弃尾部元素
+ *
+ * @param <E>
+ */
+public class BoundedDeque<E> extends AbstractBoundedQueue<E> {
+    private final CircleDeque<E> deque = new CircleDeque<>();
+
+    public BoundedDeque(int capacity, OverflowPolicy policy) {
+        this(capacity, policy, false);
+    }
+
+    public BoundedDeque(int capacity, OverflowPolicy policy, boolean metricsEnabled) {
+        super(capacity, policy, metricsEnabled);
+    }
+
+    /**
+     * 从尾部入队
+     *
+     * @param element
+     * @return 元素是否进入了队列
+     * @throws InterruptedException BLOCK策略等待时被中断
+     */
+    public boolean enQueueRear(E element) throws InterruptedException {
+        return offer(element, false);
+    }
+
+    /**
+     * 从头部入队
+     *
+     * @param element
+     * @return 元素是否进入了队列
+     * @throws InterruptedException BLOCK策略等待时被中断
+     */
+    public boolean enQueueFront(E element) throws InterruptedException {
+        return offer(element, true);
+    }
+
+    /**
+     * 从头部出队
+     *
+     * @return 队列为空时返回null
+     */
+    public E deQueueFront() {
+        return poll(true);
+    }
+
+    /**
+     * 从尾部出队
+     *
+     * @return 队列为空时返回null
+     */
+    public E deQueueRear() {
+        return poll(false);
+    }
+
+    /**
+     * 从头部出队，队列为空时等待
+     *
+     * @return
+     * @throws InterruptedException
+     */
+    public E takeFront() throws InterruptedException {
+        return take(true);
+    }
+
+    /**
+     * 从尾部出队，队列为空时等待
+     *
+     * @return
+     * @throws InterruptedException
+     */
+    public E takeRear() throws InterruptedException {
+        return take(false);
+    }
+
+    /**
+     * @return 队列为空时返回null
+     */
+    public E front() {
+        return peek(true);
+    }
+
+    /**
+     * @return 队列为空时返回null
+     */
+    public E rear() {
+        return peek(false);
+    }
+
+    @Override
+    protected int doSize() {
+        return deque.size();
+    }
+
+    @Override
+    protected void doClear() {
+        deque.clear();
+    }
+
+    @Override
+    protected void doAdd(E element, boolean atFront) {
+        if (atFront) {
+            deque.enQueueFront(element);
+        } else {
+            deque.enQueueRear(element);
+        }
+    }
+
+    @Override
+    protected E doRemove(boolean atFront) {
+        return atFront ? deque.deQueueFront() : deque.deQueueRear();
+    }
+
+    @Override
+    protected E doPeek(boolean atFront) {
+        return atFront ? deque.front() : deque.rear();
+    }
+}
@@ -0,0 +1,82 @@
+package org.msdemt.demo.bounded;
+
+import org.msdemt.demo.circle.CircleQueue;
+
+/**
+ * 有界循环队列，队列已满时按OverflowPolicy处理，支持水位回调和统计
+ *
+ * @param <E>
+ */
+public class BoundedQueue<E> extends AbstractBoundedQueue<E> {
+    private final CircleQueue<E> queue = new CircleQueue<>();
+
+    public BoundedQueue(int capacity, OverflowPolicy policy) {
+        this(capacity, policy, false);
+    }
+
+    public BoundedQueue(int capacity, OverflowPolicy policy, boolean metricsEnabled) {
+        super(capacity, policy, metricsEnabled);
+    }
+
+    /**
+     * 入队
+     *
+     * @param element
+     * @return 元素是否进入了队列
+     * @throws InterruptedException BLOCK策略等待时被中断
+     */
+    public boolean enQueue(E element) throws InterruptedException {
+        return offer(element, false);
+    }
+
+    /**
+     * 出队
+     *
+     * @return 队列为空时返回null
+     */
+    public E deQueue() {
+        return poll(true);
+    }
+
+    /**
+     * 出队，队列为空时等待
+     *
+     * @return
+     * @throws InterruptedException
+     */
+    public E take() throws InterruptedException {
+        return take(true);
+    }
+
+    /**
+     * @return 队列为空时返回null
+     */
+    public E front() {
+        return peek(true);
+    }
+
+    @Override
+    protected int doSize() {
+        return queue.size();
+    }
+
+    @Override
+    protected void doClear() {
+        queue.clear();
+    }
+
+    @Override
+    protected void doAdd(E element, boolean atFront) {
+        queue.enQueue(element);
+    }
+
+    @Override
+    protected E doRemove(boolean atFront) {
+        return queue.deQueue();
+    }
+
+    @Override
+    protected E doPeek(boolean atFront) {
+        return queue.front();
+    }
+}
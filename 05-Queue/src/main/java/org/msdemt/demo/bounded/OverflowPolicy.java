@@ -0,0 +1,23 @@
+package org.msdemt.demo.bounded;
+
+/**
+ * 有界队列已满时的处理策略
+ */
+public enum OverflowPolicy {
+    /**
+     * 拒绝新元素，入队返回false
+     */
+    REJECT,
+    /**
+     * 生产者等待，直到有空位
+     */
+    BLOCK,
+    /**
+     * 丢弃队列中最旧的元素（离入队一端最远的元素），再放入新元素
+     */
+    DROP_OLDEST,
+    /**
+     * 丢弃新元素，入队返回false，计入丢弃数量
+     */
+    DROP_NEWEST
+}
@@ -0,0 +1,165 @@
+package org.msdemt.demo.bounded;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 有界队列的统计数据
+ * <p>
+ * 队列内部持有一份，在锁内更新；通过BoundedQueue.metrics()得到的是某个时刻的快照，
+ * 两个快照相减就是这段时间的入队、出队速率
+ * <p>
+ * 停留时间直方图按2的幂分桶：第i个桶统计停留时间在 [2^(i-1), 2^i) 纳秒的元素
+ */
+public class QueueMetrics {
+    private static final int BUCKETS = 64;
+
+    private long timestamp;
+    private int size;
+    private int peakSize;
+    private long enqueued;
+    private long dequeued;
+    private long dropped;
+    private long rejected;
+    private final long[] histogram = new long[BUCKETS];
+
+    QueueMetrics() {
+    }
+
+    void onEnqueue(int size) {
+        enqueued++;
+        if (size > peakSize) {
+            peakSize = size;
+        }
+    }
+
+    void onDequeue(long nanosInQueue) {
+        dequeued++;
+        histogram[Long.SIZE - Long.numberOfLeadingZeros(Math.max(nanosInQueue, 0))]++;
+    }
+
+    void onDrop() {
+        dropped++;
+    }
+
+    void onReject() {
+        rejected++;
+    }
+
+    void reset() {
+        peakSize = 0;
+        enqueued = 0;
+        dequeued = 0;
+        dropped = 0;
+        rejected = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = 0;
+        }
+    }
+
+    QueueMetrics snapshot(int size, long timestamp) {
+        QueueMetrics snapshot = new QueueMetrics();
+        snapshot.timestamp = timestamp;
+        snapshot.size = size;
+        snapshot.peakSize = peakSize;
+        snapshot.enqueued = enqueued;
+        snapshot.dequeued = dequeued;
+        snapshot.dropped = dropped;
+        snapshot.rejected = rejected;
+        System.arraycopy(histogram, 0, snapshot.histogram, 0, BUCKETS);
+        return snapshot;
+    }
+
+    /**
+     * @return 快照时的元素数量
+     */
+    public int size() {
+        return size;
+    }
+
+    public int peakSize() {
+        return peakSize;
+    }
+
+    public long enqueued() {
+        return enqueued;
+    }
+
+    public long dequeued() {
+        return dequeued;
+    }
+
+    /**
+     * @return DROP_OLDEST、DROP_NEWEST丢弃的元素数量
+     */
+    public long dropped() {
+        return dropped;
+    }
+
+    /**
+     * @return REJECT拒绝的元素数量
+     */
+    public long rejected() {
+        return rejected;
+    }
+
+    /**
+     * @param previous 之前的快照
+     * @return 从previous到当前快照，每秒入队的元素数量
+     */
+    public double enqueueRate(QueueMetrics previous) {
+        return rate(enqueued - previous.enqueued, previous);
+    }
+
+    /**
+     * @param previous 之前的快照
+     * @return 从previous到当前快照，每秒出队的元素数量
+     */
+    public double dequeueRate(QueueMetrics previous) {
+        return rate(dequeued - previous.dequeued, previous);
+    }
+
+    /**
+     * 停留时间的分位数，精度是2倍（返回所在桶的上界）
+     *
+     * @param percentile 0到1之间
+     * @param unit
+     * @return 没有出队过元素时返回0
+     */
+    public long timeInQueue(double percentile, TimeUnit unit) {
+        if (percentile < 0 || percentile > 1) {
+            throw new IllegalArgumentException("percentile must be between 0 and 1");
+        }
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        if (total == 0) return 0;
+
+        long target = Math.max(1, (long) Math.ceil(total * percentile));
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += histogram[i];
+            if (count >= target) {
+                return unit.convert((1L << i) - 1, TimeUnit.NANOSECONDS);
+            }
+        }
+        return 0;
+    }
+
+    private double rate(long count, QueueMetrics previous) {
+        long nanos = timestamp - previous.timestamp;
+        return nanos <= 0 ? 0 : count * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "size=" + size
+                + " peak=" + peakSize
+                + " enqueued=" + enqueued
+                + " dequeued=" + dequeued
+                + " dropped=" + dropped
+                + " rejected=" + rejected
+                + " p50=" + timeInQueue(0.5, TimeUnit.MICROSECONDS) + "us"
+                + " p99=" + timeInQueue(0.99, TimeUnit.MICROSECONDS) + "us";
+    }
+}
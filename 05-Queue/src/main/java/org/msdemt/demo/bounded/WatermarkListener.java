@@ -0,0 +1,14 @@
+package org.msdemt.demo.bounded;
+
+/**
+ * 水位回调
+ * <p>
+ * 元素数量上升到高水位时调用一次onHighWatermark，之后要等数量下降到低水位调用onLowWatermark，才会再次触发高水位，
+ * 避免数量在某个值附近抖动时反复回调。
+ * 回调在入队/出队的线程中、持有队列的锁时执行，应该尽快返回（例如只设置一个标志位让生产者降速）
+ */
+public interface WatermarkListener {
+    void onHighWatermark(int size);
+
+    void onLowWatermark(int size);
+}
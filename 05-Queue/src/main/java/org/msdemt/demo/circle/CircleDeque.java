@@ -7,6 +7,10 @@ public class CircleDeque<E> {
     private E[] elements;
     private static final int DEFAULT_CAPACITY = 10;
 
+    // 缩容累计释放的数组槽位数量、缩容次数
+    private long reclaimedCapacity;
+    private int shrinkCount;
+
     public CircleDeque() {
         elements = (E[]) new Object[DEFAULT_CAPACITY];
     }
@@ -19,14 +23,46 @@ public class CircleDeque<E> {
         return size == 0;
     }
 
+    public int capacity() {
+        return elements.length;
+    }
+
     public void clear() {
-        for (int i = 0; i < size; i++) {
-            elements[index(i)] = null;
+        if (elements.length > DEFAULT_CAPACITY) {
+            // 直接换成默认容量的数组，比逐个置null更快，也不会一直占着突发时扩出来的大数组
+            reclaimedCapacity += elements.length - DEFAULT_CAPACITY;
+            shrinkCount++;
+            elements = (E[]) new Object[DEFAULT_CAPACITY];
+        } else {
+            for (int i = 0; i < size; i++) {
+                elements[index(i)] = null;
+            }
         }
         front = 0;
         size = 0;
     }
 
+    /**
+     * 把容量缩小到元素数量（不小于默认容量）
+     */
+    public void trimToSize() {
+        int newCapacity = Math.max(size, DEFAULT_CAPACITY);
+        if (newCapacity < elements.length) {
+            shrink(newCapacity);
+        }
+    }
+
+    /**
+     * @return 缩容累计释放的数组槽位数量，乘以引用的大小（开启压缩指针时为4字节）就是释放的内存
+     */
+    public long reclaimedCapacity() {
+        return reclaimedCapacity;
+    }
+
+    public int shrinkCount() {
+        return shrinkCount;
+    }
+
     /**
      * 从尾部入队
      *
@@ -49,6 +85,7 @@ public class CircleDeque<E> {
         elements[front] = null;
         front = index(1);
         size--;
+        shrinkIfNeeded();
         return frontElement;
     }
 
@@ -75,6 +112,7 @@ public class CircleDeque<E> {
         E rear = elements[rearIndex];
         elements[rearIndex] = null;
         size--;
+        shrinkIfNeeded();
         return rear;
     }
 
@@ -123,10 +161,38 @@ public class CircleDeque<E> {
 
         // 新容量为旧容量的1.5倍
         int newCapacity = oldCapacity + (oldCapacity >> 1);
+        resize(newCapacity);
+    }
+
+    /**
+     * 出队之后检查是否需要缩容
+     * <p>
+     * 元素数量不超过容量的1/4时缩小为一半：缩容后数量最多是容量的1/2，要再增加一倍才会扩容，
+     * 数量在某个值附近波动时不会反复扩容、缩容，均摊到每次出队仍然是O(1)
+     */
+    private void shrinkIfNeeded() {
+        int oldCapacity = elements.length;
+        if (oldCapacity <= DEFAULT_CAPACITY || size > (oldCapacity >> 2)) return;
+
+        shrink(Math.max(oldCapacity >> 1, DEFAULT_CAPACITY));
+    }
+
+    private void shrink(int newCapacity) {
+        reclaimedCapacity += elements.length - newCapacity;
+        shrinkCount++;
+        resize(newCapacity);
+    }
+
+    /**
+     * 换成容量为newCapacity的数组，newCapacity不能小于size
+     */
+    private void resize(int newCapacity) {
+        int oldCapacity = elements.length;
         E[] newElements = (E[]) new Object[newCapacity];
-        for (int i = 0; i < size; i++) {
-            newElements[i] = elements[index(i)];
-        }
+        // 最多分两段拷贝：front到数组末尾、数组开头到rear
+        int firstPart = Math.min(size, oldCapacity - front);
+        System.arraycopy(elements, front, newElements, 0, firstPart);
+        System.arraycopy(elements, 0, newElements, firstPart, size - firstPart);
         elements = newElements;
 
         // 重置front
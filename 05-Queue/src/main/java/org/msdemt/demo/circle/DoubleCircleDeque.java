@@ -0,0 +1,159 @@
+package org.msdemt.demo.circle;
+
+/**
+ * double元素的循环双端队列，与CircleDeque的结构相同，元素直接存储在double[]中，没有装箱
+ */
+public class DoubleCircleDeque {
+    private int front;
+    private int size;
+    private double[] elements;
+    private static final int DEFAULT_CAPACITY = 10;
+
+    public DoubleCircleDeque() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public DoubleCircleDeque(int capacity) {
+        elements = new double[Math.max(capacity, DEFAULT_CAPACITY)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        front = 0;
+        size = 0;
+    }
+
+    /**
+     * 从尾部入队
+     *
+     * @param element
+     */
+    public void enQueueRear(double element) {
+        ensureCapacity(size + 1);
+
+        elements[index(size)] = element;
+        size++;
+    }
+
+    /**
+     * 从头部出队
+     *
+     * @return
+     */
+    public double deQueueFront() {
+        emptyCheck();
+        double frontElement = elements[front];
+        front = index(1);
+        size--;
+        return frontElement;
+    }
+
+    /**
+     * 从头部入队
+     *
+     * @param element
+     */
+    public void enQueueFront(double element) {
+        ensureCapacity(size + 1);
+
+        front = index(-1);
+        elements[front] = element;
+        size++;
+    }
+
+    /**
+     * 从尾部出队
+     *
+     * @return
+     */
+    public double deQueueRear() {
+        emptyCheck();
+        double rear = elements[index(size - 1)];
+        size--;
+        return rear;
+    }
+
+    public double front() {
+        emptyCheck();
+        return elements[front];
+    }
+
+    public double rear() {
+        emptyCheck();
+        return elements[index(size - 1)];
+    }
+
+    /**
+     * 获取从头部数起第index个元素
+     *
+     * @param index
+     * @return
+     */
+    public double get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index:" + index + ", Size:" + size);
+        }
+        return elements[index(index)];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        string.append("capacity=").append(elements.length)
+                .append(" size=").append(size)
+                .append(" front=").append(front)
+                .append(", [");
+        for (int i = 0; i < size; i++) {
+            if (i != 0) {
+                string.append(", ");
+            }
+
+            string.append(elements[index(i)]);
+        }
+        string.append("]");
+        return string.toString();
+    }
+
+    private int index(int index) {
+        index += front;
+        if (index < 0) {
+            return index + elements.length;
+        }
+        return index - (index >= elements.length ? elements.length : 0);
+    }
+
+    private void emptyCheck() {
+        if (size == 0) {
+            throw new IndexOutOfBoundsException("Deque is empty");
+        }
+    }
+
+    /**
+     * 保证要有capacity的容量
+     *
+     * @param capacity
+     */
+    private void ensureCapacity(int capacity) {
+        int oldCapacity = elements.length;
+        if (oldCapacity >= capacity) return;
+
+        // 新容量为旧容量的1.5倍
+        int newCapacity = oldCapacity + (oldCapacity >> 1);
+        double[] newElements = new double[newCapacity];
+        // 最多分两段拷贝：front到数组末尾、数组开头到rear
+        int firstPart = Math.min(size, oldCapacity - front);
+        System.arraycopy(elements, front, newElements, 0, firstPart);
+        System.arraycopy(elements, 0, newElements, firstPart, size - firstPart);
+        elements = newElements;
+
+        // 重置front
+        front = 0;
+    }
+}
@@ -0,0 +1,366 @@
+package org.msdemt.demo.concurrent;
+
+import org.msdemt.demo.circle.CircleDeque;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 阻塞循环双端队列
+ * <p>
+ * 与BlockingCircleQueue相同，用一把ReentrantLock和notEmpty、notFull两个Condition保护CircleDeque，
+ * 虚拟线程等待时不会钉住载体线程
+ *
+ * @param <E>
+ */
+public class BlockingCircleDeque<E> {
+    private final CircleDeque<E> deque = new CircleDeque<>();
+    private final int capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    public BlockingCircleDeque() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public BlockingCircleDeque(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return deque.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            deque.clear();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 从尾部入队，队列已满时抛出异常
+     *
+     * @param element
+     */
+    public void enQueueRear(E element) {
+        if (!offerRear(element)) {
+            throw new IllegalStateException("deque is full");
+        }
+    }
+
+    /**
+     * 从头部入队，队列已满时抛出异常
+     *
+     * @param element
+     */
+    public void enQueueFront(E element) {
+        if (!offerFront(element)) {
+            throw new IllegalStateException("deque is full");
+        }
+    }
+
+    /**
+     * 从头部出队
+     *
+     * @return 队列为空时返回null
+     */
+    public E deQueueFront() {
+        return pollFront();
+    }
+
+    /**
+     * 从尾部出队
+     *
+     * @return 队列为空时返回null
+     */
+    public E deQueueRear() {
+        return pollRear();
+    }
+
+    /**
+     * @return 队列为空时返回null
+     */
+    public E front() {
+        lock.lock();
+        try {
+            return deque.isEmpty() ? null : deque.front();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 队列为空时返回null
+     */
+    public E rear() {
+        lock.lock();
+        try {
+            return deque.isEmpty() ? null : deque.rear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 从尾部入队，队列已满时等待
+     */
+    public void putRear(E element) throws InterruptedException {
+        put(element, false);
+    }
+
+    /**
+     * 从头部入队，队列已满时等待
+     */
+    public void putFront(E element) throws InterruptedException {
+        put(element, true);
+    }
+
+    /**
+     * 从头部出队，队列为空时等待
+     */
+    public E takeFront() throws InterruptedException {
+        return take(true);
+    }
+
+    /**
+     * 从尾部出队，队列为空时等待
+     */
+    public E takeRear() throws InterruptedException {
+        return take(false);
+    }
+
+    /**
+     * 从尾部入队，不等待
+     *
+     * @return 队列已满时返回false
+     */
+    public boolean offerRear(E element) {
+        return offer(element, false);
+    }
+
+    /**
+     * 从头部入队，不等待
+     *
+     * @return 队列已满时返回false
+     */
+    public boolean offerFront(E element) {
+        return offer(element, true);
+    }
+
+    /**
+     * 从尾部入队，队列已满时最多等待timeout
+     *
+     * @return 超时返回false
+     */
+    public boolean offerRear(E element, long timeout, TimeUnit unit) throws InterruptedException {
+        return offer(element, false, unit.toNanos(timeout));
+    }
+
+    /**
+     * 从头部入队，队列已满时最多等待timeout
+     *
+     * @return 超时返回false
+     */
+    public boolean offerFront(E element, long timeout, TimeUnit unit) throws InterruptedException {
+        return offer(element, true, unit.toNanos(timeout));
+    }
+
+    /**
+     * 从头部出队，不等待
+     *
+     * @return 队列为空时返回null
+     */
+    public E pollFront() {
+        return poll(true);
+    }
+
+    /**
+     * 从尾部出队，不等待
+     *
+     * @return 队列为空时返回null
+     */
+    public E pollRear() {
+        return poll(false);
+    }
+
+    /**
+     * 从头部出队，队列为空时最多等待timeout
+     *
+     * @return 超时返回null
+     */
+    public E pollFront(long timeout, TimeUnit unit) throws InterruptedException {
+        return poll(true, unit.toNanos(timeout));
+    }
+
+    /**
+     * 从尾部出队，队列为空时最多等待timeout
+     *
+     * @return 超时返回null
+     */
+    public E pollRear(long timeout, TimeUnit unit) throws InterruptedException {
+        return poll(false, unit.toNanos(timeout));
+    }
+
+    /**
+     * 一次加锁从头部取出最多max个元素，放入batch
+     *
+     * @param batch
+     * @param max
+     * @return 取出的元素数量
+     */
+    public int drainTo(Collection<? super E> batch, int max) {
+        if (batch == null) {
+            throw new NullPointerException("batch must not be null");
+        }
+        if (max <= 0) return 0;
+
+        lock.lock();
+        try {
+            int count = Math.min(max, deque.size());
+            for (int i = 0; i < count; i++) {
+                batch.add(deque.deQueueFront());
+            }
+            if (count > 0) {
+                notFull.signalAll();
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(E element, boolean front) throws InterruptedException {
+        elementNotNullCheck(element);
+        lock.lockInterruptibly();
+        try {
+            while (deque.size() == capacity) {
+                notFull.await();
+            }
+            enqueue(element, front);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private E take(boolean front) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (deque.isEmpty()) {
+                notEmpty.await();
+            }
+            return dequeue(front);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean offer(E element, boolean front) {
+        elementNotNullCheck(element);
+        lock.lock();
+        try {
+            if (deque.size() == capacity) return false;
+            enqueue(element, front);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean offer(E element, boolean front, long nanos) throws InterruptedException {
+        elementNotNullCheck(element);
+        lock.lockInterruptibly();
+        try {
+            while (deque.size() == capacity) {
+                if (nanos <= 0) return false;
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(element, front);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private E poll(boolean front) {
+        lock.lock();
+        try {
+            return deque.isEmpty() ? null : dequeue(front);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private E poll(boolean front, long nanos) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (deque.isEmpty()) {
+                if (nanos <= 0) return null;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue(front);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 调用前必须持有锁
+     */
+    private void enqueue(E element, boolean front) {
+        if (front) {
+            deque.enQueueFront(element);
+        } else {
+            deque.enQueueRear(element);
+        }
+        notEmpty.signal();
+    }
+
+    /**
+     * 调用前必须持有锁，并且队列不为空
+     */
+    private E dequeue(boolean front) {
+        E element = front ? deque.deQueueFront() : deque.deQueueRear();
+        notFull.signal();
+        return element;
+    }
+
+    private void elementNotNullCheck(E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("element must not be null");
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return deque.toString();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
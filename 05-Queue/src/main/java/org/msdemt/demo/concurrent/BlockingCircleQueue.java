@@ -0,0 +1,272 @@
+package org.msdemt.demo.concurrent;
+
+import org.msdemt.demo.circle.CircleQueue;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 阻塞循环队列
+ * <p>
+ * 用一把ReentrantLock保护CircleQueue，队列为空时消费者在notEmpty上等待，队列已满时生产者在notFull上等待。
+ * 不使用synchronized/wait/notify，虚拟线程在Condition上等待时会卸载，不会钉住载体线程
+ *
+ * @param <E>
+ */
+public class BlockingCircleQueue<E> {
+    private final CircleQueue<E> queue = new CircleQueue<>();
+    private final int capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    public BlockingCircleQueue() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public BlockingCircleQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            queue.clear();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 入队，队列已满时抛出异常
+     *
+     * @param element
+     */
+    public void enQueue(E element) {
+        if (!offer(element)) {
+            throw new IllegalStateException("queue is full");
+        }
+    }
+
+    /**
+     * 出队
+     *
+     * @return 队列为空时返回null
+     */
+    public E deQueue() {
+        return poll();
+    }
+
+    /**
+     * @return 队列为空时返回null
+     */
+    public E front() {
+        lock.lock();
+        try {
+            return queue.isEmpty() ? null : queue.front();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 入队，队列已满时等待
+     *
+     * @param element
+     * @throws InterruptedException
+     */
+    public void put(E element) throws InterruptedException {
+        elementNotNullCheck(element);
+        lock.lockInterruptibly();
+        try {
+            while (queue.size() == capacity) {
+                notFull.await();
+            }
+            enqueue(element);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 出队，队列为空时等待
+     *
+     * @return
+     * @throws InterruptedException
+     */
+    public E take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (queue.isEmpty()) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 入队，不等待
+     *
+     * @param element
+     * @return 队列已满时返回false
+     */
+    public boolean offer(E element) {
+        elementNotNullCheck(element);
+        lock.lock();
+        try {
+            if (queue.size() == capacity) return false;
+            enqueue(element);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 入队，队列已满时最多等待timeout
+     *
+     * @param element
+     * @param timeout
+     * @param unit
+     * @return 超时返回false
+     * @throws InterruptedException
+     */
+    public boolean offer(E element, long timeout, TimeUnit unit) throws InterruptedException {
+        elementNotNullCheck(element);
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (queue.size() == capacity) {
+                if (nanos <= 0) return false;
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(element);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 出队，不等待
+     *
+     * @return 队列为空时返回null
+     */
+    public E poll() {
+        lock.lock();
+        try {
+            return queue.isEmpty() ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 出队，队列为空时最多等待timeout
+     *
+     * @param timeout
+     * @param unit
+     * @return 超时返回null
+     * @throws InterruptedException
+     */
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (queue.isEmpty()) {
+                if (nanos <= 0) return null;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 一次加锁取出最多max个元素，放入batch
+     *
+     * @param batch
+     * @param max
+     * @return 取出的元素数量
+     */
+    public int drainTo(Collection<? super E> batch, int max) {
+        if (batch == null) {
+            throw new NullPointerException("batch must not be null");
+        }
+        if (max <= 0) return 0;
+
+        lock.lock();
+        try {
+            int count = Math.min(max, queue.size());
+            for (int i = 0; i < count; i++) {
+                batch.add(queue.deQueue());
+            }
+            if (count > 0) {
+                notFull.signalAll();
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 调用前必须持有锁
+     */
+    private void enqueue(E element) {
+        queue.enQueue(element);
+        notEmpty.signal();
+    }
+
+    /**
+     * 调用前必须持有锁，并且队列不为空
+     */
+    private E dequeue() {
+        E element = queue.deQueue();
+        notFull.signal();
+        return element;
+    }
+
+    private void elementNotNullCheck(E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("element must not be null");
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return queue.toString();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package org.msdemt.demo.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * 多生产者多消费者（MPMC）有界无锁环形队列
+ * <p>
+ * 使用Dmitry Vyukov的每槽位序号算法：每个槽位有一个序号sequence，
+ * 1. sequence == pos，代表槽位空闲，位置为pos的生产者可以写入
+ * 2. sequence == pos + 1，代表槽位已写入，位置为pos的消费者可以读取
+ * 3. 消费者读取后把sequence设置为pos + capacity，留给下一圈的生产者
+ * 生产者、消费者只需要CAS竞争各自的位置（tail、head），没有全局锁
+ *
+ * @param <E>
+ */
+@SuppressWarnings("unused")
+public class MpmcRingQueue<E> {
+    private static final int DEFAULT_CAPACITY = 1 << 10;
+    // 更大的容量向上取整为2的幂时会溢出
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    @SuppressWarnings("unchecked")
+    private static final AtomicLongFieldUpdater<MpmcRingQueue<?>> TAIL =
+            AtomicLongFieldUpdater.newUpdater((Class<MpmcRingQueue<?>>) (Class<?>) MpmcRingQueue.class, "tail");
+    @SuppressWarnings("unchecked")
+    private static final AtomicLongFieldUpdater<MpmcRingQueue<?>> HEAD =
+            AtomicLongFieldUpdater.newUpdater((Class<MpmcRingQueue<?>>) (Class<?>) MpmcRingQueue.class, "head");
+
+    private final E[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    private long p00, p01, p02, p03, p04, p05, p06, p07;
+
+    // 生产者竞争的位置
+    private volatile long tail;
+
+    private long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    // 消费者竞争的位置
+    private volatile long head;
+
+    private long p20, p21, p22, p23, p24, p25, p26, p27;
+
+    public MpmcRingQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity 会向上取整为2的幂，最小为2，不能超过2^30
+     */
+    public MpmcRingQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (capacity > MAXIMUM_CAPACITY) {
+            throw new IllegalArgumentException("capacity must not exceed " + MAXIMUM_CAPACITY);
+        }
+        int actualCapacity = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        @SuppressWarnings("unchecked")
+        E[] elements = (E[]) new Object[actualCapacity];
+        this.elements = elements;
+        sequences = new AtomicLongArray(actualCapacity);
+        for (int i = 0; i < actualCapacity; i++) {
+            sequences.set(i, i);
+        }
+        mask = actualCapacity - 1;
+    }
+
+    public int capacity() {
+        return elements.length;
+    }
+
+    /**
+     * 并发修改时只是一个近似值
+     *
+     * @return
+     */
+    public int size() {
+        long currentHead = head;
+        long currentTail = tail;
+        long size = currentTail - currentHead;
+        if (size < 0) return 0;
+        return size > elements.length ? elements.length : (int) size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        while (poll() != null) ;
+    }
+
+    /**
+     * 入队，队列已满时抛出异常
+     *
+     * @param element
+     */
+    public void enQueue(E element) {
+        if (!offer(element)) {
+            throw new IllegalStateException("queue is full");
+        }
+    }
+
+    /**
+     * 出队
+     *
+     * @return 队列为空时返回null
+     */
+    public E deQueue() {
+        return poll();
+    }
+
+    /**
+     * 查看队头元素，并发出队时返回的可能是刚被取走的元素
+     *
+     * @return 队列为空时返回null
+     */
+    public E front() {
+        while (true) {
+            long currentHead = head;
+            int index = (int) currentHead & mask;
+            long dif = sequences.get(index) - (currentHead + 1);
+            if (dif < 0) return null;
+
+            E frontElement = elements[index];
+            // head没有变化，说明读到的就是队头元素
+            if (dif == 0 && frontElement != null && currentHead == head) return frontElement;
+        }
+    }
+
+    /**
+     * 入队
+     *
+     * @param element
+     * @return 队列已满时返回false
+     */
+    public boolean offer(E element) {
+        elementNotNullCheck(element);
+
+        long pos = tail;
+        int index;
+        while (true) {
+            index = (int) pos & mask;
+            long dif = sequences.get(index) - pos;
+            if (dif == 0) {
+                // 槽位空闲，抢占位置pos
+                if (TAIL.compareAndSet(this, pos, pos + 1)) break;
+                pos = tail;
+            } else if (dif < 0) {
+                // 槽位还没有被上一圈的消费者取走，队列已满
+                return false;
+            } else {
+                // 位置pos已经被其他生产者抢走
+                pos = tail;
+            }
+        }
+
+        elements[index] = element;
+        sequences.lazySet(index, pos + 1);
+        return true;
+    }
+
+    /**
+     * 出队
+     *
+     * @return 队列为空时返回null
+     */
+    public E poll() {
+        long pos = head;
+        int index;
+        while (true) {
+            index = (int) pos & mask;
+            long dif = sequences.get(index) - (pos + 1);
+            if (dif == 0) {
+                // 槽位已写入，抢占位置pos
+                if (HEAD.compareAndSet(this, pos, pos + 1)) break;
+                pos = head;
+            } else if (dif < 0) {
+                // 槽位还没有被写入，队列为空
+                return null;
+            } else {
+                // 位置pos已经被其他消费者抢走
+                pos = head;
+            }
+        }
+
+        E frontElement = elements[index];
+        elements[index] = null;
+        sequences.lazySet(index, pos + mask + 1);
+        return frontElement;
+    }
+
+    private void elementNotNullCheck(E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("element must not be null");
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        string.append("capacity=").append(elements.length)
+                .append(" size=").append(size())
+                .append(" head=").append(head)
+                .append(" tail=").append(tail);
+        return string.toString();
+    }
+}
@@ -0,0 +1,207 @@
+package org.msdemt.demo.concurrent;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分片（多车道）队列，适合大量生产者线程同时入队
+ * <p>
+ * 所有生产者竞争同一个tail时，即使是无锁队列，tail所在的缓存行也会成为瓶颈。
+ * 这里把队列分成多个车道（lane），每个车道是一个有界的MpmcRingQueue：
+ * 1. 生产者线程第一次入队时按顺序分配一个车道，之后一直使用这个车道；
+ * 线程数不超过车道数时每个生产者独占一个车道，tail上没有竞争
+ * 2. 消费者从上次停下的车道开始轮询，每个车道最多连续取batchSize个元素，再换到下一个车道
+ * <p>
+ * 宽松的FIFO保证：
+ * 1. 同一个生产者线程入队的元素按入队顺序出队（对每个消费者而言）
+ * 2. 不同生产者的元素之间没有顺序保证，先入队的元素可能因为车道不同而后出队
+ * 3. 一个车道满了不会借用其他车道（否则会破坏第1条），offer返回false
+ *
+ * @param <E>
+ */
+public class ShardedQueue<E> {
+    private static final int DEFAULT_LANE_CAPACITY = 1 << 10;
+    private static final int DEFAULT_BATCH_SIZE = 64;
+    // 更多的车道向上取整为2的幂时会溢出
+    private static final int MAXIMUM_LANES = 1 << 30;
+
+    private final MpmcRingQueue<E>[] lanes;
+    private final int mask;
+    private final int batchSize;
+
+    // 下一个生产者线程分配到的车道
+    private final AtomicInteger nextLane = new AtomicInteger();
+    private final ThreadLocal<MpmcRingQueue<E>> producerLane = new ThreadLocal<MpmcRingQueue<E>>() {
+        @Override
+        protected MpmcRingQueue<E> initialValue() {
+            return lanes[nextLane.getAndIncrement() & mask];
+        }
+    };
+
+    // 消费者开始轮询的车道，只是一个提示，多个消费者并发修改不影响正确性
+    private int consumerCursor;
+    // poll在consumerCursor车道上已经连续取出的元素数量，同样只是一个提示
+    private int consumerTaken;
+
+    public ShardedQueue() {
+        this(Runtime.getRuntime().availableProcessors() * 2, DEFAULT_LANE_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param lanes        车道数量，会向上取整为2的幂，一般取生产者线程数，不能超过2^30
+     * @param laneCapacity 每个车道的容量
+     * @param batchSize    消费者在一个车道上最多连续取出的元素数量
+     */
+    public ShardedQueue(int lanes, int laneCapacity, int batchSize) {
+        if (lanes <= 0 || laneCapacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("lanes, laneCapacity and batchSize must be positive");
+        }
+        if (lanes > MAXIMUM_LANES) {
+            throw new IllegalArgumentException("lanes must not exceed " + MAXIMUM_LANES);
+        }
+        int laneCount = lanes == 1 ? 1 : Integer.highestOneBit(lanes - 1) << 1;
+        @SuppressWarnings("unchecked")
+        MpmcRingQueue<E>[] laneArray = (MpmcRingQueue<E>[]) new MpmcRingQueue<?>[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            laneArray[i] = new MpmcRingQueue<>(laneCapacity);
+        }
+        this.lanes = laneArray;
+        mask = laneCount - 1;
+        this.batchSize = batchSize;
+    }
+
+    public int lanes() {
+        return lanes.length;
+    }
+
+    /**
+     * 并发修改时只是一个近似值
+     *
+     * @return
+     */
+    public int size() {
+        long size = 0;
+        for (MpmcRingQueue<E> lane : lanes) {
+            size += lane.size();
+        }
+        return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
+    }
+
+    public boolean isEmpty() {
+        for (MpmcRingQueue<E> lane : lanes) {
+            if (!lane.isEmpty()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 入队，当前线程的车道已满时抛出异常
+     *
+     * @param element
+     */
+    public void enQueue(E element) {
+        if (!offer(element)) {
+            throw new IllegalStateException("lane is full");
+        }
+    }
+
+    /**
+     * 入队到当前线程的车道
+     *
+     * @param element
+     * @return 车道已满时返回false
+     */
+    public boolean offer(E element) {
+        return producerLane.get().offer(element);
+    }
+
+    /**
+     * 出队
+     *
+     * @return 所有车道都为空时返回null
+     */
+    public E deQueue() {
+        return poll();
+    }
+
+    /**
+     * 从游标所在的车道开始，取出第一个不为空的车道的队头元素
+     * <p>
+     * 和drainTo一样，在一个车道上连续取够batchSize个元素或者车道取空之后，游标移到下一个车道，
+     * 繁忙的车道不会让其他车道饿死
+     *
+     * @return 所有车道都为空时返回null
+     */
+    public E poll() {
+        int start = consumerCursor;
+        for (int i = 0; i <= mask; i++) {
+            int lane = (start + i) & mask;
+            MpmcRingQueue<E> queue = lanes[lane];
+            E element = queue.poll();
+            if (element != null) {
+                // 从游标所在的车道取出时接着计数，换了车道重新计数
+                int taken = i == 0 ? consumerTaken + 1 : 1;
+                if (taken >= batchSize || queue.isEmpty()) {
+                    consumerCursor = (lane + 1) & mask;
+                    consumerTaken = 0;
+                } else {
+                    consumerCursor = lane;
+                    consumerTaken = taken;
+                }
+                return element;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 轮询各个车道，每个车道最多连续取batchSize个元素，总共最多取max个，放入batch
+     *
+     * @param batch
+     * @param max
+     * @return 取出的元素数量
+     */
+    public int drainTo(Collection<? super E> batch, int max) {
+        if (batch == null) {
+            throw new NullPointerException("batch must not be null");
+        }
+        int count = 0;
+        int start = consumerCursor;
+        // 连续经过一整圈空车道才结束
+        int emptyLanes = 0;
+        int lane = start;
+        while (count < max && emptyLanes <= mask) {
+            MpmcRingQueue<E> queue = lanes[lane & mask];
+            int taken = 0;
+            int limit = Math.min(batchSize, max - count);
+            E element;
+            while (taken < limit && (element = queue.poll()) != null) {
+                batch.add(element);
+                taken++;
+            }
+            count += taken;
+            emptyLanes = taken == 0 ? emptyLanes + 1 : 0;
+            lane++;
+        }
+        // 下次从下一个车道开始，保证各个车道轮流被消费
+        consumerCursor = lane & mask;
+        consumerTaken = 0;
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        string.append("lanes=").append(lanes.length)
+                .append(" size=").append(size())
+                .append(", [");
+        for (int i = 0; i < lanes.length; i++) {
+            if (i != 0) {
+                string.append(", ");
+            }
+            string.append(lanes[i].size());
+        }
+        string.append("]");
+        return string.toString();
+    }
+}
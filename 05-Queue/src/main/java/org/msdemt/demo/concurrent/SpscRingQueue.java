@@ -0,0 +1,183 @@
+package org.msdemt.demo.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * 单生产者单消费者（SPSC）无锁环形队列
+ * <p>
+ * 沿用CircleQueue的环形数组布局，区别在于：
+ * 1. 容量固定为2的幂，用 index & mask 代替取模
+ * 2. head（消费者位置）和tail（生产者位置）都是单调递增的long，只由各自的线程修改，
+ * 用lazySet（有序写）发布，避免volatile写的StoreLoad屏障
+ * 3. 生产者缓存一份head，消费者缓存一份tail，只有缓存值显示队列满/空时才去读对方的位置，
+ * 减少缓存行在两个核心之间来回传递
+ * 4. 生产者的字段和消费者的字段用填充字段隔开，分别位于不同的缓存行
+ * <p>
+ * 只允许一个线程调用enQueue/offer，一个线程调用deQueue/poll/front/clear
+ *
+ * @param <E>
+ */
+@SuppressWarnings("unused")
+public class SpscRingQueue<E> {
+    private static final int DEFAULT_CAPACITY = 1 << 10;
+    // 更大的容量向上取整为2的幂时会溢出
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    @SuppressWarnings("unchecked")
+    private static final AtomicLongFieldUpdater<SpscRingQueue<?>> TAIL =
+            AtomicLongFieldUpdater.newUpdater((Class<SpscRingQueue<?>>) (Class<?>) SpscRingQueue.class, "tail");
+    @SuppressWarnings("unchecked")
+    private static final AtomicLongFieldUpdater<SpscRingQueue<?>> HEAD =
+            AtomicLongFieldUpdater.newUpdater((Class<SpscRingQueue<?>>) (Class<?>) SpscRingQueue.class, "head");
+
+    private final E[] elements;
+    private final int mask;
+
+    // 填充，隔开对象头和只读字段
+    private long p00, p01, p02, p03, p04, p05, p06, p07;
+
+    // 生产者的字段
+    private volatile long tail;
+    private long headCache;
+
+    private long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    // 消费者的字段
+    private volatile long head;
+    private long tailCache;
+
+    private long p20, p21, p22, p23, p24, p25, p26, p27;
+
+    public SpscRingQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity 会向上取整为2的幂，不能超过2^30
+     */
+    public SpscRingQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (capacity > MAXIMUM_CAPACITY) {
+            throw new IllegalArgumentException("capacity must not exceed " + MAXIMUM_CAPACITY);
+        }
+        int actualCapacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        @SuppressWarnings("unchecked")
+        E[] elements = (E[]) new Object[actualCapacity];
+        this.elements = elements;
+        mask = actualCapacity - 1;
+    }
+
+    public int capacity() {
+        return elements.length;
+    }
+
+    public int size() {
+        // 先读head再读tail，保证结果不为负数
+        long currentHead = head;
+        long currentTail = tail;
+        long size = currentTail - currentHead;
+        if (size < 0) return 0;
+        return size > elements.length ? elements.length : (int) size;
+    }
+
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    /**
+     * 清空队列，只能由消费者线程调用
+     */
+    public void clear() {
+        while (poll() != null) ;
+    }
+
+    /**
+     * 入队，队列已满时抛出异常
+     *
+     * @param element
+     */
+    public void enQueue(E element) {
+        if (!offer(element)) {
+            throw new IllegalStateException("queue is full");
+        }
+    }
+
+    /**
+     * 出队
+     *
+     * @return 队列为空时返回null
+     */
+    public E deQueue() {
+        return poll();
+    }
+
+    public E front() {
+        long currentHead = head;
+        if (currentHead >= tailCache) {
+            tailCache = tail;
+            if (currentHead >= tailCache) return null;
+        }
+        return elements[(int) currentHead & mask];
+    }
+
+    /**
+     * 入队
+     *
+     * @param element
+     * @return 队列已满时返回false
+     */
+    public boolean offer(E element) {
+        elementNotNullCheck(element);
+
+        long currentTail = tail;
+        if (currentTail - headCache >= elements.length) {
+            // 按缓存的head计算队列已满，重新读取真正的head
+            headCache = head;
+            if (currentTail - headCache >= elements.length) return false;
+        }
+
+        elements[(int) currentTail & mask] = element;
+        // 有序写：保证元素先于tail对消费者可见
+        TAIL.lazySet(this, currentTail + 1);
+        return true;
+    }
+
+    /**
+     * 出队
+     *
+     * @return 队列为空时返回null
+     */
+    public E poll() {
+        long currentHead = head;
+        if (currentHead >= tailCache) {
+            // 按缓存的tail计算队列为空，重新读取真正的tail
+            tailCache = tail;
+            if (currentHead >= tailCache) return null;
+        }
+
+        int index = (int) currentHead & mask;
+        E frontElement = elements[index];
+        elements[index] = null;
+        // 有序写：保证槽位清空先于head对生产者可见
+        HEAD.lazySet(this, currentHead + 1);
+        return frontElement;
+    }
+
+    private void elementNotNullCheck(E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("element must not be null");
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        string.append("capacity=").append(elements.length)
+                .append(" size=").append(size())
+                .append(" head=").append(head)
+                .append(" tail=").append(tail);
+        return string.toString();
+    }
+}
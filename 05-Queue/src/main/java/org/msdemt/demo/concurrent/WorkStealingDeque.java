@@ -0,0 +1,169 @@
+package org.msdemt.demo.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Chase-Lev工作窃取双端队列
+ * <p>
+ * 形状与CircleDeque相同，但只允许一个所有者线程操作尾部，其他线程只能窃取头部：
+ * 1. push：所有者从尾部入队（相当于enQueueRear）
+ * 2. pop：所有者从尾部出队（相当于deQueueRear），后进先出，局部性好
+ * 3. steal：其他线程从头部出队（相当于deQueueFront），通过CAS top竞争
+ * 只有在队列剩最后一个元素时，所有者的pop才需要和窃取者CAS竞争
+ * <p>
+ * 数组容量不够时由所有者扩容为2倍，窃取者读到旧数组也能拿到正确的元素
+ *
+ * @param <E>
+ */
+@SuppressWarnings("unused")
+public class WorkStealingDeque<E> {
+    private static final int DEFAULT_CAPACITY = 1 << 6;
+    // 更大的容量向上取整为2的幂时会溢出
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    @SuppressWarnings("unchecked")
+    private static final AtomicLongFieldUpdater<WorkStealingDeque<?>> TOP =
+            AtomicLongFieldUpdater.newUpdater((Class<WorkStealingDeque<?>>) (Class<?>) WorkStealingDeque.class, "top");
+
+    private long p00, p01, p02, p03, p04, p05, p06, p07;
+
+    // 窃取者竞争的位置
+    private volatile long top;
+
+    private long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    // 只由所有者修改的位置
+    private volatile long bottom;
+    private volatile AtomicReferenceArray<E> elements;
+
+    private long p20, p21, p22, p23, p24, p25, p26, p27;
+
+    public WorkStealingDeque() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity 初始容量，会向上取整为2的幂，不能超过2^30
+     */
+    public WorkStealingDeque(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (capacity > MAXIMUM_CAPACITY) {
+            throw new IllegalArgumentException("capacity must not exceed " + MAXIMUM_CAPACITY);
+        }
+        int actualCapacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        elements = new AtomicReferenceArray<>(actualCapacity);
+    }
+
+    /**
+     * 并发修改时只是一个近似值
+     *
+     * @return
+     */
+    public int size() {
+        long size = bottom - top;
+        return size < 0 ? 0 : (int) size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * 所有者从尾部入队
+     *
+     * @param element
+     */
+    public void push(E element) {
+        elementNotNullCheck(element);
+
+        long b = bottom;
+        long t = top;
+        AtomicReferenceArray<E> array = elements;
+        if (b - t >= array.length()) {
+            array = grow(array, t, b);
+        }
+        array.lazySet((int) b & (array.length() - 1), element);
+        // volatile写：保证元素先于bottom对窃取者可见
+        bottom = b + 1;
+    }
+
+    /**
+     * 所有者从尾部出队
+     *
+     * @return 队列为空或者最后一个元素被窃取时返回null
+     */
+    public E pop() {
+        long b = bottom - 1;
+        AtomicReferenceArray<E> array = elements;
+        // 先占住b，再读top（volatile写、读之间不会重排序）
+        bottom = b;
+        long t = top;
+        if (t > b) {
+            // 队列为空
+            bottom = b + 1;
+            return null;
+        }
+
+        int index = (int) b & (array.length() - 1);
+        E element = array.get(index);
+        if (t == b) {
+            // 最后一个元素，和窃取者竞争
+            if (!TOP.compareAndSet(this, t, t + 1)) {
+                element = null;
+            }
+            bottom = b + 1;
+        } else {
+            // 窃取者不可能访问到b，直接清空槽位
+            array.lazySet(index, null);
+        }
+        return element;
+    }
+
+    /**
+     * 其他线程从头部窃取
+     *
+     * @return 队列为空或者竞争失败时返回null
+     */
+    public E steal() {
+        long t = top;
+        long b = bottom;
+        if (t >= b) return null;
+
+        AtomicReferenceArray<E> array = elements;
+        int index = (int) t & (array.length() - 1);
+        E element = array.get(index);
+        if (element == null || !TOP.compareAndSet(this, t, t + 1)) return null;
+
+        // 槽位可能已经被所有者写入了新一圈的元素，只有仍然是element时才清空
+        array.compareAndSet(index, element, null);
+        return element;
+    }
+
+    /**
+     * 扩容为2倍，只由所有者调用
+     */
+    private AtomicReferenceArray<E> grow(AtomicReferenceArray<E> array, long t, long b) {
+        int oldMask = array.length() - 1;
+        AtomicReferenceArray<E> newArray = new AtomicReferenceArray<>(array.length() << 1);
+        int newMask = newArray.length() - 1;
+        for (long i = t; i < b; i++) {
+            newArray.lazySet((int) i & newMask, array.get((int) i & oldMask));
+        }
+        elements = newArray;
+        return newArray;
+    }
+
+    private void elementNotNullCheck(E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("element must not be null");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "capacity=" + elements.length() + " size=" + size() + " top=" + top + " bottom=" + bottom;
+    }
+}
@@ -0,0 +1,286 @@
+package org.msdemt.demo.concurrent;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 基于WorkStealingDeque的简单工作窃取调度器
+ * <p>
+ * 每个工作线程拥有一个WorkStealingDeque：
+ * 1. Task.fork把子任务push到当前工作线程的队列尾部
+ * 2. 工作线程优先pop自己队列尾部的任务，自己没有任务时随机从其他工作线程的队列头部steal
+ * 3. Task.join在等待期间不阻塞，而是继续执行自己的或者窃取来的任务
+ * 外部线程通过invoke提交根任务
+ * <p>
+ * compute抛出的异常不会终止工作线程：异常保存在任务中，任务同样标记为完成，
+ * 等待它的join、invoke抛出包装了这个异常的CompletionException
+ * <p>
+ * shutdown之后，正在执行的任务继续执行完；还没有开始执行的任务（提交队列、工作线程队列中的）被取消，
+ * 等待它们的invoke、join抛出CancellationException
+ */
+public class WorkStealingScheduler {
+    private final Worker[] workers;
+    private final ConcurrentLinkedQueue<Task<?>> submissions = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    public WorkStealingScheduler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public WorkStealingScheduler(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        workers = new Worker[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = new Worker(this, i);
+        }
+        for (Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    public int parallelism() {
+        return workers.length;
+    }
+
+    /**
+     * 提交根任务并等待结果
+     *
+     * @param task
+     * @param <V>
+     * @return
+     * @throws CompletionException   任务（或者它join的子任务）的compute抛出了异常
+     * @throws CancellationException 任务（或者它join的子任务）在执行之前被shutdown取消
+     */
+    public <V> V invoke(Task<V> task) {
+        if (!running) {
+            throw new IllegalStateException("scheduler is shut down");
+        }
+        if (Thread.currentThread() instanceof Worker) {
+            return task.invoke();
+        }
+
+        // 先登记等待的线程再提交，任务完成时一定能看到
+        task.waiter = Thread.currentThread();
+        submissions.offer(task);
+        if (!running) {
+            // shutdown可能发生在检查running之后、offer之前，这时没有线程会再处理提交队列
+            cancelPending();
+        }
+        while (!task.isDone()) {
+            LockSupport.park(this);
+        }
+        return task.report();
+    }
+
+    /**
+     * 停止所有工作线程：正在执行的任务继续执行完，还没有开始执行的任务被取消
+     */
+    public void shutdown() {
+        running = false;
+        cancelPending();
+    }
+
+    /**
+     * 取消提交队列和所有工作线程队列中的任务
+     * <p>
+     * 和其他窃取者竞争失败、或者工作线程之后才fork的任务，由拿到它的线程执行，或者由工作线程退出时取消，见Worker.run
+     */
+    private void cancelPending() {
+        for (Task<?> task; (task = submissions.poll()) != null; ) {
+            task.cancel();
+        }
+        for (Worker worker : workers) {
+            for (Task<?> task; (task = worker.deque.steal()) != null; ) {
+                task.cancel();
+            }
+        }
+    }
+
+    /**
+     * 从其他工作线程、提交队列中找一个任务
+     */
+    private Task<?> steal(Worker thief) {
+        int n = workers.length;
+        int start = ThreadLocalRandom.current().nextInt(n);
+        for (int i = 0; i < n; i++) {
+            Worker victim = workers[(start + i) % n];
+            if (victim == thief) continue;
+            Task<?> task = victim.deque.steal();
+            if (task != null) return task;
+        }
+        return submissions.poll();
+    }
+
+    /**
+     * 可以fork/join的任务
+     *
+     * @param <V>
+     */
+    public static abstract class Task<V> {
+        private static final int NEW = 0;
+        private static final int RUNNING = 1;
+        private static final int DONE = 2;
+
+        @SuppressWarnings("unchecked")
+        private static final AtomicIntegerFieldUpdater<Task<?>> STATE =
+                AtomicIntegerFieldUpdater.newUpdater((Class<Task<?>>) (Class<?>) Task.class, "state");
+
+        // 只有把NEW改成RUNNING的线程才能执行（或者取消）任务，被窃取的任务也不会执行两次
+        private volatile int state;
+        private V result;
+        // compute抛出的异常，或者取消时的CancellationException，在state变成DONE之前写入
+        private Throwable exception;
+        // 通过WorkStealingScheduler.invoke等待任务的外部线程，任务完成时唤醒
+        private volatile Thread waiter;
+
+        /**
+         * 任务的计算逻辑
+         *
+         * @return
+         */
+        protected abstract V compute();
+
+        public boolean isDone() {
+            return state == DONE;
+        }
+
+        /**
+         * 把任务放入当前工作线程的队列，等待自己或者其他工作线程执行
+         *
+         * @return
+         */
+        public final Task<V> fork() {
+            Thread thread = Thread.currentThread();
+            if (!(thread instanceof Worker)) {
+                throw new IllegalStateException("fork must be called from a worker thread");
+            }
+            ((Worker) thread).deque.push(this);
+            return this;
+        }
+
+        /**
+         * 等待任务完成，等待期间执行其他任务
+         *
+         * @return
+         * @throws CompletionException   compute抛出了异常
+         * @throws CancellationException 任务在执行之前被shutdown取消
+         */
+        public final V join() {
+            Thread thread = Thread.currentThread();
+            if (!(thread instanceof Worker)) {
+                throw new IllegalStateException("join must be called from a worker thread");
+            }
+            Worker worker = (Worker) thread;
+            while (!isDone()) {
+                Task<?> task = worker.deque.pop();
+                if (task == null) {
+                    task = worker.scheduler.steal(worker);
+                }
+                if (task != null) {
+                    task.run();
+                } else {
+                    Thread.yield();
+                }
+            }
+            return report();
+        }
+
+        /**
+         * 在当前线程直接执行
+         *
+         * @return
+         * @throws CompletionException   compute抛出了异常
+         * @throws CancellationException 任务在执行之前被shutdown取消
+         */
+        public final V invoke() {
+            run();
+            // 任务已经被其他线程拿去执行了，像join一样等待
+            return isDone() ? report() : join();
+        }
+
+        void run() {
+            if (!STATE.compareAndSet(this, NEW, RUNNING)) return;
+            try {
+                result = compute();
+            } catch (Throwable e) {
+                exception = e;
+            } finally {
+                complete();
+            }
+        }
+
+        /**
+         * 还没有开始执行时取消任务
+         */
+        void cancel() {
+            if (!STATE.compareAndSet(this, NEW, RUNNING)) return;
+            exception = new CancellationException("scheduler is shut down");
+            complete();
+        }
+
+        private void complete() {
+            state = DONE;
+            Thread thread = waiter;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private V report() {
+            if (exception instanceof CancellationException) {
+                throw (CancellationException) exception;
+            }
+            if (exception instanceof CompletionException) {
+                // join的子任务抛出的异常，已经包装过
+                throw (CompletionException) exception;
+            }
+            if (exception != null) {
+                throw new CompletionException(exception);
+            }
+            return result;
+        }
+    }
+
+    private static class Worker extends Thread {
+        private static final int SPIN_TRIES = 64;
+
+        final WorkStealingScheduler scheduler;
+        final WorkStealingDeque<Task<?>> deque = new WorkStealingDeque<>();
+
+        Worker(WorkStealingScheduler scheduler, int index) {
+            super("work-stealing-worker-" + index);
+            this.scheduler = scheduler;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            while (scheduler.running) {
+                Task<?> task = deque.pop();
+                if (task == null) {
+                    task = scheduler.steal(this);
+                }
+                if (task != null) {
+                    idle = 0;
+                    task.run();
+                } else if (idle < SPIN_TRIES) {
+                    idle++;
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(50_000L);
+                }
+            }
+            // 停止之后不会再有线程执行自己队列中剩下的任务
+            for (Task<?> task; (task = deque.pop()) != null; ) {
+                task.cancel();
+            }
+        }
+    }
+}
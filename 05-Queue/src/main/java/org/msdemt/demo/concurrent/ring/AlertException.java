@@ -0,0 +1,18 @@
+package org.msdemt.demo.concurrent.ring;
+
+/**
+ * 等待序号时被唤醒（通常是消费者被停止），不收集堆栈，可重复使用同一个实例
+ */
+public class AlertException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    static final AlertException INSTANCE = new AlertException();
+
+    private AlertException() {
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
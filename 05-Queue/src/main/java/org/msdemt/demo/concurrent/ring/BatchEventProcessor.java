@@ -0,0 +1,106 @@
+package org.msdemt.demo.concurrent.ring;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量事件处理器：在一个线程中循环等待屏障，拿到可用序号后一次性处理这一批事件，
+ * 处理完再更新自己的序号，供下一级消费者和生产者读取
+ * <p>
+ * handler抛出的异常交给ExceptionHandler处理，跳过出错的事件继续运行；没有设置ExceptionHandler时异常从run抛出，
+ * 序号停在出错的事件之前。不论run怎样结束，处理器都回到空闲状态，可以再次run（从序号的下一个事件开始）
+ *
+ * @param <T>
+ */
+public class BatchEventProcessor<T> implements Runnable {
+    private static final int IDLE = 0;
+    private static final int HALTED = 1;
+    private static final int RUNNING = 2;
+
+    private final RingBuffer<T> ringBuffer;
+    private final SequenceBarrier barrier;
+    private final EventHandler<T> handler;
+    private final Sequence sequence = new Sequence();
+    private final AtomicInteger state = new AtomicInteger(IDLE);
+    private volatile ExceptionHandler<? super T> exceptionHandler;
+
+    public BatchEventProcessor(RingBuffer<T> ringBuffer, SequenceBarrier barrier, EventHandler<T> handler) {
+        this.ringBuffer = ringBuffer;
+        this.barrier = barrier;
+        this.handler = handler;
+    }
+
+    /**
+     * @return 已处理完的最大序号
+     */
+    public Sequence sequence() {
+        return sequence;
+    }
+
+    /**
+     * @param exceptionHandler 为null时handler的异常从run抛出
+     */
+    public void setExceptionHandler(ExceptionHandler<? super T> exceptionHandler) {
+        this.exceptionHandler = exceptionHandler;
+    }
+
+    /**
+     * 停止处理，run方法会在当前批次处理完后返回；在run开始之前调用时，下一次run直接返回
+     */
+    public void halt() {
+        state.set(HALTED);
+        barrier.alert();
+    }
+
+    public boolean isRunning() {
+        return state.get() == RUNNING;
+    }
+
+    @Override
+    public void run() {
+        if (!state.compareAndSet(IDLE, RUNNING)) {
+            if (state.compareAndSet(HALTED, IDLE)) {
+                // run之前已经halt，不处理任何事件
+                return;
+            }
+            throw new IllegalStateException("processor is already running");
+        }
+        barrier.clearAlert();
+
+        try {
+            long next = sequence.get() + 1;
+            // halt可能发生在clearAlert之前，这时alert被清除了，只能靠检查state退出
+            while (state.get() == RUNNING) {
+                // 为true时onBatchStart已经返回，之后的异常来自onEvent
+                boolean inBatch = false;
+                try {
+                    long available = barrier.waitFor(next);
+                    if (available >= next) {
+                        handler.onBatchStart(available - next + 1);
+                    }
+                    inBatch = true;
+                    while (next <= available) {
+                        handler.onEvent(ringBuffer.get(next), next, next == available);
+                        next++;
+                    }
+                    sequence.set(available);
+                } catch (AlertException e) {
+                    // 由循环条件判断是否已经halt
+                } catch (Throwable e) {
+                    // 出错之前的事件已经处理完
+                    sequence.set(next - 1);
+                    ExceptionHandler<? super T> exceptionHandler = this.exceptionHandler;
+                    if (exceptionHandler == null) throw e;
+
+                    exceptionHandler.handleEventException(e, next, inBatch ? ringBuffer.get(next) : null);
+                    if (inBatch) {
+                        // 跳过出错的事件；onBatchStart出错时还没有处理任何事件，不跳过
+                        sequence.set(next);
+                        next++;
+                    }
+                }
+            }
+        } finally {
+            state.set(IDLE);
+        }
+    }
+}
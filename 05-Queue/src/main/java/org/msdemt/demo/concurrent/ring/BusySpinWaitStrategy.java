@@ -0,0 +1,15 @@
+package org.msdemt.demo.concurrent.ring;
+
+/**
+ * 忙等：延迟最低，每个消费者独占一个CPU核心
+ */
+public class BusySpinWaitStrategy implements WaitStrategy {
+    @Override
+    public long waitFor(long sequence, SequenceBarrier barrier) throws AlertException {
+        long available;
+        while ((available = barrier.availableSequence()) < sequence) {
+            barrier.checkAlert();
+        }
+        return available;
+    }
+}
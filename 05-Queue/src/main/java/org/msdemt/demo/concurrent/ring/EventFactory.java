@@ -0,0 +1,10 @@
+package org.msdemt.demo.concurrent.ring;
+
+/**
+ * 创建RingBuffer中预先分配的事件对象
+ *
+ * @param <T>
+ */
+public interface EventFactory<T> {
+    T newInstance();
+}
@@ -0,0 +1,25 @@
+package org.msdemt.demo.concurrent.ring;
+
+/**
+ * 事件处理器，由BatchEventProcessor在消费者线程中回调
+ *
+ * @param <T>
+ */
+public interface EventHandler<T> {
+    /**
+     * 处理一个事件，事件对象会被RingBuffer重复使用，不要在回调之外持有它
+     *
+     * @param event
+     * @param sequence   事件的序号
+     * @param endOfBatch 是否为本批次的最后一个事件，可以在这里批量刷盘、提交等
+     */
+    void onEvent(T event, long sequence, boolean endOfBatch);
+
+    /**
+     * 一批事件开始处理之前的回调
+     *
+     * @param batchSize 本批次事件数量
+     */
+    default void onBatchStart(long batchSize) {
+    }
+}
@@ -0,0 +1,18 @@
+package org.msdemt.demo.concurrent.ring;
+
+/**
+ * 处理EventHandler抛出的异常，由BatchEventProcessor在消费者线程中回调
+ *
+ * @param <T>
+ */
+public interface ExceptionHandler<T> {
+    /**
+     * 返回之后BatchEventProcessor跳过出错的事件，继续处理后面的事件；
+     * 这里再抛出异常会让run方法结束
+     *
+     * @param e
+     * @param sequence 出错的事件的序号
+     * @param event    出错的事件，onBatchStart出错时为null
+     */
+    void handleEventException(Throwable e, long sequence, T event);
+}
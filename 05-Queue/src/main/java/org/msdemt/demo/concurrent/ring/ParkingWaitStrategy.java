@@ -0,0 +1,40 @@
+package org.msdemt.demo.concurrent.ring;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 先自旋、再让出CPU，最后每次检查前park一段时间，适合消费者线程多于CPU核心的场景
+ */
+public class ParkingWaitStrategy implements WaitStrategy {
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long DEFAULT_PARK_NANOS = 1000L;
+
+    private final long parkNanos;
+
+    public ParkingWaitStrategy() {
+        this(DEFAULT_PARK_NANOS);
+    }
+
+    public ParkingWaitStrategy(long parkNanos) {
+        this.parkNanos = parkNanos;
+    }
+
+    @Override
+    public long waitFor(long sequence, SequenceBarrier barrier) throws AlertException {
+        long available;
+        int counter = SPIN_TRIES + YIELD_TRIES;
+        while ((available = barrier.availableSequence()) < sequence) {
+            barrier.checkAlert();
+            if (counter > YIELD_TRIES) {
+                counter--;
+            } else if (counter > 0) {
+                counter--;
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(parkNanos);
+            }
+        }
+        return available;
+    }
+}
@@ -0,0 +1,139 @@
+package org.msdemt.demo.concurrent.ring;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 事件环：沿用CircleQueue的环形数组思路，但槽位中的事件对象在创建时一次性分配，之后一直重复使用
+ * <p>
+ * 生产者（单线程）：
+ * <pre>
+ * long sequence = ringBuffer.next();
+ * ringBuffer.get(sequence).value = ...;
+ * ringBuffer.publish(sequence);
+ * </pre>
+ * 消费者：通过newBarrier创建屏障，交给BatchEventProcessor；最后一级消费者的序号需要addGatingSequences，
+ * 防止生产者覆盖还没有处理完的事件
+ *
+ * @param <T>
+ */
+@SuppressWarnings("unchecked")
+public class RingBuffer<T> {
+    private final Object[] entries;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+
+    // 已发布的最大序号
+    private final Sequence cursor = new Sequence();
+    // 生产者不能超过的消费者序号
+    private volatile Sequence[] gatingSequences = new Sequence[0];
+
+    // 只由生产者线程访问
+    private long nextValue = Sequence.INITIAL_VALUE;
+    private long cachedGatingSequence = Sequence.INITIAL_VALUE;
+
+    /**
+     * @param factory      事件工厂，用于预先填满所有槽位
+     * @param bufferSize   必须是2的幂
+     * @param waitStrategy 消费者的等待策略
+     */
+    public RingBuffer(EventFactory<T> factory, int bufferSize, WaitStrategy waitStrategy) {
+        if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize must be a power of 2");
+        }
+        entries = new Object[bufferSize];
+        for (int i = 0; i < bufferSize; i++) {
+            entries[i] = factory.newInstance();
+        }
+        mask = bufferSize - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    public int bufferSize() {
+        return entries.length;
+    }
+
+    /**
+     * @return 已发布的最大序号
+     */
+    public long cursor() {
+        return cursor.get();
+    }
+
+    public T get(long sequence) {
+        return (T) entries[(int) sequence & mask];
+    }
+
+    /**
+     * 申请下一个序号，槽位还没有被最慢的消费者处理完时等待
+     *
+     * @return
+     */
+    public long next() {
+        return next(1);
+    }
+
+    /**
+     * 批量申请n个序号
+     *
+     * @param n
+     * @return 申请到的最大序号，申请到的范围是 [返回值 - n + 1, 返回值]
+     */
+    public long next(int n) {
+        if (n < 1 || n > entries.length) {
+            throw new IllegalArgumentException("n must be in [1, bufferSize]");
+        }
+
+        long next = nextValue + n;
+        // 申请的序号绕了一圈之后对应的位置
+        long wrapPoint = next - entries.length;
+        if (wrapPoint > cachedGatingSequence) {
+            long minimum;
+            while (wrapPoint > (minimum = Sequence.minimum(gatingSequences, nextValue))) {
+                LockSupport.parkNanos(1L);
+            }
+            cachedGatingSequence = minimum;
+        }
+        nextValue = next;
+        return next;
+    }
+
+    /**
+     * 发布序号，此序号及之前的事件对消费者可见
+     *
+     * @param sequence
+     */
+    public void publish(long sequence) {
+        cursor.set(sequence);
+    }
+
+    /**
+     * 创建一个序号屏障
+     *
+     * @param dependents 前置消费者的序号，为空代表直接跟随生产者
+     * @return
+     */
+    public SequenceBarrier newBarrier(Sequence... dependents) {
+        return new SequenceBarrier(cursor, dependents.clone(), waitStrategy);
+    }
+
+    /**
+     * 添加生产者需要等待的消费者序号，一般是每条处理链的最后一级
+     *
+     * @param sequences
+     */
+    public synchronized void addGatingSequences(Sequence... sequences) {
+        Sequence[] current = gatingSequences;
+        Sequence[] updated = Arrays.copyOf(current, current.length + sequences.length);
+        System.arraycopy(sequences, 0, updated, current.length, sequences.length);
+        for (Sequence sequence : sequences) {
+            sequence.setVolatile(cursor.get());
+        }
+        gatingSequences = updated;
+    }
+
+    @Override
+    public String toString() {
+        return "bufferSize=" + entries.length + " cursor=" + cursor + " gating=" + Arrays.toString(gatingSequences);
+    }
+}
@@ -0,0 +1,71 @@
+package org.msdemt.demo.concurrent.ring;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * 序号，前后各填充7个long，独占一个缓存行
+ * <p>
+ * 生产者的游标、每个消费者已处理到的位置都是一个Sequence
+ */
+@SuppressWarnings("unused")
+public class Sequence {
+    static final long INITIAL_VALUE = -1L;
+
+    private static final AtomicLongFieldUpdater<Sequence> VALUE =
+            AtomicLongFieldUpdater.newUpdater(Sequence.class, "value");
+
+    private long p1, p2, p3, p4, p5, p6, p7;
+    private volatile long value;
+    private long p9, p10, p11, p12, p13, p14, p15;
+
+    public Sequence() {
+        this(INITIAL_VALUE);
+    }
+
+    public Sequence(long initialValue) {
+        VALUE.lazySet(this, initialValue);
+    }
+
+    public long get() {
+        return value;
+    }
+
+    /**
+     * 有序写，只保证之前的写先于value可见
+     *
+     * @param value
+     */
+    public void set(long value) {
+        VALUE.lazySet(this, value);
+    }
+
+    public void setVolatile(long value) {
+        this.value = value;
+    }
+
+    public boolean compareAndSet(long expect, long update) {
+        return VALUE.compareAndSet(this, expect, update);
+    }
+
+    /**
+     * 获取一组序号中的最小值
+     *
+     * @param sequences
+     * @param minimum   sequences为空时返回的值
+     * @return
+     */
+    static long minimum(Sequence[] sequences, long minimum) {
+        for (Sequence sequence : sequences) {
+            long value = sequence.get();
+            if (value < minimum) {
+                minimum = value;
+            }
+        }
+        return minimum;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(value);
+    }
+}
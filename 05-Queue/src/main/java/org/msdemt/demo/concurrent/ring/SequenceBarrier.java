@@ -0,0 +1,58 @@
+package org.msdemt.demo.concurrent.ring;
+
+/**
+ * 序号屏障：消费者只能处理已经发布、并且所有前置消费者都已处理完的事件
+ * <p>
+ * 没有前置消费者时，可用序号就是生产者的游标；
+ * 有前置消费者时（如 parse → enrich），可用序号是所有前置消费者序号的最小值
+ */
+public class SequenceBarrier {
+    private final Sequence cursor;
+    private final Sequence[] dependents;
+    private final WaitStrategy waitStrategy;
+    private volatile boolean alerted;
+
+    SequenceBarrier(Sequence cursor, Sequence[] dependents, WaitStrategy waitStrategy) {
+        this.cursor = cursor;
+        this.dependents = dependents;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * 等待sequence可用
+     *
+     * @param sequence
+     * @return 当前可用的最大序号
+     * @throws AlertException 屏障被alert
+     */
+    public long waitFor(long sequence) throws AlertException {
+        checkAlert();
+        return waitStrategy.waitFor(sequence, this);
+    }
+
+    /**
+     * 当前可用的最大序号
+     *
+     * @return
+     */
+    public long availableSequence() {
+        if (dependents.length == 0) return cursor.get();
+        return Sequence.minimum(dependents, Long.MAX_VALUE);
+    }
+
+    public void alert() {
+        alerted = true;
+    }
+
+    public void clearAlert() {
+        alerted = false;
+    }
+
+    public boolean isAlerted() {
+        return alerted;
+    }
+
+    public void checkAlert() throws AlertException {
+        if (alerted) throw AlertException.INSTANCE;
+    }
+}
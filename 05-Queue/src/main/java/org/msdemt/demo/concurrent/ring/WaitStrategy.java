@@ -0,0 +1,16 @@
+package org.msdemt.demo.concurrent.ring;
+
+/**
+ * 消费者等待序号可用的策略
+ */
+public interface WaitStrategy {
+    /**
+     * 等待sequence可用
+     *
+     * @param sequence 需要的序号
+     * @param barrier  提供当前可用序号、停止信号
+     * @return 当前可用的最大序号，可能大于sequence，消费者可以一次处理一批
+     * @throws AlertException 消费者被停止
+     */
+    long waitFor(long sequence, SequenceBarrier barrier) throws AlertException;
+}
@@ -0,0 +1,23 @@
+package org.msdemt.demo.concurrent.ring;
+
+/**
+ * 先自旋一段时间，之后每次检查前让出CPU
+ */
+public class YieldingWaitStrategy implements WaitStrategy {
+    private static final int SPIN_TRIES = 100;
+
+    @Override
+    public long waitFor(long sequence, SequenceBarrier barrier) throws AlertException {
+        long available;
+        int counter = SPIN_TRIES;
+        while ((available = barrier.availableSequence()) < sequence) {
+            barrier.checkAlert();
+            if (counter > 0) {
+                counter--;
+            } else {
+                Thread.yield();
+            }
+        }
+        return available;
+    }
+}
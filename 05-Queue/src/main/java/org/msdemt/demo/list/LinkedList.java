@@ -111,6 +111,93 @@ public class LinkedList<E> extends AbstractList<E> {
         return node.element;
     }
 
+    /**
+     * 添加元素到头部，直接操作first，不经过索引查找和范围检查
+     *
+     * @param element
+     */
+    public void addFirst(E element) {
+        Node<E> oldFirst = first;
+        first = new Node<>(null, element, oldFirst);
+        if (oldFirst == null) { // 这是链表添加的第一个元素
+            last = first;
+        } else {
+            oldFirst.prev = first;
+        }
+        size++;
+    }
+
+    /**
+     * 添加元素到尾部，直接操作last
+     *
+     * @param element
+     */
+    public void addLast(E element) {
+        Node<E> oldLast = last;
+        last = new Node<>(oldLast, element, null);
+        if (oldLast == null) {
+            first = last;
+        } else {
+            oldLast.next = last;
+        }
+        size++;
+    }
+
+    /**
+     * 删除头部元素
+     *
+     * @return 链表为空时返回null
+     */
+    public E pollFirst() {
+        Node<E> node = first;
+        if (node == null) return null;
+
+        first = node.next;
+        if (first == null) { // 删除的是最后一个元素
+            last = null;
+        } else {
+            first.prev = null;
+        }
+        // 断开引用，帮助GC
+        node.next = null;
+        size--;
+        return node.element;
+    }
+
+    /**
+     * 删除尾部元素
+     *
+     * @return 链表为空时返回null
+     */
+    public E pollLast() {
+        Node<E> node = last;
+        if (node == null) return null;
+
+        last = node.prev;
+        if (last == null) {
+            first = null;
+        } else {
+            last.next = null;
+        }
+        node.prev = null;
+        size--;
+        return node.element;
+    }
+
+    /**
+     * @return 链表为空时返回null
+     */
+    public E peekFirst() {
+        return first == null ? null : first.element;
+    }
+
+    /**
+     * @return 链表为空时返回null
+     */
+    public E peekLast() {
+        return last == null ? null : last.element;
+    }
+
     @Override
     public int indexOf(E element) {
         if (element == null) {
@@ -0,0 +1,280 @@
+package org.msdemt.demo.scheduler;
+
+import org.msdemt.demo.circle.CircleQueue;
+
+/**
+ * 多级反馈队列（MLFQ）
+ * <p>
+ * 每一级是一个CircleQueue，级别越小优先级越高，时间片越短：
+ * 1. 总是从优先级最高的非空级别取出任务，用一个long的位图记录哪些级别非空，
+ * numberOfTrailingZeros一条指令就能找到，与级别数量无关，O(1)
+ * 2. 任务在一个级别上累计用完这一级的时间片（不论中间让出了几次）就降到下一级，
+ * 避免任务每次在时间片用完之前让出CPU，一直占着高优先级
+ * 3. 每经过boostInterval的时间，把所有任务提升到最高级，长任务不会饿死，行为改变的任务也能回到高优先级；
+ * boost时已经被next()取出、正在运行的任务，在requeue时同样回到最高级
+ * <p>
+ * 这里只负责排队，不负责执行：调用者用next()取出任务，运行不超过task.quantum()的时间，
+ * 然后调用requeue()放回或者调用complete()结束，并告诉调度器实际运行的时间
+ * <p>
+ * 不是线程安全的
+ *
+ * @param <E>
+ */
+public class MultiLevelFeedbackQueue<E> {
+    private static final int MAX_LEVELS = Long.SIZE;
+
+    private final CircleQueue<Task<E>>[] levels;
+    private final long[] quanta;
+    private final long boostInterval;
+
+    // 第i位为1，代表第i级非空
+    private long nonEmptyLevels;
+    private int size;
+
+    // 调度器经过的时间（所有任务运行时间之和）
+    private long clock;
+    private long lastBoost;
+    private long boostCount;
+
+    /**
+     * 调度器中的任务
+     *
+     * @param <E>
+     */
+    public static class Task<E> {
+        private final E job;
+        private int level;
+        // 在当前级别已经用掉的时间
+        private long used;
+        // 被next()取出时调度器的boostCount，requeue时不相等说明运行期间发生了boost
+        private long boostCount;
+
+        private Task(E job, int level) {
+            this.job = job;
+            this.level = level;
+        }
+
+        public E job() {
+            return job;
+        }
+
+        public int level() {
+            return level;
+        }
+
+        @Override
+        public String toString() {
+            return job + "@" + level;
+        }
+    }
+
+    /**
+     * @param quanta        每一级的时间片，quanta.length就是级别数量，最多64级
+     * @param boostInterval 提升所有任务的间隔
+     */
+    public MultiLevelFeedbackQueue(long[] quanta, long boostInterval) {
+        if (quanta == null || quanta.length == 0 || quanta.length > MAX_LEVELS) {
+            throw new IllegalArgumentException("levels must be between 1 and " + MAX_LEVELS);
+        }
+        if (boostInterval <= 0) {
+            throw new IllegalArgumentException("boostInterval must be positive");
+        }
+        for (long quantum : quanta) {
+            if (quantum <= 0) {
+                throw new IllegalArgumentException("quantum must be positive");
+            }
+        }
+        this.quanta = quanta.clone();
+        this.boostInterval = boostInterval;
+        @SuppressWarnings("unchecked")
+        CircleQueue<Task<E>>[] levels = (CircleQueue<Task<E>>[]) new CircleQueue<?>[quanta.length];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = new CircleQueue<>();
+        }
+        this.levels = levels;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int levels() {
+        return levels.length;
+    }
+
+    /**
+     * @param level
+     * @return 第level级的任务数量
+     */
+    public int size(int level) {
+        return levels[level].size();
+    }
+
+    public long clock() {
+        return clock;
+    }
+
+    public long boostCount() {
+        return boostCount;
+    }
+
+    /**
+     * 提交新任务到最高级
+     *
+     * @param job
+     */
+    public void submit(E job) {
+        submit(job, 0);
+    }
+
+    /**
+     * 按优先级类别提交新任务
+     *
+     * @param job
+     * @param level 初始级别
+     */
+    public void submit(E job, int level) {
+        if (job == null) {
+            throw new IllegalArgumentException("job must not be null");
+        }
+        if (level < 0 || level >= levels.length) {
+            throw new IndexOutOfBoundsException("Level:" + level + ", Levels:" + levels.length);
+        }
+        enqueue(new Task<>(job, level));
+    }
+
+    /**
+     * 取出优先级最高的任务
+     *
+     * @return 没有任务时返回null
+     */
+    public Task<E> next() {
+        if (nonEmptyLevels == 0) return null;
+
+        int level = Long.numberOfTrailingZeros(nonEmptyLevels);
+        CircleQueue<Task<E>> queue = levels[level];
+        Task<E> task = queue.deQueue();
+        if (queue.isEmpty()) {
+            nonEmptyLevels &= ~(1L << level);
+        }
+        size--;
+        task.boostCount = boostCount;
+        return task;
+    }
+
+    /**
+     * @param task
+     * @return 任务在当前级别剩余的时间片，本次最多运行这么久
+     */
+    public long quantum(Task<E> task) {
+        return quanta[task.level] - task.used;
+    }
+
+    /**
+     * 任务运行了ran时间之后还没有结束，放回队列
+     * <p>
+     * 用完当前级别的时间片就降一级（已经是最低级则留在最低级），否则留在当前级别的队尾；
+     * 运行期间发生过boost时和队列中的任务一样回到最高级
+     *
+     * @param task
+     * @param ran  本次运行的时间
+     */
+    public void requeue(Task<E> task, long ran) {
+        elapse(ran);
+        if (task.boostCount != boostCount) {
+            task.level = 0;
+            task.used = 0;
+        } else {
+            task.used += ran;
+        }
+        if (task.used >= quanta[task.level]) {
+            task.level = Math.min(task.level + 1, levels.length - 1);
+            task.used = 0;
+        }
+        enqueue(task);
+        boostIfNeeded();
+    }
+
+    /**
+     * 任务运行了ran时间之后结束
+     *
+     * @param task
+     * @param ran
+     */
+    public void complete(Task<E> task, long ran) {
+        elapse(ran);
+        boostIfNeeded();
+    }
+
+    /**
+     * 把所有任务提升到最高级，并重置已经用掉的时间片
+     * <p>
+     * 已经被next()取出的任务不在队列中，等到requeue时再提升
+     */
+    public void boost() {
+        lastBoost = clock;
+        boostCount++;
+        CircleQueue<Task<E>> top = levels[0];
+        // 最高级的任务也要重置
+        for (int i = top.size(); i > 0; i--) {
+            Task<E> task = top.deQueue();
+            task.used = 0;
+            top.enQueue(task);
+        }
+        long others = nonEmptyLevels & ~1L;
+        while (others != 0) {
+            int level = Long.numberOfTrailingZeros(others);
+            others &= others - 1;
+            CircleQueue<Task<E>> queue = levels[level];
+            while (!queue.isEmpty()) {
+                Task<E> task = queue.deQueue();
+                task.level = 0;
+                task.used = 0;
+                top.enQueue(task);
+            }
+        }
+        if (!top.isEmpty()) {
+            nonEmptyLevels = 1L;
+        }
+    }
+
+    private void elapse(long ran) {
+        if (ran < 0) {
+            throw new IllegalArgumentException("ran must not be negative");
+        }
+        clock += ran;
+    }
+
+    private void boostIfNeeded() {
+        if (clock - lastBoost >= boostInterval) {
+            boost();
+        }
+    }
+
+    private void enqueue(Task<E> task) {
+        levels[task.level].enQueue(task);
+        nonEmptyLevels |= 1L << task.level;
+        size++;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        string.append("size=").append(size)
+                .append(" clock=").append(clock)
+                .append(" boosts=").append(boostCount)
+                .append(", [");
+        for (int i = 0; i < levels.length; i++) {
+            if (i != 0) {
+                string.append(", ");
+            }
+            string.append(levels[i].size());
+        }
+        string.append("]");
+        return string.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package org.msdemt.demo.timer;
+
+/**
+ * TimingWheel.schedule返回的句柄，用于O(1)取消定时任务
+ */
+public class Timeout {
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    final TimingWheel wheel;
+    final Runnable task;
+    /**
+     * 到期的tick
+     */
+    final long deadline;
+    /**
+     * 当前所在的桶
+     */
+    TimingWheel.Bucket bucket;
+    private int state = PENDING;
+
+    Timeout(TimingWheel wheel, Runnable task, long deadline) {
+        this.wheel = wheel;
+        this.task = task;
+        this.deadline = deadline;
+    }
+
+    public Runnable task() {
+        return task;
+    }
+
+    public long deadline() {
+        return deadline;
+    }
+
+    public boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    public boolean isExpired() {
+        return state == EXPIRED;
+    }
+
+    /**
+     * 取消定时任务，只做标记，由所在的桶延迟清理
+     *
+     * @return 已经到期或者已经取消时返回false
+     */
+    public boolean cancel() {
+        if (state != PENDING) return false;
+        state = CANCELLED;
+        wheel.onCancel(this);
+        return true;
+    }
+
+    boolean expire() {
+        if (state != PENDING) return false;
+        state = EXPIRED;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        String stateString = state == PENDING ? "pending" : (state == CANCELLED ? "cancelled" : "expired");
+        return "deadline=" + deadline + " " + stateString;
+    }
+}
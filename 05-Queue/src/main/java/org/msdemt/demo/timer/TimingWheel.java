@@ -0,0 +1,226 @@
+package org.msdemt.demo.timer;
+
+import org.msdemt.demo.circle.CircleQueue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分层时间轮
+ * <p>
+ * 每一层有wheelSize个桶，桶是一个CircleQueue；第k层每个桶跨越wheelSize^k个tick：
+ * 1. 距离到期不足wheelSize个tick的任务放在第0层，按 deadline &amp; mask 选桶
+ * 2. 更远的任务放在第k层，按 (deadline &gt;&gt; k*bits) &amp; mask 选桶，超出现有层数时自动增加一层（溢出轮）
+ * 3. 第0层每转一圈，就把上一层当前的桶降级（cascade）到下面的层，高层的桶依次类推
+ * <p>
+ * schedule、cancel都是O(1)；取消只做标记，某个桶中取消的任务超过一半时压缩这个桶，
+ * 保证被取消的任务不会无限堆积
+ * <p>
+ * 时间由调用者通过tick/advance推进，不是线程安全的
+ */
+public class TimingWheel {
+    private static final int DEFAULT_WHEEL_SIZE = 64;
+    private static final int MIN_PURGE_SIZE = 16;
+
+    private final int bits;
+    private final int mask;
+    private final List<Bucket[]> levels = new ArrayList<>();
+
+    /**
+     * 下一个要处理的tick
+     */
+    private long currentTick;
+    private int pending;
+
+    public TimingWheel() {
+        this(DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * @param wheelSize 每一层桶的数量，必须是2的幂
+     */
+    public TimingWheel(int wheelSize) {
+        if (wheelSize < 2 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of 2");
+        }
+        bits = Integer.numberOfTrailingZeros(wheelSize);
+        mask = wheelSize - 1;
+        addLevel();
+    }
+
+    /**
+     * @return 还没有到期、也没有取消的任务数量
+     */
+    public int size() {
+        return pending;
+    }
+
+    public boolean isEmpty() {
+        return pending == 0;
+    }
+
+    /**
+     * @return 下一个要处理的tick
+     */
+    public long currentTick() {
+        return currentTick;
+    }
+
+    public int levelCount() {
+        return levels.size();
+    }
+
+    /**
+     * 在delay个tick之后执行task
+     *
+     * @param delay 0代表下一个tick执行
+     * @param task
+     * @return 可以用于取消的句柄
+     */
+    public Timeout schedule(long delay, Runnable task) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("delay must not be negative");
+        }
+        if (task == null) {
+            throw new IllegalArgumentException("task must not be null");
+        }
+
+        Timeout timeout = new Timeout(this, task, currentTick + delay);
+        add(timeout, currentTick);
+        pending++;
+        return timeout;
+    }
+
+    /**
+     * 推进一个tick，执行到期的任务
+     *
+     * @return 本次执行的任务数量
+     */
+    public int tick() {
+        long tick = currentTick;
+        int index = (int) tick & mask;
+        if (index == 0) {
+            cascade(tick);
+        }
+        currentTick = tick + 1;
+
+        Bucket bucket = levels.get(0)[index];
+        int expired = 0;
+        // 任务中新schedule的任务至少在下一个tick执行，不会进入当前桶
+        while (!bucket.timeouts.isEmpty()) {
+            Timeout timeout = bucket.timeouts.deQueue();
+            timeout.bucket = null;
+            if (timeout.isCancelled()) {
+                bucket.cancelled--;
+                continue;
+            }
+            timeout.expire();
+            pending--;
+            expired++;
+            timeout.task.run();
+        }
+        return expired;
+    }
+
+    /**
+     * 推进ticks个tick
+     *
+     * @param ticks
+     * @return 执行的任务数量
+     */
+    public int advance(long ticks) {
+        int expired = 0;
+        for (long i = 0; i < ticks; i++) {
+            expired += tick();
+        }
+        return expired;
+    }
+
+    /**
+     * 第0层转完一圈：把第1层当前的桶降级，如果第1层也转完了一圈，继续降级第2层，依此类推
+     */
+    private void cascade(long tick) {
+        for (int level = 1; level < levels.size(); level++) {
+            int index = (int) (tick >>> (level * bits)) & mask;
+            Bucket bucket = levels.get(level)[index];
+            while (!bucket.timeouts.isEmpty()) {
+                Timeout timeout = bucket.timeouts.deQueue();
+                if (timeout.isCancelled()) continue;
+                add(timeout, tick);
+            }
+            bucket.cancelled = 0;
+            if (index != 0) break;
+        }
+    }
+
+    /**
+     * 根据到期时间与base的距离选择层和桶
+     */
+    private void add(Timeout timeout, long base) {
+        long remaining = timeout.deadline - base;
+        int level = 0;
+        while ((level + 1) * bits < Long.SIZE && (remaining >>> ((level + 1) * bits)) != 0) {
+            level++;
+        }
+        while (level >= levels.size()) {
+            addLevel();
+        }
+
+        int index = (int) (timeout.deadline >>> (level * bits)) & mask;
+        Bucket bucket = levels.get(level)[index];
+        bucket.timeouts.enQueue(timeout);
+        timeout.bucket = bucket;
+    }
+
+    private void addLevel() {
+        Bucket[] buckets = new Bucket[mask + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket();
+        }
+        levels.add(buckets);
+    }
+
+    void onCancel(Timeout timeout) {
+        pending--;
+        Bucket bucket = timeout.bucket;
+        if (bucket == null) return;
+
+        bucket.cancelled++;
+        int size = bucket.timeouts.size();
+        if (size >= MIN_PURGE_SIZE && bucket.cancelled > (size >> 1)) {
+            bucket.purge();
+        }
+    }
+
+    /**
+     * 时间轮中的一个桶
+     */
+    static class Bucket {
+        final CircleQueue<Timeout> timeouts = new CircleQueue<>();
+        /**
+         * 桶中已经取消、还没有清理的任务数量
+         */
+        int cancelled;
+
+        /**
+         * 移除所有已经取消的任务，保持剩余任务的顺序
+         */
+        void purge() {
+            int size = timeouts.size();
+            for (int i = 0; i < size; i++) {
+                Timeout timeout = timeouts.deQueue();
+                if (timeout.isCancelled()) {
+                    timeout.bucket = null;
+                } else {
+                    timeouts.enQueue(timeout);
+                }
+            }
+            cancelled = 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "currentTick=" + currentTick + " pending=" + pending + " levels=" + levels.size();
+    }
+}
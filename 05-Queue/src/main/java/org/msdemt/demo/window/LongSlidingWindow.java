@@ -0,0 +1,131 @@
+package org.msdemt.demo.window;
+
+import org.msdemt.demo.circle.LongCircleDeque;
+
+/**
+ * long元素的滑动窗口，push、evict、max、min、sum均摊O(1)
+ * <p>
+ * 1. values：窗口中的所有元素，按到达顺序存放
+ * 2. maxSequences：单调递减队列，存放可能成为最大值的元素序号，队头就是当前最大值
+ * 3. minSequences：单调递增队列，存放可能成为最小值的元素序号，队头就是当前最小值
+ * 新元素入队时，从单调队列尾部弹出所有不可能再成为最值的元素；
+ * 最旧的元素被移出窗口时，如果它位于单调队列队头，一并弹出
+ */
+public class LongSlidingWindow {
+    private final int windowSize;
+    private final LongCircleDeque values = new LongCircleDeque();
+    private final LongCircleDeque maxSequences = new LongCircleDeque();
+    private final LongCircleDeque minSequences = new LongCircleDeque();
+
+    /**
+     * 窗口中最旧元素的序号
+     */
+    private long firstSequence;
+    private long sum;
+
+    /**
+     * 不限制窗口大小，由调用者通过evict移除旧元素（例如按时间划分的窗口）
+     */
+    public LongSlidingWindow() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param windowSize 窗口中最多的元素数量，push时超出则自动evict最旧的元素
+     */
+    public LongSlidingWindow(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive");
+        }
+        this.windowSize = windowSize;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    public void clear() {
+        firstSequence += values.size();
+        values.clear();
+        maxSequences.clear();
+        minSequences.clear();
+        sum = 0;
+    }
+
+    /**
+     * 添加新元素，窗口已满时先移除最旧的元素
+     *
+     * @param value
+     */
+    public void push(long value) {
+        if (values.size() == windowSize) {
+            evict();
+        }
+
+        long sequence = firstSequence + values.size();
+        values.enQueueRear(value);
+        sum += value;
+
+        while (!maxSequences.isEmpty() && valueOf(maxSequences.rear()) <= value) {
+            maxSequences.deQueueRear();
+        }
+        maxSequences.enQueueRear(sequence);
+
+        while (!minSequences.isEmpty() && valueOf(minSequences.rear()) >= value) {
+            minSequences.deQueueRear();
+        }
+        minSequences.enQueueRear(sequence);
+    }
+
+    /**
+     * 移除最旧的元素
+     *
+     * @return 被移除的元素
+     */
+    public long evict() {
+        long value = values.deQueueFront();
+        sum -= value;
+        if (maxSequences.front() == firstSequence) {
+            maxSequences.deQueueFront();
+        }
+        if (minSequences.front() == firstSequence) {
+            minSequences.deQueueFront();
+        }
+        firstSequence++;
+        return value;
+    }
+
+    /**
+     * @return 最旧的元素
+     */
+    public long oldest() {
+        return values.front();
+    }
+
+    /**
+     * @return 最新的元素
+     */
+    public long newest() {
+        return values.rear();
+    }
+
+    public long max() {
+        return valueOf(maxSequences.front());
+    }
+
+    public long min() {
+        return valueOf(minSequences.front());
+    }
+
+    public long sum() {
+        return sum;
+    }
+
+    private long valueOf(long sequence) {
+        return values.get((int) (sequence - firstSequence));
+    }
+}
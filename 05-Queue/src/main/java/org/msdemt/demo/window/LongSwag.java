@@ -0,0 +1,111 @@
+package org.msdemt.demo.window;
+
+import org.msdemt.demo.circle.LongCircleDeque;
+
+import java.util.function.LongBinaryOperator;
+
+/**
+ * long元素的两栈滑动窗口聚合（SWAG, Sliding-Window AGgregation）
+ * <p>
+ * 支持任意满足结合律的聚合运算（不要求交换律、也不要求可逆），push、evict、query均摊O(1)：
+ * 1. back栈：存放新元素，同时维护back中所有元素的聚合值backAggregate
+ * 2. front栈：存放旧元素的后缀聚合值，栈顶是最旧元素到front栈底所有元素的聚合值
+ * 3. evict时front栈为空，就把back栈的元素全部倒入front栈，同时计算后缀聚合值
+ * 查询结果 = op(front栈顶, backAggregate)
+ */
+public class LongSwag {
+    private final LongBinaryOperator op;
+    private final long identity;
+    private final int windowSize;
+
+    // 两个栈都只使用队尾
+    private final LongCircleDeque back = new LongCircleDeque();
+    private final LongCircleDeque frontAggregates = new LongCircleDeque();
+    private long backAggregate;
+
+    /**
+     * @param op       满足结合律的聚合运算
+     * @param identity 运算的单位元，例如求和为0，求最大值为Long.MIN_VALUE
+     */
+    public LongSwag(LongBinaryOperator op, long identity) {
+        this(op, identity, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param op         满足结合律的聚合运算
+     * @param identity   运算的单位元
+     * @param windowSize 窗口中最多的元素数量，push时超出则自动evict最旧的元素
+     */
+    public LongSwag(LongBinaryOperator op, long identity, int windowSize) {
+        if (op == null) {
+            throw new IllegalArgumentException("op must not be null");
+        }
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive");
+        }
+        this.op = op;
+        this.identity = identity;
+        this.windowSize = windowSize;
+        backAggregate = identity;
+    }
+
+    public int size() {
+        return back.size() + frontAggregates.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        back.clear();
+        frontAggregates.clear();
+        backAggregate = identity;
+    }
+
+    /**
+     * 添加新元素，窗口已满时先移除最旧的元素
+     *
+     * @param value
+     */
+    public void push(long value) {
+        if (size() == windowSize) {
+            evict();
+        }
+        back.enQueueRear(value);
+        backAggregate = op.applyAsLong(backAggregate, value);
+    }
+
+    /**
+     * 移除最旧的元素
+     */
+    public void evict() {
+        if (frontAggregates.isEmpty()) {
+            flip();
+        }
+        frontAggregates.deQueueRear();
+    }
+
+    /**
+     * @return 窗口中所有元素按到达顺序聚合的结果，窗口为空时返回单位元
+     */
+    public long query() {
+        if (frontAggregates.isEmpty()) return backAggregate;
+        return op.applyAsLong(frontAggregates.rear(), backAggregate);
+    }
+
+    /**
+     * 把back栈倒入front栈：从最新的元素开始，依次计算到front栈底的后缀聚合值
+     */
+    private void flip() {
+        if (back.isEmpty()) {
+            throw new IndexOutOfBoundsException("Window is empty");
+        }
+        long aggregate = identity;
+        while (!back.isEmpty()) {
+            aggregate = op.applyAsLong(back.deQueueRear(), aggregate);
+            frontAggregates.enQueueRear(aggregate);
+        }
+        backAggregate = identity;
+    }
+}
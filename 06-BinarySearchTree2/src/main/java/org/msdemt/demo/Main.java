@@ -1,7 +1,22 @@
 package org.msdemt.demo;
 
+import org.msdemt.demo.printer.BinaryTreeInfo;
 import org.msdemt.demo.printer.BinaryTrees;
 import org.msdemt.demo.tree.BST;
+import org.msdemt.demo.tree.BinaryTree;
+import org.msdemt.demo.tree.BinaryTree.Visitor;
+import org.msdemt.demo.tree.TreeStats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 
 @SuppressWarnings("unused")
@@ -44,7 +59,385 @@ public class Main {
         System.out.println(bst.isComplete());
     }
 
-    public static void main(String[] args) {
-        test2();
+    /**
+     * 迭代遍历与原来的递归遍历结果一致，Visitor返回true时立即停止
+     */
+    static void test3() {
+        Integer data[] = new Integer[]{
+                7, 4, 9, 2, 5, 8, 11, 3, 12, 1
+        };
+        BST<Integer> bst = new BST<>();
+        for (int i = 0; i < data.length; i++) {
+            bst.add(data[i]);
+        }
+
+        Asserts.test(preorder(bst, null).equals(Arrays.asList(7, 4, 2, 1, 3, 5, 9, 8, 11, 12)));
+        Asserts.test(inorder(bst, null).equals(Arrays.asList(1, 2, 3, 4, 5, 7, 8, 9, 11, 12)));
+        Asserts.test(postorder(bst, null).equals(Arrays.asList(1, 3, 2, 5, 4, 8, 12, 11, 9, 7)));
+        Asserts.test(preorder(bst, 5).equals(Arrays.asList(7, 4, 2, 1, 3, 5)));
+        Asserts.test(inorder(bst, 4).equals(Arrays.asList(1, 2, 3, 4)));
+        Asserts.test(postorder(bst, 4).equals(Arrays.asList(1, 3, 2, 5, 4)));
+        Asserts.test(bst.height2() == 4 && bst.height() == 4);
+
+        Asserts.test(preorder(new BST<>(), null).isEmpty() && new BST<Integer>().height2() == 0);
+    }
+
+    /**
+     * 升序插入的BST退化成链表，遍历和height2不会栈溢出
+     */
+    static void test4() {
+        int n = 5_0000;
+        BST<Integer> bst = new BST<>();
+        for (int i = 0; i < n; i++) {
+            bst.add(i);
+        }
+        Asserts.test(preorder(bst, null).size() == n);
+        Asserts.test(inorder(bst, null).size() == n);
+        Asserts.test(postorder(bst, null).get(0) == n - 1);
+        Asserts.test(bst.height2() == n && bst.height() == n);
+    }
+
+    private static List<Integer> preorder(BinaryTree<Integer> tree, Integer stopAt) {
+        List<Integer> list = new ArrayList<>();
+        tree.preorder(collector(list, stopAt));
+        return list;
+    }
+
+    private static List<Integer> inorder(BinaryTree<Integer> tree, Integer stopAt) {
+        List<Integer> list = new ArrayList<>();
+        tree.inorder(collector(list, stopAt));
+        return list;
+    }
+
+    private static List<Integer> postorder(BinaryTree<Integer> tree, Integer stopAt) {
+        List<Integer> list = new ArrayList<>();
+        tree.postorder(collector(list, stopAt));
+        return list;
+    }
+
+    /**
+     * 把访问到的元素放入list，访问到stopAt时停止
+     */
+    private static Visitor<Integer> collector(List<Integer> list, Integer stopAt) {
+        return new Visitor<Integer>() {
+            @Override
+            public boolean visit(Integer element) {
+                list.add(element);
+                return element.equals(stopAt);
+            }
+        };
+    }
+
+    /**
+     * Morris遍历的结果与迭代遍历一致，提前停止之后树的结构被恢复；层序遍历使用环形队列之后结果不变
+     */
+    static void test5() {
+        Random random = new Random(1);
+        BST<Integer> tree = new BST<>();
+        for (int i = 0; i < 1000; i++) {
+            tree.add(random.nextInt(10000));
+        }
+        List<Integer> inorder = inorder(tree, null);
+        List<Integer> preorder = preorder(tree, null);
+
+        List<Integer> list = new ArrayList<>();
+        tree.morrisInorder(collector(list, null));
+        Asserts.test(list.equals(inorder));
+        list = new ArrayList<>();
+        tree.morrisPreorder(collector(list, null));
+        Asserts.test(list.equals(preorder));
+
+        for (int i = 0; i < 50; i++) {
+            Integer stopAt = inorder.get(random.nextInt(inorder.size()));
+            list = new ArrayList<>();
+            tree.morrisInorder(collector(list, stopAt));
+            Asserts.test(list.equals(inorder.subList(0, inorder.indexOf(stopAt) + 1)));
+            list = new ArrayList<>();
+            tree.morrisPreorder(collector(list, stopAt));
+            Asserts.test(list.equals(preorder.subList(0, preorder.indexOf(stopAt) + 1)));
+            // 线索都被拆除了
+            Asserts.test(inorder(tree, null).equals(inorder) && preorder(tree, null).equals(preorder));
+        }
+
+        list = new ArrayList<>();
+        tree.levelOrder(collector(list, null));
+        Asserts.test(list.size() == tree.size() && list.get(0).equals(preorder.get(0)));
+        Asserts.test(tree.height() == tree.height2());
+
+        Integer data[] = new Integer[]{
+                7, 4, 9, 2, 5, 8, 11
+        };
+        BST<Integer> bst = new BST<>();
+        for (int i = 0; i < data.length; i++) {
+            bst.add(data[i]);
+        }
+        Asserts.test(bst.isComplete());
+        bst.add(1);
+        Asserts.test(bst.isComplete());
+        bst.add(12);
+        Asserts.test(!bst.isComplete());
+    }
+
+    /**
+     * 导航方法、迭代器、范围视图与java.util.TreeSet的结果一致
+     */
+    static void test6() {
+        checkNavigation(new BST<>());
+    }
+
+    private static void checkNavigation(BST<Integer> tree) {
+        Random random = new Random(1);
+        TreeSet<Integer> expected = new TreeSet<>();
+        Asserts.test(tree.first() == null && tree.last() == null && !tree.iterator().hasNext());
+        for (int i = 0; i < 2000; i++) {
+            int value = random.nextInt(5000) * 2;
+            tree.add(value);
+            expected.add(value);
+        }
+
+        Asserts.test(tree.first().equals(expected.first()) && tree.last().equals(expected.last()));
+        for (int i = -2; i < 10002; i++) {
+            Asserts.test(Objects.equals(tree.floor(i), expected.floor(i)));
+            Asserts.test(Objects.equals(tree.ceiling(i), expected.ceiling(i)));
+            Asserts.test(Objects.equals(tree.lower(i), expected.lower(i)));
+            Asserts.test(Objects.equals(tree.higher(i), expected.higher(i)));
+        }
+
+        Asserts.test(toList(tree).equals(new ArrayList<>(expected)));
+        List<Integer> descending = new ArrayList<>();
+        tree.descendingIterator().forEachRemaining(descending::add);
+        Asserts.test(descending.equals(new ArrayList<>(expected.descendingSet())));
+
+        for (int i = 0; i < 200; i++) {
+            int from = random.nextInt(10002) - 1;
+            int to = from + random.nextInt(500);
+            Asserts.test(toList(tree.subSet(from, to)).equals(new ArrayList<>(expected.subSet(from, to))));
+            Asserts.test(toList(tree.headSet(to)).equals(new ArrayList<>(expected.headSet(to))));
+            Asserts.test(toList(tree.tailSet(from)).equals(new ArrayList<>(expected.tailSet(from))));
+        }
+
+        // 通过迭代器删除一个范围内的偶数位置元素，包括度为2的节点
+        Iterator<Integer> iterator = tree.subSet(2000, 8000).iterator();
+        Iterator<Integer> expectedIterator = expected.subSet(2000, 8000).iterator();
+        boolean remove = true;
+        while (iterator.hasNext()) {
+            Asserts.test(iterator.next().equals(expectedIterator.next()));
+            if (remove) {
+                iterator.remove();
+                expectedIterator.remove();
+            }
+            remove = !remove;
+        }
+        Asserts.test(!expectedIterator.hasNext());
+        iterator = tree.descendingIterator();
+        expectedIterator = expected.descendingIterator();
+        while (iterator.hasNext()) {
+            Asserts.test(iterator.next().equals(expectedIterator.next()));
+            if (random.nextInt(3) == 0) {
+                iterator.remove();
+                expectedIterator.remove();
+            }
+        }
+        Asserts.test(tree.size() == expected.size() && toList(tree).equals(new ArrayList<>(expected)));
+    }
+
+    private static List<Integer> toList(Iterable<Integer> iterable) {
+        List<Integer> list = new ArrayList<>();
+        for (Integer element : iterable) {
+            list.add(element);
+        }
+        return list;
+    }
+
+    /**
+     * 并行归约、计数、遍历和Spliterator的结果与顺序的中序遍历一致
+     */
+    static void test7() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Random random = new Random(1);
+        for (int n : new int[]{0, 1, 10, 5000, 10_0000}) {
+            BST<Integer> bst = new BST<>();
+            for (int i = 0; i < n; i++) {
+                bst.add(random.nextInt());
+            }
+            checkParallel(bst, pool);
+        }
+        // 按顺序添加，退化成链表
+        BST<Integer> list = new BST<>();
+        for (int i = 0; i < 2_0000; i++) {
+            list.add(i);
+        }
+        checkParallel(list, pool);
+        pool.shutdown();
+    }
+
+    private static void checkParallel(BinaryTree<Integer> tree, ForkJoinPool pool) {
+        List<Integer> expected = inorder(tree, null);
+        long sum = 0;
+        long even = 0;
+        for (Integer element : expected) {
+            sum += element;
+            if (element % 2 == 0) {
+                even++;
+            }
+        }
+
+        Asserts.test(tree.parallelReduce(0L, (result, element) -> result + element, Long::sum, pool) == sum);
+        // 归约成 [数量, 第一个, 最后一个, 是否递增]，检查合并的顺序
+        long[] range = tree.parallelReduce(new long[]{0, 0, 0, 1},
+                (result, element) -> concat(result, new long[]{1, element, element, 1}), Main::concat, pool);
+        Asserts.test(range[0] == expected.size() && range[3] == 1);
+        Asserts.test(expected.isEmpty() || (range[1] == expected.get(0) && range[2] == expected.get(expected.size() - 1)));
+
+        Asserts.test(tree.parallelCount(element -> element % 2 == 0, pool) == even);
+        LongAdder adder = new LongAdder();
+        tree.parallelForEach(adder::add, pool);
+        Asserts.test(adder.sum() == sum);
+
+        Asserts.test(tree.stream().collect(Collectors.toList()).equals(expected));
+        // 在pool中执行，parallelStream拆分出的任务也在pool中执行
+        Asserts.test(pool.submit(() -> tree.parallelStream().collect(Collectors.toList())).join().equals(expected));
+        Asserts.test(tree.parallelStream().mapToLong(Integer::longValue).sum() == sum);
+    }
+
+    private static long[] concat(long[] left, long[] right) {
+        if (left[0] == 0) {
+            return right;
+        }
+        if (right[0] == 0) {
+            return left;
+        }
+        boolean ordered = left[3] == 1 && right[3] == 1 && left[2] < right[1];
+        return new long[]{left[0] + right[0], left[1], right[2], ordered ? 1 : 0};
+    }
+
+    /**
+     * 结构统计：增量维护的结果与重新遍历的结果一致
+     */
+    static void test8() {
+        Random random = new Random(1);
+        BST<Integer> bst = new BST<>();
+        Asserts.test(bst.stats().height() == 0 && bst.height() == 0 && !bst.isComplete());
+        for (int i = 0; i < 20000; i++) {
+            int value = random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                bst.remove(value);
+            } else {
+                bst.add(value);
+            }
+            if (i % 50 == 0) {
+                checkStats(bst);
+            }
+            if (i == 10000) {
+                bst.clear();
+                checkStats(bst);
+            }
+        }
+        checkStats(bst);
+
+        // 顺序添加退化成链表，每次删除根节点，整条链上移一层
+        bst.clear();
+        for (int i = 0; i < 1000; i++) {
+            bst.add(i);
+        }
+        checkStats(bst);
+        for (int i = 0; i < 1000; i++) {
+            bst.remove(i);
+            if (i % 10 == 0) {
+                checkStats(bst);
+            }
+        }
+        checkStats(bst);
+
+        // 相同的添加顺序，一棵开启统计、一棵不开启，isComplete、height的结果相同
+        for (int round = 0; round < 2000; round++) {
+            BST<Integer> withStats = new BST<>();
+            BST<Integer> withoutStats = new BST<>();
+            withStats.stats();
+            int n = random.nextInt(16);
+            for (int i = 0; i < n; i++) {
+                int value = random.nextInt(n);
+                withStats.add(value);
+                withoutStats.add(value);
+            }
+            Asserts.test(withStats.isComplete() == withoutStats.isComplete());
+            Asserts.test(withStats.height() == withoutStats.height());
+        }
+
+    }
+
+    private static void checkStats(BST<Integer> tree) {
+        TreeStats stats = tree.stats();
+        List<Integer> levels = new ArrayList<>();
+        int leaves = countLevels(tree, tree.root(), 0, levels);
+        Asserts.test(stats.size() == tree.size() && stats.leafCount() == leaves && stats.height() == levels.size());
+        Asserts.test(tree.height() == tree.height2());
+        for (int level = 0; level < levels.size(); level++) {
+            Asserts.test(stats.levelCount(level) == levels.get(level));
+        }
+    }
+
+    /**
+     * 把子树中每一层的节点数量累加到levels中
+     *
+     * @return 子树中叶子节点的数量
+     */
+    private static int countLevels(BinaryTreeInfo tree, Object node, int depth, List<Integer> levels) {
+        if (node == null) {
+            return 0;
+        }
+        if (depth == levels.size()) {
+            levels.add(0);
+        }
+        levels.set(depth, levels.get(depth) + 1);
+        Object left = tree.left(node);
+        Object right = tree.right(node);
+        if (left == null && right == null) {
+            return 1;
+        }
+        return countLevels(tree, left, depth + 1, levels) + countLevels(tree, right, depth + 1, levels);
+    }
+
+    /**
+     * 层序遍历的队列每次创建：Visitor中再调用height、isComplete，多个线程同时调用height，互不影响
+     */
+    static void test9() throws InterruptedException {
+        Random random = new Random(1);
+        BST<Integer> tree = new BST<>();
+        for (int i = 0; i < 10000; i++) {
+            tree.add(random.nextInt(100000));
+        }
+        int height = tree.height2();
+        int[] visited = new int[1];
+        tree.levelOrder(new Visitor<Integer>() {
+            @Override
+            public boolean visit(Integer element) {
+                visited[0]++;
+                Asserts.test(tree.height() == height && !tree.isComplete());
+                return false;
+            }
+        });
+        Asserts.test(visited[0] == tree.size());
+
+        boolean[] failed = new boolean[1];
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int round = 0; round < 200; round++) {
+                    if (tree.height() != height) {
+                        failed[0] = true;
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Asserts.test(!failed[0]);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        test9();
     }
 }
@@ -1,6 +1,9 @@
 package org.msdemt.demo.tree;
 
 import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.ObjIntConsumer;
 
 /**
  * BST: 二叉搜索树
@@ -8,9 +11,13 @@ import java.util.Comparator;
  * @param <E>
  */
 @SuppressWarnings("unchecked")
-public class BST<E> extends BinaryTree<E> {
+public class BST<E> extends BinaryTree<E> implements Iterable<E> {
 
     private Comparator<E> comparator;
+    // 是否跟踪结构统计，第一次调用stats()之后开启
+    private boolean trackStats;
+    // 结构统计，为null代表还没有统计或者已经丢弃，用到时再遍历整棵树重新统计
+    private TreeStats stats;
 
     /**
      * 支持不使用比较器构造二叉搜索树，此时需要node节点的元素实现Comparable接口，实现compareTo方法，
@@ -41,6 +48,9 @@ public class BST<E> extends BinaryTree<E> {
         if (root == null) {
             root = new Node<>(element, null);
             size++;
+            if (stats != null) {
+                statsAfterAdd(root);
+            }
             return;
         }
 
@@ -70,6 +80,9 @@ public class BST<E> extends BinaryTree<E> {
             parent.left = newNode;
         }
         size++;
+        if (stats != null) {
+            statsAfterAdd(newNode);
+        }
     }
 
     /**
@@ -107,6 +120,10 @@ public class BST<E> extends BinaryTree<E> {
             node = s;
         }
 
+        if (stats != null) {
+            statsBeforeRemove(node);
+        }
+
         // 删除node节点（node的度必然是1或者0）
         Node<E> replacement = node.left != null ? node.left : node.right;
 
@@ -132,6 +149,373 @@ public class BST<E> extends BinaryTree<E> {
         }
     }
 
+    /**
+     * 结构统计（每一层的节点数量、叶子节点数量、最大深度）的快照
+     * <p>
+     * 第一次调用时遍历整棵树统计O(n)，之后开始跟踪，再次调用只需要O(height)拷贝每一层的数量：
+     * 1. 添加节点、删除叶子节点时增量更新，多一次O(height)的向上遍历算出节点的深度
+     * 2. 删除度为1的节点时，它的整棵子树上移一层，逐个更新需要O(子树大小)；
+     * 这时直接丢弃统计，等下次调用stats()、height()、isComplete()时再遍历一次重新统计。
+     * 所以跟踪结构统计不会改变添加、删除的复杂度
+     * <p>
+     * 只支持不旋转的二叉搜索树：旋转会改变整棵子树的深度，会旋转的树（平衡二叉搜索树）返回null
+     *
+     * @return 快照，不支持结构统计时返回null
+     */
+    public TreeStats stats() {
+        trackStats = true;
+        return currentStats().copy();
+    }
+
+    /**
+     * 调用过stats()之后一般是O(1)（统计被丢弃之后的第一次调用需要遍历整棵树），否则遍历整棵树
+     *
+     * @return
+     */
+    @Override
+    public int height() {
+        return trackStats ? currentStats().height() : super.height();
+    }
+
+    /**
+     * 调用过stats()之后，先用每一层的节点数量判断：上面有没填满的层一定不是，最底层也填满了一定是；
+     * 只有最底层没有填满时，才需要遍历检查最底层的节点是否都靠左
+     *
+     * @return
+     */
+    @Override
+    public boolean isComplete() {
+        if (!trackStats || root == null) {
+            return super.isComplete();
+        }
+        TreeStats stats = currentStats();
+        int height = stats.height();
+        int fullLevels = stats.fullLevels();
+        if (fullLevels == height) {
+            return true;
+        }
+        if (fullLevels < height - 1) {
+            return false;
+        }
+        return super.isComplete();
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        if (stats != null) {
+            stats.clear();
+        }
+    }
+
+    private TreeStats currentStats() {
+        if (stats == null) {
+            TreeStats stats = new TreeStats();
+            if (root != null) {
+                forEachDepth(root, 0, (node, depth) -> stats.add(depth, node.isLeaf()));
+            }
+            this.stats = stats;
+        }
+        return stats;
+    }
+
+    private void statsAfterAdd(Node<E> node) {
+        stats.add(depthOf(node), true);
+        // 父节点只有node这一个子节点，说明它原来是叶子节点
+        Node<E> parent = node.parent;
+        if (parent != null && (parent.left == null || parent.right == null)) {
+            stats.addLeafCount(-1);
+        }
+    }
+
+    /**
+     * 在node（度为0或者1）被删除之前调用
+     *
+     * @param node
+     */
+    private void statsBeforeRemove(Node<E> node) {
+        if (node.left != null || node.right != null) {
+            // 子树整体上移一层，丢弃统计，用到时再重新统计
+            stats = null;
+            return;
+        }
+        // 父节点只有node这一个子节点，删除之后变成叶子节点
+        Node<E> parent = node.parent;
+        if (parent != null && (parent.left == null || parent.right == null)) {
+            stats.addLeafCount(1);
+        }
+        stats.remove(depthOf(node), true);
+    }
+
+    private static int depthOf(Node<?> node) {
+        int depth = 0;
+        while ((node = node.parent) != null) {
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * 前序遍历subtree，同时传入每个节点的深度
+     * <p>
+     * 沿着parent指针迭代，不使用递归和栈，退化成链表的子树也不会栈溢出
+     *
+     * @param subtree
+     * @param depth   subtree的深度
+     * @param action
+     */
+    private static <E> void forEachDepth(Node<E> subtree, int depth, ObjIntConsumer<Node<E>> action) {
+        Node<E> node = subtree;
+        while (true) {
+            action.accept(node, depth);
+            if (node.left != null) {
+                node = node.left;
+                depth++;
+            } else if (node.right != null) {
+                node = node.right;
+                depth++;
+            } else {
+                // 往上找到第一个还有右子树没有访问的祖先，转到它的右子节点
+                while (node != subtree && (node == node.parent.right || node.parent.right == null)) {
+                    node = node.parent;
+                    depth--;
+                }
+                if (node == subtree) {
+                    return;
+                }
+                // 转到兄弟节点，深度不变
+                node = node.parent.right;
+            }
+        }
+    }
+
+    /**
+     * @return 最小的元素，树为空时返回null
+     */
+    public E first() {
+        Node<E> node = firstNode();
+        return node == null ? null : node.element;
+    }
+
+    /**
+     * @return 最大的元素，树为空时返回null
+     */
+    public E last() {
+        Node<E> node = lastNode();
+        return node == null ? null : node.element;
+    }
+
+    /**
+     * @return 小于等于element的最大元素，不存在时返回null
+     */
+    public E floor(E element) {
+        return elementOf(floorNode(element, true));
+    }
+
+    /**
+     * @return 大于等于element的最小元素，不存在时返回null
+     */
+    public E ceiling(E element) {
+        return elementOf(ceilingNode(element, true));
+    }
+
+    /**
+     * @return 小于element的最大元素，不存在时返回null
+     */
+    public E lower(E element) {
+        return elementOf(floorNode(element, false));
+    }
+
+    /**
+     * @return 大于element的最小元素，不存在时返回null
+     */
+    public E higher(E element) {
+        return elementOf(ceilingNode(element, false));
+    }
+
+    /**
+     * 从小到大的迭代器
+     * <p>
+     * 先花O(log n)找到最小的节点，之后每一步用successor找下一个节点，均摊O(1)。
+     * 迭代过程中只能通过迭代器的remove删除元素
+     *
+     * @return
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new TreeIterator(firstNode(), false, null);
+    }
+
+    /**
+     * 从大到小的迭代器，每一步用predecessor找下一个节点
+     *
+     * @return
+     */
+    public Iterator<E> descendingIterator() {
+        return new TreeIterator(lastNode(), true, null);
+    }
+
+    /**
+     * [fromElement, toElement) 范围内的元素
+     * <p>
+     * 返回的是视图：每次创建迭代器时才用O(log n)定位到fromElement，遇到toElement就停止，不会访问范围之外的元素
+     *
+     * @param fromElement 包含
+     * @param toElement   不包含
+     * @return
+     */
+    public Iterable<E> subSet(E fromElement, E toElement) {
+        elementNotNullCheck(fromElement);
+        elementNotNullCheck(toElement);
+        if (compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException("fromElement > toElement");
+        }
+        return () -> new TreeIterator(ceilingNode(fromElement, true), false, toElement);
+    }
+
+    /**
+     * 小于toElement的元素
+     *
+     * @param toElement 不包含
+     * @return
+     */
+    public Iterable<E> headSet(E toElement) {
+        elementNotNullCheck(toElement);
+        return () -> new TreeIterator(firstNode(), false, toElement);
+    }
+
+    /**
+     * 大于等于fromElement的元素
+     *
+     * @param fromElement 包含
+     * @return
+     */
+    public Iterable<E> tailSet(E fromElement) {
+        elementNotNullCheck(fromElement);
+        return () -> new TreeIterator(ceilingNode(fromElement, true), false, null);
+    }
+
+    private class TreeIterator implements Iterator<E> {
+        private Node<E> next;
+        private Node<E> lastReturned;
+        private final boolean descending;
+        // 升序迭代的上界（不包含），为null代表没有上界
+        private final E toElement;
+
+        TreeIterator(Node<E> first, boolean descending, E toElement) {
+            this.descending = descending;
+            this.toElement = toElement;
+            next = outOfRange(first) ? null : first;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            Node<E> node = descending ? predecessor(next) : successor(next);
+            next = outOfRange(node) ? null : node;
+            return lastReturned.element;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            // 度为2的节点被删除时，实际删除的是后继节点，后继节点的元素被移到了lastReturned中，
+            // 所以升序迭代的下一个节点变成了lastReturned
+            // （next为null说明后继节点已经超出了范围，仍然保持null）
+            if (!descending && lastReturned.hasTwoChildren() && next != null) {
+                next = lastReturned;
+            }
+            BST.this.remove(lastReturned);
+            lastReturned = null;
+        }
+
+        private boolean outOfRange(Node<E> node) {
+            return node == null || (toElement != null && compare(node.element, toElement) >= 0);
+        }
+    }
+
+    private Node<E> firstNode() {
+        Node<E> node = root;
+        if (node == null) {
+            return null;
+        }
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    private Node<E> lastNode() {
+        Node<E> node = root;
+        if (node == null) {
+            return null;
+        }
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
+
+    /**
+     * @param inclusive 为true时找小于等于element的最大节点，否则找小于element的最大节点
+     */
+    private Node<E> floorNode(E element, boolean inclusive) {
+        elementNotNullCheck(element);
+        Node<E> node = root;
+        Node<E> result = null;
+        while (node != null) {
+            int cmp = compare(element, node.element);
+            if (cmp == 0 && inclusive) {
+                return node;
+            }
+            if (cmp > 0) {
+                // node满足条件，再看右子树中有没有更大的
+                result = node;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param inclusive 为true时找大于等于element的最小节点，否则找大于element的最小节点
+     */
+    private Node<E> ceilingNode(E element, boolean inclusive) {
+        elementNotNullCheck(element);
+        Node<E> node = root;
+        Node<E> result = null;
+        while (node != null) {
+            int cmp = compare(element, node.element);
+            if (cmp == 0 && inclusive) {
+                return node;
+            }
+            if (cmp < 0) {
+                // node满足条件，再看左子树中有没有更小的
+                result = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return result;
+    }
+
+    private E elementOf(Node<E> node) {
+        return node == null ? null : node.element;
+    }
+
     /**
      * 根据元素查找对应的节点
      *
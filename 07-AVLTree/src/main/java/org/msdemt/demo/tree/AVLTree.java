@@ -39,6 +39,41 @@ public class AVLTree<E> extends BST<E> {
         }
     }
 
+    /**
+     * 根节点的高度就是树的高度，O(1)
+     *
+     * @return
+     */
+    @Override
+    public int height() {
+        return heightOf(root);
+    }
+
+    /**
+     * 高度是O(1)的：完全二叉树的高度只能是floor(log2(n)) + 1，高度不对直接返回false；
+     * 节点数量正好是2^height - 1时是满二叉树；其他情况才需要遍历
+     *
+     * @return
+     */
+    @Override
+    public boolean isComplete() {
+        if (root == null) return false;
+        int height = heightOf(root);
+        if (height != 32 - Integer.numberOfLeadingZeros(size)) return false;
+        if (size == (1 << height) - 1) return true;
+        return super.isComplete();
+    }
+
+    /**
+     * 旋转会改变整棵子树中每个节点的深度，不支持结构统计
+     *
+     * @return null
+     */
+    @Override
+    public TreeStats stats() {
+        return null;
+    }
+
     @Override
     protected Node<E> createNode(E element, Node<E> parent) {
         return new AVLNode<>(element, parent);
@@ -174,6 +209,10 @@ public class AVLTree<E> extends BST<E> {
         return Math.abs(((AVLNode<E>) node).balanceFactor()) <= 1;
     }
 
+    private int heightOf(Node<E> node) {
+        return node == null ? 0 : ((AVLNode<E>) node).height;
+    }
+
     private void updateHeight(Node<E> node) {
         ((AVLNode<E>) node).updateHeight();
     }
@@ -2,13 +2,30 @@ package org.msdemt.demo.tree;
 
 import org.msdemt.demo.printer.BinaryTreeInfo;
 
-import java.util.LinkedList;
-import java.util.Queue;
-
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 二叉树
+ *
+ * @param <E>
+ */
+@SuppressWarnings("unchecked")
 public class BinaryTree<E> implements BinaryTreeInfo {
 
     protected int size;
     protected Node<E> root;
+    // 并行遍历时，估计的子树节点数量小于这个值就不再拆分任务
+    private static final int PARALLEL_THRESHOLD = 1 << 12;
 
     public int size() {
         return size;
@@ -23,43 +40,171 @@ public class BinaryTree<E> implements BinaryTreeInfo {
         size = 0;
     }
 
+    /**
+     * 前序遍历
+     * <p>
+     * 沿着parent指针迭代，不使用递归和栈，退化成链表的树也不会栈溢出，额外空间O(1)
+     *
+     * @param visitor
+     */
     public void preorder(Visitor<E> visitor) {
-        if (visitor == null) return;
-        preorder(root, visitor);
+        if (visitor == null || visitor.stop) return;
+
+        Node<E> node = root;
+        while (node != null) {
+            visitor.stop = visitor.visit(node.element);
+            if (visitor.stop) return;
+            node = preorderNext(node);
+        }
     }
 
-    private void preorder(Node<E> node, Visitor<E> visitor) {
-        if (node == null || visitor.stop) return;
+    /**
+     * 前序遍历中node的下一个节点
+     */
+    private Node<E> preorderNext(Node<E> node) {
+        if (node.left != null) return node.left;
+        if (node.right != null) return node.right;
 
-        visitor.stop = visitor.visit(node.element);
-        preorder(node.left, visitor);
-        preorder(node.right, visitor);
+        // 叶子节点：往上找到第一个“从左子树上来、并且有右子树”的祖先，下一个节点是它的右子节点
+        while (node.parent != null && (node == node.parent.right || node.parent.right == null)) {
+            node = node.parent;
+        }
+        return node.parent == null ? null : node.parent.right;
     }
 
+    /**
+     * 中序遍历
+     * <p>
+     * 从最左边的节点开始，沿着successor（利用parent指针）依次访问，额外空间O(1)
+     *
+     * @param visitor
+     */
     public void inorder(Visitor<E> visitor) {
-        if (visitor == null) return;
-        inorder(root, visitor);
+        if (visitor == null || visitor.stop || root == null) return;
+
+        Node<E> node = root;
+        while (node.left != null) {
+            node = node.left;
+        }
+        while (node != null) {
+            visitor.stop = visitor.visit(node.element);
+            if (visitor.stop) return;
+            node = successor(node);
+        }
     }
 
-    private void inorder(Node<E> node, Visitor<E> visitor) {
-        if (node == null || visitor.stop) return;
+    /**
+     * 后序遍历
+     * <p>
+     * 沿着parent指针迭代，额外空间O(1)
+     *
+     * @param visitor
+     */
+    public void postorder(Visitor<E> visitor) {
+        if (visitor == null || visitor.stop || root == null) return;
+
+        Node<E> node = firstPostorder(root);
+        while (node != null) {
+            visitor.stop = visitor.visit(node.element);
+            if (visitor.stop) return;
+
+            Node<E> parent = node.parent;
+            if (parent != null && node == parent.left && parent.right != null) {
+                // 左子树访问完了，接着访问右子树
+                node = firstPostorder(parent.right);
+            } else {
+                // 右子树（或者唯一的子树）访问完了，接着访问父节点
+                node = parent;
+            }
+        }
+    }
 
-        inorder(node.left, visitor);
-        if (visitor.stop) return;
-        visitor.stop = visitor.visit(node.element);
-        inorder(node.right, visitor);
+    /**
+     * 以node为根的子树中，后序遍历第一个访问的节点：一直往下走，优先走左边
+     */
+    private Node<E> firstPostorder(Node<E> node) {
+        while (true) {
+            if (node.left != null) {
+                node = node.left;
+            } else if (node.right != null) {
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
     }
 
-    public void postorder(Visitor<E> visitor) {
-        if (visitor == null) return;
-        postorder(root, visitor);
+    /**
+     * Morris中序遍历
+     * <p>
+     * 不用栈、不用parent指针，也不分配对象：访问左子树之前，把当前节点的前驱（左子树中最右的节点）的right
+     * 临时指向当前节点，左子树访问完之后沿着这条线索回到当前节点，同时把right恢复为null。
+     * 每条边最多经过3次，时间O(n)，额外空间O(1)
+     * <p>
+     * 遍历过程中会临时修改树的结构，不能和其他读操作并发；visitor提前停止时，会继续走完剩下的路径（不再访问元素），把树恢复原样
+     *
+     * @param visitor
+     */
+    public void morrisInorder(Visitor<E> visitor) {
+        if (visitor == null || visitor.stop) return;
+
+        Node<E> node = root;
+        while (node != null) {
+            if (node.left == null) {
+                visit(node, visitor);
+                node = node.right;
+                continue;
+            }
+
+            Node<E> predecessor = node.left;
+            while (predecessor.right != null && predecessor.right != node) {
+                predecessor = predecessor.right;
+            }
+            if (predecessor.right == null) {
+                // 第一次到达node：建立线索，先访问左子树
+                predecessor.right = node;
+                node = node.left;
+            } else {
+                // 沿着线索回到node：左子树已经访问完，拆除线索
+                predecessor.right = null;
+                visit(node, visitor);
+                node = node.right;
+            }
+        }
     }
 
-    private void postorder(Node<E> node, Visitor<E> visitor) {
-        if (node == null || visitor.stop) return;
+    /**
+     * Morris前序遍历，与morrisInorder的区别只是在第一次到达节点（建立线索）时访问
+     *
+     * @param visitor
+     */
+    public void morrisPreorder(Visitor<E> visitor) {
+        if (visitor == null || visitor.stop) return;
+
+        Node<E> node = root;
+        while (node != null) {
+            if (node.left == null) {
+                visit(node, visitor);
+                node = node.right;
+                continue;
+            }
 
-        postorder(node.left, visitor);
-        postorder(node.right, visitor);
+            Node<E> predecessor = node.left;
+            while (predecessor.right != null && predecessor.right != node) {
+                predecessor = predecessor.right;
+            }
+            if (predecessor.right == null) {
+                visit(node, visitor);
+                predecessor.right = node;
+                node = node.left;
+            } else {
+                predecessor.right = null;
+                node = node.right;
+            }
+        }
+    }
+
+    private void visit(Node<E> node, Visitor<E> visitor) {
         if (visitor.stop) return;
         visitor.stop = visitor.visit(node.element);
     }
@@ -67,12 +212,14 @@ public class BinaryTree<E> implements BinaryTreeInfo {
     public void levelOrder(Visitor<E> visitor) {
         if (root == null || visitor == null) return;
 
-        Queue<Node<E>> queue = new LinkedList<>();
+        NodeQueue<E> queue = new NodeQueue<>();
         queue.offer(root);
 
         while (!queue.isEmpty()) {
             Node<E> node = queue.poll();
-            if (visitor.visit(node.element)) return;
+            if (visitor.visit(node.element)) {
+                return;
+            }
 
             if (node.left != null) {
                 queue.offer(node.left);
@@ -86,13 +233,15 @@ public class BinaryTree<E> implements BinaryTreeInfo {
 
     public boolean isComplete() {
         if (root == null) return false;
-        Queue<Node<E>> queue = new LinkedList<>();
+        NodeQueue<E> queue = new NodeQueue<>();
         queue.offer(root);
 
         boolean leaf = false;
         while (!queue.isEmpty()) {
             Node<E> node = queue.poll();
-            if (leaf && !node.isLeaf()) return false;
+            if (leaf && !node.isLeaf()) {
+                return false;
+            }
 
             if (node.left != null) {
                 queue.offer(node.left);
@@ -115,7 +264,7 @@ public class BinaryTree<E> implements BinaryTreeInfo {
 
         int height = 0;
         int levelSize = 1;
-        Queue<Node<E>> queue = new LinkedList<>();
+        NodeQueue<E> queue = new NodeQueue<>();
         queue.offer(root);
 
         while (!queue.isEmpty()) {
@@ -135,20 +284,352 @@ public class BinaryTree<E> implements BinaryTreeInfo {
         return height;
     }
 
+    /**
+     * 二叉树的高度
+     * <p>
+     * 按前序遍历的路线沿着parent指针走一遍，同时记录当前深度，额外空间O(1)
+     *
+     * @return
+     */
     public int height2() {
-        return height(root);
+        int height = 0;
+        int depth = 0;
+        Node<E> node = root;
+        while (node != null) {
+            depth++;
+            if (depth > height) {
+                height = depth;
+            }
+
+            if (node.left != null) {
+                node = node.left;
+            } else if (node.right != null) {
+                node = node.right;
+            } else {
+                while (node.parent != null && (node == node.parent.right || node.parent.right == null)) {
+                    node = node.parent;
+                    depth--;
+                }
+                if (node.parent == null) break;
+                // 转到兄弟节点，深度不变（循环开头会加1）
+                node = node.parent.right;
+                depth--;
+            }
+        }
+        return height;
+    }
+
+
+    /**
+     * 并行归约：按中序的顺序，每个子树任务从identity开始用accumulator累加，再用combiner按顺序合并
+     * <p>
+     * 按子树拆分任务：深度小于forkDepth的节点把左子树交给其他线程，自己处理当前节点和右子树。
+     * 节点中没有子树的节点数量，按平衡树估计第depth层的子树有 size >> depth 个节点，
+     * 估计值小于PARALLEL_THRESHOLD之后就在当前线程中顺序遍历（退化的树上各个任务的大小会不均匀）。
+     * 遍历期间不能修改这棵树
+     *
+     * @param identity    combiner的单位元
+     * @param accumulator
+     * @param combiner    必须满足结合律
+     * @return
+     */
+    public <R> R parallelReduce(R identity, BiFunction<R, ? super E, R> accumulator, BinaryOperator<R> combiner) {
+        return parallelReduce(identity, accumulator, combiner, ForkJoinPool.commonPool());
+    }
+
+    public <R> R parallelReduce(R identity, BiFunction<R, ? super E, R> accumulator, BinaryOperator<R> combiner,
+                                ForkJoinPool pool) {
+        Objects.requireNonNull(accumulator);
+        Objects.requireNonNull(combiner);
+        if (root == null) return identity;
+        return pool.invoke(new ReduceTask<>(root, 0, forkDepth(size, PARALLEL_THRESHOLD), identity, accumulator, combiner));
+    }
+
+    /**
+     * 并行地对每个元素执行action，不保证顺序，action会被多个线程同时调用
+     *
+     * @param action
+     */
+    public void parallelForEach(Consumer<? super E> action) {
+        parallelForEach(action, ForkJoinPool.commonPool());
+    }
+
+    public void parallelForEach(Consumer<? super E> action, ForkJoinPool pool) {
+        Objects.requireNonNull(action);
+        if (root == null) return;
+        pool.invoke(new ForEachTask<>(root, 0, forkDepth(size, PARALLEL_THRESHOLD), action));
+    }
+
+    /**
+     * 并行统计满足predicate的元素数量
+     *
+     * @param predicate
+     * @return
+     */
+    public long parallelCount(Predicate<? super E> predicate) {
+        return parallelCount(predicate, ForkJoinPool.commonPool());
+    }
+
+    public long parallelCount(Predicate<? super E> predicate, ForkJoinPool pool) {
+        Objects.requireNonNull(predicate);
+        if (root == null) return 0;
+        return pool.invoke(new CountTask<>(root, 0, forkDepth(size, PARALLEL_THRESHOLD), predicate));
+    }
+
+    /**
+     * 按中序的顺序，可以拆分给stream().parallel()使用
+     *
+     * @return
+     */
+    public Spliterator<E> spliterator() {
+        return new TreeSpliterator<>(null, root, size);
+    }
+
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * @return 估计的子树节点数量 (size >> depth) 不小于threshold的深度都要拆分任务
+     */
+    protected static int forkDepth(long size, int threshold) {
+        int forkDepth = 0;
+        for (long n = size; n >= threshold; n >>= 1) {
+            forkDepth++;
+        }
+        return forkDepth;
+    }
+
+    /**
+     * @return subtree中序遍历的第一个节点
+     */
+    private static <E> Node<E> firstInorder(Node<E> subtree) {
+        while (subtree.left != null) {
+            subtree = subtree.left;
+        }
+        return subtree;
     }
 
-    private int height(Node<E> node) {
-        if (node == null) return 0;
-        return 1 + Math.max(height(node.left), height(node.right));
+    /**
+     * 利用parent指针找node的中序后继，不会走出subtree
+     *
+     * @return subtree中node之后的节点，node是subtree中最后一个节点时返回null
+     */
+    private static <E> Node<E> nextInorder(Node<E> node, Node<E> subtree) {
+        if (node.right != null) return firstInorder(node.right);
+        while (node != subtree && node == node.parent.right) {
+            node = node.parent;
+        }
+        return node == subtree ? null : node.parent;
+    }
+
+    private static class ReduceTask<E, R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final Node<E> node;
+        private final int depth;
+        private final int forkDepth;
+        private final R identity;
+        private final BiFunction<R, ? super E, R> accumulator;
+        private final BinaryOperator<R> combiner;
+
+        ReduceTask(Node<E> node, int depth, int forkDepth, R identity,
+                   BiFunction<R, ? super E, R> accumulator, BinaryOperator<R> combiner) {
+            this.node = node;
+            this.depth = depth;
+            this.forkDepth = forkDepth;
+            this.identity = identity;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute() {
+            if (depth >= forkDepth) {
+                R result = identity;
+                for (Node<E> next = firstInorder(node); next != null; next = nextInorder(next, node)) {
+                    result = accumulator.apply(result, next.element);
+                }
+                return result;
+            }
+
+            ReduceTask<E, R> left = null;
+            if (node.left != null) {
+                left = new ReduceTask<>(node.left, depth + 1, forkDepth, identity, accumulator, combiner);
+                left.fork();
+            }
+            R result = accumulator.apply(identity, node.element);
+            if (node.right != null) {
+                R right = new ReduceTask<>(node.right, depth + 1, forkDepth, identity, accumulator, combiner).compute();
+                result = combiner.apply(result, right);
+            }
+            return left == null ? result : combiner.apply(left.join(), result);
+        }
+    }
+
+    private static class ForEachTask<E> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Node<E> node;
+        private final int depth;
+        private final int forkDepth;
+        private final Consumer<? super E> action;
+
+        ForEachTask(Node<E> node, int depth, int forkDepth, Consumer<? super E> action) {
+            this.node = node;
+            this.depth = depth;
+            this.forkDepth = forkDepth;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (depth >= forkDepth) {
+                for (Node<E> next = firstInorder(node); next != null; next = nextInorder(next, node)) {
+                    action.accept(next.element);
+                }
+                return;
+            }
+
+            ForEachTask<E> left = null;
+            if (node.left != null) {
+                left = new ForEachTask<>(node.left, depth + 1, forkDepth, action);
+                left.fork();
+            }
+            action.accept(node.element);
+            if (node.right != null) {
+                new ForEachTask<>(node.right, depth + 1, forkDepth, action).compute();
+            }
+            if (left != null) {
+                left.join();
+            }
+        }
+    }
+
+    private static class CountTask<E> extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Node<E> node;
+        private final int depth;
+        private final int forkDepth;
+        private final Predicate<? super E> predicate;
+
+        CountTask(Node<E> node, int depth, int forkDepth, Predicate<? super E> predicate) {
+            this.node = node;
+            this.depth = depth;
+            this.forkDepth = forkDepth;
+            this.predicate = predicate;
+        }
+
+        @Override
+        protected Long compute() {
+            long count = 0;
+            if (depth >= forkDepth) {
+                for (Node<E> next = firstInorder(node); next != null; next = nextInorder(next, node)) {
+                    if (predicate.test(next.element)) {
+                        count++;
+                    }
+                }
+                return count;
+            }
+
+            CountTask<E> left = null;
+            if (node.left != null) {
+                left = new CountTask<>(node.left, depth + 1, forkDepth, predicate);
+                left.fork();
+            }
+            if (predicate.test(node.element)) {
+                count++;
+            }
+            if (node.right != null) {
+                count += new CountTask<>(node.right, depth + 1, forkDepth, predicate).compute();
+            }
+            return left == null ? count : count + left.join();
+        }
     }
 
+    /**
+     * 按中序遍历的Spliterator：先返回first（可以为null），再按中序返回subtree中的元素
+     * <p>
+     * 拆分时分出去 first + subtree的左子树，自己保留 subtree的根节点 + 右子树，估计两边各占一半
+     */
+    private static class TreeSpliterator<E> implements Spliterator<E> {
+        private Node<E> first;
+        private Node<E> subtree;
+        private long estimatedSize;
+        // 开始遍历subtree之后不再拆分
+        private boolean started;
+        private Node<E> next;
+
+        TreeSpliterator(Node<E> first, Node<E> subtree, long estimatedSize) {
+            this.first = first;
+            this.subtree = subtree;
+            this.estimatedSize = estimatedSize;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            if (first != null) {
+                E element = first.element;
+                first = null;
+                action.accept(element);
+                return true;
+            }
+            if (!started) {
+                started = true;
+                next = subtree == null ? null : firstInorder(subtree);
+            }
+            if (next == null) return false;
+
+            Node<E> node = next;
+            next = nextInorder(node, subtree);
+            action.accept(node.element);
+            return true;
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            if (started || subtree == null) return null;
+            if (first == null && subtree.left == null) {
+                // 左边没有可以分出去的元素，先把根节点当作first
+                first = subtree;
+                subtree = subtree.right;
+                if (subtree == null) return null;
+            }
+
+            TreeSpliterator<E> prefix = new TreeSpliterator<>(first, subtree.left, estimatedSize >>> 1);
+            first = subtree;
+            subtree = subtree.right;
+            estimatedSize -= prefix.estimatedSize;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimatedSize;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
 
     protected Node<E> createNode(E element, Node<E> parent) {
         return new Node<>(element, parent);
     }
 
+    /**
+     * 获取node的前驱节点
+     *
+     * @param node
+     * @return
+     */
     protected Node<E> predecessor(Node<E> node) {
         if (node == null) return null;
 
@@ -184,10 +665,63 @@ public class BinaryTree<E> implements BinaryTreeInfo {
     }
 
 
+    /**
+     * 层序遍历、height、isComplete使用的环形队列
+     * <p>
+     * 容量是2的幂，遍历时不再为每个节点分配链表节点。
+     * 每次遍历创建一个，不保存在树中：在Visitor中再调用height、isComplete，或者多个线程同时遍历，都互不影响
+     *
+     * @param <E>
+     */
+    private static class NodeQueue<E> {
+        @SuppressWarnings("unchecked")
+        private Node<E>[] elements = (Node<E>[]) new Node<?>[16];
+        // head、tail单调递增，用 & mask 得到数组下标
+        private int head;
+        private int tail;
+
+        boolean isEmpty() {
+            return head == tail;
+        }
+
+        int size() {
+            return tail - head;
+        }
+
+        void offer(Node<E> node) {
+            if (tail - head == elements.length) {
+                grow();
+            }
+            elements[tail++ & (elements.length - 1)] = node;
+        }
+
+        Node<E> poll() {
+            int index = head++ & (elements.length - 1);
+            Node<E> node = elements[index];
+            // 不再引用已经出队的节点，避免被删除的节点无法回收
+            elements[index] = null;
+            return node;
+        }
+
+        private void grow() {
+            int size = tail - head;
+            int front = head & (elements.length - 1);
+            @SuppressWarnings("unchecked")
+            Node<E>[] newElements = (Node<E>[]) new Node<?>[elements.length << 1];
+            // 最多分两段拷贝：front到数组末尾、数组开头到rear
+            int firstPart = Math.min(size, elements.length - front);
+            System.arraycopy(elements, front, newElements, 0, firstPart);
+            System.arraycopy(elements, 0, newElements, firstPart, size - firstPart);
+            elements = newElements;
+            head = 0;
+            tail = size;
+        }
+    }
+
     public static abstract class Visitor<E> {
         boolean stop;
 
-        abstract boolean visit(E element);
+        public abstract boolean visit(E element);
     }
 
     protected static class Node<E> {
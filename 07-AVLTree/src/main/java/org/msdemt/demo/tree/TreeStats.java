@@ -0,0 +1,145 @@
+package org.msdemt.demo.tree;
+
+import java.util.Arrays;
+
+/**
+ * 二叉树的结构统计：节点数量、叶子节点数量、每一层的节点数量、最大深度
+ * <p>
+ * 由BST在添加、删除节点时增量维护，见{@link BST#stats()}；
+ * 对外返回的是快照，之后对树的修改不会反映到快照上
+ */
+public class TreeStats {
+    // levelCounts[i]是第i层（根节点在第0层）的节点数量
+    private int[] levelCounts;
+    private int size;
+    private int leafCount;
+    // 最深的节点所在的层，空树为-1
+    private int maxDepth = -1;
+
+    TreeStats() {
+        levelCounts = new int[16];
+    }
+
+    private TreeStats(TreeStats stats) {
+        levelCounts = Arrays.copyOf(stats.levelCounts, stats.maxDepth + 1);
+        size = stats.size;
+        leafCount = stats.leafCount;
+        maxDepth = stats.maxDepth;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int leafCount() {
+        return leafCount;
+    }
+
+    /**
+     * @return 最深的节点所在的层（根节点在第0层），空树为-1
+     */
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    public int height() {
+        return maxDepth + 1;
+    }
+
+    /**
+     * @param level 根节点在第0层
+     * @return 第level层的节点数量
+     */
+    public int levelCount(int level) {
+        return level < 0 || level > maxDepth ? 0 : levelCounts[level];
+    }
+
+    /**
+     * 从第0层开始连续填满的层数，O(height)
+     *
+     * @return 等于height时是满二叉树
+     */
+    public int fullLevels() {
+        int level = 0;
+        // 填满第31层需要2^31个节点，不可能
+        while (level <= maxDepth && level < 31 && levelCounts[level] == 1 << level) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * 第depth层多了一个节点
+     *
+     * @param depth
+     * @param leaf  这个节点是否为叶子节点
+     */
+    void add(int depth, boolean leaf) {
+        if (depth >= levelCounts.length) {
+            levelCounts = Arrays.copyOf(levelCounts, Math.max(depth + 1, levelCounts.length << 1));
+        }
+        levelCounts[depth]++;
+        size++;
+        if (leaf) {
+            leafCount++;
+        }
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+    }
+
+    /**
+     * 第depth层少了一个节点
+     *
+     * @param depth
+     * @param leaf  这个节点是否为叶子节点
+     */
+    void remove(int depth, boolean leaf) {
+        levelCounts[depth]--;
+        size--;
+        if (leaf) {
+            leafCount--;
+        }
+        // 最底下的几层可能都空了
+        while (maxDepth >= 0 && levelCounts[maxDepth] == 0) {
+            maxDepth--;
+        }
+    }
+
+    /**
+     * 某个节点从叶子节点变成非叶子节点（-1），或者相反（+1）
+     *
+     * @param delta
+     */
+    void addLeafCount(int delta) {
+        leafCount += delta;
+    }
+
+    void clear() {
+        Arrays.fill(levelCounts, 0, maxDepth + 1, 0);
+        size = 0;
+        leafCount = 0;
+        maxDepth = -1;
+    }
+
+    TreeStats copy() {
+        return new TreeStats(this);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        string.append("size=").append(size)
+                .append(" height=").append(height())
+                .append(" leaves=").append(leafCount)
+                .append(", [");
+        for (int i = 0; i <= maxDepth; i++) {
+            if (i != 0) {
+                string.append(", ");
+            }
+            string.append(levelCounts[i]);
+        }
+        string.append("]");
+        return string.toString();
+    }
+}
@@ -0,0 +1,11 @@
+package org.msdemt.demo;
+
+public class Asserts {
+	public static void test(boolean value) {
+		try {
+			if (!value) throw new Exception("测试未通过");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -1,12 +1,41 @@
 package org.msdemt.demo;
 
+import org.msdemt.demo.printer.BinaryTreeInfo;
 import org.msdemt.demo.printer.BinaryTrees;
 import org.msdemt.demo.tree.AVLTree;
+import org.msdemt.demo.tree.BBST;
 import org.msdemt.demo.tree.BST;
+import org.msdemt.demo.tree.BinaryTree;
+import org.msdemt.demo.tree.BinaryTree.Visitor;
+import org.msdemt.demo.tree.IntAVLTree;
+import org.msdemt.demo.tree.IntRBTree;
+import org.msdemt.demo.tree.LongRBTree;
 import org.msdemt.demo.tree.RBTree;
+import org.msdemt.demo.tree.TreeMap;
+import org.msdemt.demo.tree.TreeStats;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 
 @SuppressWarnings("unused")
@@ -99,7 +128,1452 @@ public class Main {
         }
     }
 
-    public static void main(String[] args) {
-        test4();
+    /**
+     * 迭代遍历与原来的递归遍历结果一致，Visitor返回true时立即停止
+     */
+    static void test5() {
+        Integer data[] = new Integer[]{
+                7, 4, 9, 2, 5, 8, 11, 3, 12, 1
+        };
+        BST<Integer> bst = new BST<>();
+        for (int i = 0; i < data.length; i++) {
+            bst.add(data[i]);
+        }
+
+        Asserts.test(preorder(bst, null).equals(Arrays.asList(7, 4, 2, 1, 3, 5, 9, 8, 11, 12)));
+        Asserts.test(inorder(bst, null).equals(Arrays.asList(1, 2, 3, 4, 5, 7, 8, 9, 11, 12)));
+        Asserts.test(postorder(bst, null).equals(Arrays.asList(1, 3, 2, 5, 4, 8, 12, 11, 9, 7)));
+        Asserts.test(preorder(bst, 5).equals(Arrays.asList(7, 4, 2, 1, 3, 5)));
+        Asserts.test(inorder(bst, 4).equals(Arrays.asList(1, 2, 3, 4)));
+        Asserts.test(postorder(bst, 4).equals(Arrays.asList(1, 3, 2, 5, 4)));
+        Asserts.test(bst.height2() == 4 && bst.height() == 4);
+
+        Asserts.test(preorder(new BST<>(), null).isEmpty() && new BST<Integer>().height2() == 0);
+    }
+
+    /**
+     * 升序插入的BST退化成链表，遍历和height2不会栈溢出
+     */
+    static void test6() {
+        int n = 5_0000;
+        BST<Integer> bst = new BST<>();
+        for (int i = 0; i < n; i++) {
+            bst.add(i);
+        }
+        Asserts.test(preorder(bst, null).size() == n);
+        Asserts.test(inorder(bst, null).size() == n);
+        Asserts.test(postorder(bst, null).get(0) == n - 1);
+        Asserts.test(bst.height2() == n && bst.height() == n);
+
+        AVLTree<Integer> avl = new AVLTree<>();
+        for (int i = 0; i < n; i++) {
+            avl.add(i);
+        }
+        Asserts.test(inorder(avl, null).size() == n && avl.height2() == avl.height());
+
+        RBTree<Integer> rb = new RBTree<>();
+        for (int i = 0; i < n; i++) {
+            rb.add(i);
+        }
+        Asserts.test(inorder(rb, null).size() == n && rb.height2() == rb.height());
+    }
+
+    private static List<Integer> preorder(BinaryTree<Integer> tree, Integer stopAt) {
+        List<Integer> list = new ArrayList<>();
+        tree.preorder(collector(list, stopAt));
+        return list;
+    }
+
+    private static List<Integer> inorder(BinaryTree<Integer> tree, Integer stopAt) {
+        List<Integer> list = new ArrayList<>();
+        tree.inorder(collector(list, stopAt));
+        return list;
+    }
+
+    private static List<Integer> postorder(BinaryTree<Integer> tree, Integer stopAt) {
+        List<Integer> list = new ArrayList<>();
+        tree.postorder(collector(list, stopAt));
+        return list;
+    }
+
+    /**
+     * 把访问到的元素放入list，访问到stopAt时停止
+     */
+    private static Visitor<Integer> collector(List<Integer> list, Integer stopAt) {
+        return new Visitor<Integer>() {
+            @Override
+            public boolean visit(Integer element) {
+                list.add(element);
+                return element.equals(stopAt);
+            }
+        };
+    }
+
+    /**
+     * Morris遍历的结果与迭代遍历一致，提前停止之后树的结构被恢复；层序遍历使用环形队列之后结果不变
+     */
+    static void test7() {
+        Random random = new Random(1);
+        RBTree<Integer> tree = new RBTree<>();
+        for (int i = 0; i < 1000; i++) {
+            tree.add(random.nextInt(10000));
+        }
+        List<Integer> inorder = inorder(tree, null);
+        List<Integer> preorder = preorder(tree, null);
+
+        List<Integer> list = new ArrayList<>();
+        tree.morrisInorder(collector(list, null));
+        Asserts.test(list.equals(inorder));
+        list = new ArrayList<>();
+        tree.morrisPreorder(collector(list, null));
+        Asserts.test(list.equals(preorder));
+
+        for (int i = 0; i < 50; i++) {
+            Integer stopAt = inorder.get(random.nextInt(inorder.size()));
+            list = new ArrayList<>();
+            tree.morrisInorder(collector(list, stopAt));
+            Asserts.test(list.equals(inorder.subList(0, inorder.indexOf(stopAt) + 1)));
+            list = new ArrayList<>();
+            tree.morrisPreorder(collector(list, stopAt));
+            Asserts.test(list.equals(preorder.subList(0, preorder.indexOf(stopAt) + 1)));
+            // 线索都被拆除了
+            Asserts.test(inorder(tree, null).equals(inorder) && preorder(tree, null).equals(preorder));
+        }
+
+        list = new ArrayList<>();
+        tree.levelOrder(collector(list, null));
+        Asserts.test(list.size() == tree.size() && list.get(0).equals(preorder.get(0)));
+        Asserts.test(tree.height() == tree.height2());
+
+        Integer data[] = new Integer[]{
+                7, 4, 9, 2, 5, 8, 11
+        };
+        BST<Integer> bst = new BST<>();
+        for (int i = 0; i < data.length; i++) {
+            bst.add(data[i]);
+        }
+        Asserts.test(bst.isComplete());
+        bst.add(1);
+        Asserts.test(bst.isComplete());
+        bst.add(12);
+        Asserts.test(!bst.isComplete());
+    }
+
+    /**
+     * 200万个节点的红黑树：原来基于java.util.LinkedList的层序遍历与环形队列、迭代中序遍历、Morris中序遍历对比，
+     * 同时统计每次遍历分配的字节数
+     */
+    static void test8() {
+        int n = 200_0000;
+        RBTree<Integer> rb = new RBTree<>();
+        for (int i = 0; i < n; i++) {
+            rb.add(i);
+        }
+        long[] sum = new long[1];
+        Visitor<Integer> visitor = new Visitor<Integer>() {
+            @Override
+            public boolean visit(Integer element) {
+                sum[0] += element;
+                return false;
+            }
+        };
+
+        benchmarkTraversal("LinkedList层序遍历（原来的实现）", () -> sum[0] += linkedListLevelOrder(rb));
+        benchmarkTraversal("环形队列层序遍历", () -> rb.levelOrder(visitor));
+        benchmarkTraversal("parent指针中序遍历", () -> rb.inorder(visitor));
+        benchmarkTraversal("Morris中序遍历", () -> rb.morrisInorder(visitor));
+        benchmarkTraversal("Morris前序遍历", () -> rb.morrisPreorder(visitor));
+        benchmarkTraversal("height", () -> sum[0] += rb.height());
+        System.out.println(sum[0]);
+    }
+
+    /**
+     * 通过BinaryTreeInfo访问节点，重现原来每次遍历都new一个java.util.LinkedList的层序遍历
+     *
+     * @return 节点数量
+     */
+    private static long linkedListLevelOrder(BinaryTreeInfo tree) {
+        long count = 0;
+        Queue<Object> queue = new LinkedList<>();
+        queue.offer(tree.root());
+        while (!queue.isEmpty()) {
+            Object node = queue.poll();
+            count++;
+            Object left = tree.left(node);
+            if (left != null) queue.offer(left);
+            Object right = tree.right(node);
+            if (right != null) queue.offer(right);
+        }
+        return count;
+    }
+
+    private static void benchmarkTraversal(String title, Runnable traversal) {
+        // 热身
+        for (int i = 0; i < 3; i++) traversal.run();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        boolean allocation = threads instanceof com.sun.management.ThreadMXBean;
+        long threadId = Thread.currentThread().getId();
+        int rounds = 10;
+        Times.test(title, () -> {
+            long bytes = allocation ? ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threadId) : 0;
+            for (int i = 0; i < rounds; i++) traversal.run();
+            if (allocation) {
+                bytes = ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threadId) - bytes;
+                System.out.println(String.format("每次遍历分配：%.1fMB", bytes / (double) rounds / (1 << 20)));
+            }
+        });
+    }
+
+    /**
+     * 导航方法、迭代器、范围视图与java.util.TreeSet的结果一致
+     */
+    static void test9() {
+        checkNavigation(new BST<>());
+        checkNavigation(new AVLTree<>());
+        checkNavigation(new RBTree<>());
+    }
+
+    private static void checkNavigation(BST<Integer> tree) {
+        Random random = new Random(1);
+        TreeSet<Integer> expected = new TreeSet<>();
+        Asserts.test(tree.first() == null && tree.last() == null && !tree.iterator().hasNext());
+        for (int i = 0; i < 2000; i++) {
+            int value = random.nextInt(5000) * 2;
+            tree.add(value);
+            expected.add(value);
+        }
+
+        Asserts.test(tree.first().equals(expected.first()) && tree.last().equals(expected.last()));
+        for (int i = -2; i < 10002; i++) {
+            Asserts.test(Objects.equals(tree.floor(i), expected.floor(i)));
+            Asserts.test(Objects.equals(tree.ceiling(i), expected.ceiling(i)));
+            Asserts.test(Objects.equals(tree.lower(i), expected.lower(i)));
+            Asserts.test(Objects.equals(tree.higher(i), expected.higher(i)));
+        }
+
+        Asserts.test(toList(tree).equals(new ArrayList<>(expected)));
+        List<Integer> descending = new ArrayList<>();
+        tree.descendingIterator().forEachRemaining(descending::add);
+        Asserts.test(descending.equals(new ArrayList<>(expected.descendingSet())));
+
+        for (int i = 0; i < 200; i++) {
+            int from = random.nextInt(10002) - 1;
+            int to = from + random.nextInt(500);
+            Asserts.test(toList(tree.subSet(from, to)).equals(new ArrayList<>(expected.subSet(from, to))));
+            Asserts.test(toList(tree.headSet(to)).equals(new ArrayList<>(expected.headSet(to))));
+            Asserts.test(toList(tree.tailSet(from)).equals(new ArrayList<>(expected.tailSet(from))));
+        }
+
+        // 通过迭代器删除一个范围内的偶数位置元素，包括度为2的节点
+        Iterator<Integer> iterator = tree.subSet(2000, 8000).iterator();
+        Iterator<Integer> expectedIterator = expected.subSet(2000, 8000).iterator();
+        boolean remove = true;
+        while (iterator.hasNext()) {
+            Asserts.test(iterator.next().equals(expectedIterator.next()));
+            if (remove) {
+                iterator.remove();
+                expectedIterator.remove();
+            }
+            remove = !remove;
+        }
+        Asserts.test(!expectedIterator.hasNext());
+        iterator = tree.descendingIterator();
+        expectedIterator = expected.descendingIterator();
+        while (iterator.hasNext()) {
+            Asserts.test(iterator.next().equals(expectedIterator.next()));
+            if (random.nextInt(3) == 0) {
+                iterator.remove();
+                expectedIterator.remove();
+            }
+        }
+        Asserts.test(tree.size() == expected.size() && toList(tree).equals(new ArrayList<>(expected)));
+    }
+
+    private static List<Integer> toList(Iterable<Integer> iterable) {
+        List<Integer> list = new ArrayList<>();
+        for (Integer element : iterable) {
+            list.add(element);
+        }
+        return list;
+    }
+
+    /**
+     * 100万个元素中取100个元素的范围：subSet只访问范围内的元素，Visitor需要从最小的元素开始访问
+     */
+    static void test10() {
+        RBTree<Integer> rb = new RBTree<>();
+        for (int i = 0; i < 100_0000; i++) {
+            rb.add(i);
+        }
+        int from = 90_0000;
+        int to = from + 100;
+        int rounds = 1000;
+
+        Times.test("subSet", () -> {
+            long sum = 0;
+            for (int i = 0; i < rounds; i++) {
+                for (Integer element : rb.subSet(from, to)) {
+                    sum += element;
+                }
+            }
+            System.out.println(sum);
+        });
+        Times.test("inorder + Visitor", () -> {
+            long[] sum = new long[1];
+            for (int i = 0; i < rounds; i++) {
+                rb.inorder(new Visitor<Integer>() {
+                    @Override
+                    public boolean visit(Integer element) {
+                        if (element >= to) return true;
+                        if (element >= from) sum[0] += element;
+                        return false;
+                    }
+                });
+            }
+            System.out.println(sum[0]);
+        });
+    }
+
+    /**
+     * 开启顺序统计后，rank、select、countRange与排序后的列表一致，添加、删除（包括旋转）之后仍然正确
+     */
+    static void test11() {
+        checkOrderStatistic(new BST<>(null, true));
+        checkOrderStatistic(new AVLTree<>(null, true));
+        checkOrderStatistic(new RBTree<>(null, true));
+
+        RBTree<Integer> disabled = new RBTree<>();
+        disabled.add(1);
+        try {
+            disabled.rank(1);
+            Asserts.test(false);
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    private static void checkOrderStatistic(BST<Integer> tree) {
+        Random random = new Random(1);
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int round = 0; round < 20; round++) {
+            // 添加多于删除，树的规模逐渐变大
+            for (int i = 0; i < 300; i++) {
+                int value = random.nextInt(10000);
+                tree.add(value);
+                expected.add(value);
+            }
+            for (int i = 0; i < 200; i++) {
+                int value = random.nextInt(10000);
+                tree.remove(value);
+                expected.remove(value);
+            }
+
+            List<Integer> sorted = new ArrayList<>(expected);
+            Asserts.test(tree.size() == sorted.size());
+            for (int i = 0; i < sorted.size(); i++) {
+                Asserts.test(tree.select(i).equals(sorted.get(i)));
+                Asserts.test(tree.rank(sorted.get(i)) == i);
+            }
+            for (int i = 0; i < 100; i++) {
+                int from = random.nextInt(10002) - 1;
+                int to = from + random.nextInt(2000);
+                Asserts.test(tree.rank(from) == expected.headSet(from).size());
+                Asserts.test(tree.countRange(from, to) == expected.subSet(from, to).size());
+            }
+        }
+        try {
+            tree.select(tree.size());
+            Asserts.test(false);
+        } catch (IndexOutOfBoundsException e) {
+        }
+    }
+
+    /**
+     * 顺序统计的维护开销：100万个随机元素的添加、删除，开启与不开启对比
+     */
+    static void test12() {
+        int n = 100_0000;
+        Random random = new Random(1);
+        int[] data = new int[n];
+        for (int i = 0; i < n; i++) {
+            data[i] = random.nextInt();
+        }
+
+        benchmarkOrderStatistic("AVLTree", new AVLTree<>(), data);
+        benchmarkOrderStatistic("AVLTree（顺序统计）", new AVLTree<>(null, true), data);
+        benchmarkOrderStatistic("RBTree", new RBTree<>(), data);
+        benchmarkOrderStatistic("RBTree（顺序统计）", new RBTree<>(null, true), data);
+    }
+
+    private static void benchmarkOrderStatistic(String title, BST<Integer> tree, int[] data) {
+        Times.test(title + " 添加", () -> {
+            for (int value : data) {
+                tree.add(value);
+            }
+        });
+        if (tree.isOrderStatistic()) {
+            Times.test(title + " rank + select", () -> {
+                long sum = 0;
+                for (int i = 0; i < data.length; i++) {
+                    sum += tree.rank(data[i]);
+                    sum += tree.select(i % tree.size());
+                }
+                System.out.println(sum);
+            });
+        }
+        Times.test(title + " 删除", () -> {
+            for (int value : data) {
+                tree.remove(value);
+            }
+        });
+    }
+
+    /**
+     * TreeMap与java.util.TreeMap的结果一致
+     */
+    static void test13() {
+        Random random = new Random(1);
+        TreeMap<Integer, String> map = new TreeMap<>();
+        java.util.TreeMap<Integer, String> expected = new java.util.TreeMap<>();
+        for (int i = 0; i < 20_0000; i++) {
+            int key = random.nextInt(5000);
+            String value = "v" + random.nextInt(100);
+            switch (random.nextInt(6)) {
+                case 0:
+                case 1:
+                    Asserts.test(Objects.equals(map.put(key, value), expected.put(key, value)));
+                    break;
+                case 2:
+                    Asserts.test(Objects.equals(map.remove(key), expected.remove(key)));
+                    break;
+                case 3:
+                    Asserts.test(Objects.equals(map.putIfAbsent(key, value), expected.putIfAbsent(key, value)));
+                    break;
+                case 4:
+                    // 计算结果为null时不放入
+                    Function<Integer, String> function = k -> k % 3 == 0 ? null : value;
+                    Asserts.test(Objects.equals(map.computeIfAbsent(key, function), expected.computeIfAbsent(key, function)));
+                    break;
+                default:
+                    Asserts.test(Objects.equals(map.get(key), expected.get(key)));
+                    Asserts.test(map.containsKey(key) == expected.containsKey(key));
+                    Asserts.test(Objects.equals(map.floorKey(key), expected.floorKey(key)));
+                    Asserts.test(Objects.equals(map.higherKey(key), expected.higherKey(key)));
+                    Asserts.test(sameEntry(map.ceilingEntry(key), expected.ceilingEntry(key)));
+                    Asserts.test(sameEntry(map.lowerEntry(key), expected.lowerEntry(key)));
+                    break;
+            }
+        }
+        Asserts.test(map.size() == expected.size());
+        Asserts.test(sameEntry(map.firstEntry(), expected.firstEntry()) && sameEntry(map.lastEntry(), expected.lastEntry()));
+
+        // 通过迭代器删除一个范围内的一半映射
+        Iterator<Map.Entry<Integer, String>> iterator = map.subMap(1000, 4000).iterator();
+        Iterator<Map.Entry<Integer, String>> expectedIterator = expected.subMap(1000, 4000).entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            Asserts.test(sameEntry(entry, expectedIterator.next()));
+            if (entry.getKey() % 2 == 0) {
+                iterator.remove();
+                expectedIterator.remove();
+            }
+        }
+        Asserts.test(!expectedIterator.hasNext());
+
+        List<String> entries = new ArrayList<>();
+        map.forEach((key, value) -> entries.add(key + "=" + value));
+        List<String> expectedEntries = new ArrayList<>();
+        expected.forEach((key, value) -> expectedEntries.add(key + "=" + value));
+        Asserts.test(entries.equals(expectedEntries));
+        Asserts.test(toList(map.keys()).equals(new ArrayList<>(expected.keySet())));
+
+        try {
+            map.computeIfAbsent(-1, key -> {
+                throw new IllegalStateException();
+            });
+            Asserts.test(false);
+        } catch (IllegalStateException e) {
+            Asserts.test(!map.containsKey(-1) && map.size() == expected.size());
+        }
+    }
+
+    private static boolean sameEntry(Map.Entry<Integer, String> entry, Map.Entry<Integer, String> expected) {
+        if (entry == null || expected == null) return entry == expected;
+        return entry.getKey().equals(expected.getKey()) && Objects.equals(entry.getValue(), expected.getValue());
+    }
+
+    /**
+     * 100万个随机key的put、get、remove：TreeMap、java.util.TreeMap、RBTree + 按key比较的包装对象
+     */
+    static void test14() {
+        int n = 100_0000;
+        Random random = new Random(1);
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = random.nextInt();
+        }
+
+        for (int round = 0; round < 2; round++) {
+            TreeMap<Integer, Integer> map = new TreeMap<>();
+            benchmarkMap("TreeMap", keys,
+                    key -> map.put(key, key),
+                    key -> map.get(key),
+                    key -> map.remove(key));
+
+            java.util.TreeMap<Integer, Integer> jdkMap = new java.util.TreeMap<>();
+            benchmarkMap("java.util.TreeMap", keys,
+                    key -> jdkMap.put(key, key),
+                    key -> jdkMap.get(key),
+                    key -> jdkMap.remove(key));
+
+            RBTree<KeyValue> tree = new RBTree<>();
+            KeyValue probe = new KeyValue(0, null);
+            benchmarkMap("RBTree<KeyValue>", keys,
+                    key -> tree.add(new KeyValue(key, key)),
+                    key -> {
+                        probe.key = key;
+                        return tree.ceiling(probe).value;
+                    },
+                    key -> {
+                        probe.key = key;
+                        tree.remove(probe);
+                        return null;
+                    });
+        }
+    }
+
+    private static void benchmarkMap(String title, Integer[] keys,
+                                     Consumer<Integer> put,
+                                     Function<Integer, Integer> get,
+                                     Function<Integer, Integer> remove) {
+        Times.test(title, () -> {
+            long begin = System.nanoTime();
+            for (Integer key : keys) put.accept(key);
+            long putTime = System.nanoTime() - begin;
+
+            begin = System.nanoTime();
+            long sum = 0;
+            for (Integer key : keys) sum += get.apply(key);
+            long getTime = System.nanoTime() - begin;
+
+            begin = System.nanoTime();
+            for (Integer key : keys) remove.apply(key);
+            long removeTime = System.nanoTime() - begin;
+            System.out.println(String.format("put %dns/op，get %dns/op，remove %dns/op（%d）",
+                    putTime / keys.length, getTime / keys.length, removeTime / keys.length, sum));
+        });
+    }
+
+    private static class KeyValue implements Comparable<KeyValue> {
+        int key;
+        Integer value;
+
+        KeyValue(int key, Integer value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(KeyValue o) {
+            return Integer.compare(key, o.key);
+        }
+    }
+
+    /**
+     * buildFromSorted构建的AVL树高度正确、红黑树颜色正确，之后还能正常添加、删除
+     */
+    static void test15() {
+        for (int n = 0; n <= 300; n++) {
+            Integer[] data = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                data[i] = i * 2;
+            }
+            BST<Integer> bst = BST.buildFromSorted(data);
+            AVLTree<Integer> avl = AVLTree.buildFromSorted(data);
+            RBTree<Integer> rb = RBTree.buildFromSorted(data);
+            List<Integer> expected = Arrays.asList(data);
+            // 完全平衡：高度为 floor(log2(n)) + 1
+            int height = 32 - Integer.numberOfLeadingZeros(n);
+            for (BST<Integer> tree : Arrays.asList(bst, avl, rb)) {
+                Asserts.test(tree.size() == n && toList(tree).equals(expected) && tree.height() == height);
+            }
+            Asserts.test(avlHeight(avl, avl.root()) == height);
+            Asserts.test(blackHeight(rb, rb.root()) >= 0 && !isRed(rb, rb.root()));
+        }
+
+        // 在构建出来的树上继续添加、删除
+        Random random = new Random(1);
+        Integer[] data = new Integer[1000];
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < data.length; i++) {
+            data[i] = i * 10;
+            expected.add(data[i]);
+        }
+        AVLTree<Integer> avl = AVLTree.buildFromSorted(Arrays.asList(data).iterator(), data.length, null);
+        RBTree<Integer> rb = RBTree.buildFromSorted(Arrays.asList(data).iterator(), data.length, null);
+        for (int i = 0; i < 5000; i++) {
+            int value = random.nextInt(10000);
+            if (random.nextBoolean()) {
+                avl.add(value);
+                rb.add(value);
+                expected.add(value);
+            } else {
+                avl.remove(value);
+                rb.remove(value);
+                expected.remove(value);
+            }
+            if (i % 100 == 0) {
+                Asserts.test(avlHeight(avl, avl.root()) >= 0 && blackHeight(rb, rb.root()) >= 0);
+            }
+        }
+        Asserts.test(toList(avl).equals(new ArrayList<>(expected)) && toList(rb).equals(new ArrayList<>(expected)));
+    }
+
+    /**
+     * @return 子树的高度，有节点不平衡时返回-1
+     */
+    private static int avlHeight(BinaryTreeInfo tree, Object node) {
+        if (node == null) return 0;
+        int left = avlHeight(tree, tree.left(node));
+        int right = avlHeight(tree, tree.right(node));
+        if (left < 0 || right < 0 || Math.abs(left - right) > 1) return -1;
+        return Math.max(left, right) + 1;
+    }
+
+    /**
+     * @return 子树每条路径上的黑色节点数量，有连续的红色节点或者黑色节点数量不同时返回-1
+     */
+    private static int blackHeight(BinaryTreeInfo tree, Object node) {
+        if (node == null) return 1;
+        Object left = tree.left(node);
+        Object right = tree.right(node);
+        if (isRed(tree, node) && (isRed(tree, left) || isRed(tree, right))) return -1;
+        int leftHeight = blackHeight(tree, left);
+        int rightHeight = blackHeight(tree, right);
+        if (leftHeight < 0 || leftHeight != rightHeight) return -1;
+        return leftHeight + (isRed(tree, node) ? 0 : 1);
+    }
+
+    private static boolean isRed(BinaryTreeInfo tree, Object node) {
+        // RBNode的toString以R_开头代表红色
+        return node != null && tree.string(node).toString().startsWith("R_");
+    }
+
+    /**
+     * 加载500万个排好序的元素：逐个add与buildFromSorted对比
+     */
+    static void test16() {
+        int n = 500_0000;
+        Integer[] data = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            data[i] = i;
+        }
+
+        for (int round = 0; round < 2; round++) {
+            Times.test("AVLTree add", () -> {
+                AVLTree<Integer> avl = new AVLTree<>();
+                for (Integer element : data) {
+                    avl.add(element);
+                }
+                System.out.println("高度：" + avl.height());
+            });
+            Times.test("AVLTree buildFromSorted", () -> {
+                AVLTree<Integer> avl = AVLTree.buildFromSorted(data);
+                System.out.println("高度：" + avl.height());
+            });
+            Times.test("RBTree add", () -> {
+                RBTree<Integer> rb = new RBTree<>();
+                for (Integer element : data) {
+                    rb.add(element);
+                }
+                System.out.println("高度：" + rb.height());
+            });
+            Times.test("RBTree buildFromSorted", () -> {
+                RBTree<Integer> rb = RBTree.buildFromSorted(data);
+                System.out.println("高度：" + rb.height());
+            });
+        }
+
+        // 普通BST逐个add排好序的元素会退化成链表，只用2万个元素
+        Times.test("BST add（2万个）", () -> {
+            BST<Integer> bst = new BST<>();
+            for (int i = 0; i < 2_0000; i++) {
+                bst.add(data[i]);
+            }
+            System.out.println("高度：" + bst.height());
+        });
+        Times.test("BST buildFromSorted", () -> {
+            BST<Integer> bst = BST.buildFromSorted(data);
+            System.out.println("高度：" + bst.height());
+        });
+    }
+
+    /**
+     * split、join、union、intersection、difference与TreeSet的结果一致，运算之后仍然是合法的AVL树、红黑树
+     */
+    static void test17() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (boolean orderStatistic : new boolean[]{false, true}) {
+            checkSetOperations(() -> new AVLTree<>(null, orderStatistic), pool);
+            checkSetOperations(() -> new RBTree<>(null, orderStatistic), pool);
+        }
+        pool.shutdown();
+    }
+
+    private static void checkSetOperations(Supplier<BBST<Integer>> factory, ForkJoinPool pool) {
+        Random random = new Random(1);
+        // 规模较大时会拆分成多个任务
+        int[][] sizes = {{0, 0}, {0, 50}, {50, 0}, {1, 1}, {100, 3}, {3, 100}, {1000, 1000}, {30000, 20000}, {50000, 500}};
+        for (int[] size : sizes) {
+            for (int operation = 0; operation < 3; operation++) {
+                TreeSet<Integer> expected1 = new TreeSet<>();
+                TreeSet<Integer> expected2 = new TreeSet<>();
+                BBST<Integer> tree1 = randomTree(factory, size[0], random, expected1);
+                BBST<Integer> tree2 = randomTree(factory, size[1], random, expected2);
+                if (operation == 0) {
+                    tree1.union(tree2, pool);
+                    expected1.addAll(expected2);
+                    Asserts.test(tree2.isEmpty());
+                } else if (operation == 1) {
+                    tree1.intersection(tree2, pool);
+                    expected1.retainAll(expected2);
+                    Asserts.test(tree2.isEmpty());
+                } else {
+                    tree1.difference(tree2, pool);
+                    expected1.removeAll(expected2);
+                    // 差集不修改另一棵树
+                    Asserts.test(toList(tree2).equals(new ArrayList<>(expected2)) && validTree(tree2));
+                }
+                checkTree(tree1, expected1);
+            }
+        }
+
+        // split之后再join回去
+        TreeSet<Integer> expected = new TreeSet<>();
+        BBST<Integer> tree = randomTree(factory, 5000, random, expected);
+        for (int i = 0; i < 200; i++) {
+            int element = random.nextInt(3 * 5000 + 2) - 1;
+            BBST<Integer> right = tree.split(element);
+            checkTree(tree, expected.headSet(element));
+            checkTree(right, expected.tailSet(element));
+            if (right.isEmpty() || !right.first().equals(element)) {
+                // element不在树中，用它把两棵树连起来
+                tree.join(element, right);
+                expected.add(element);
+            } else {
+                right.remove(element);
+                tree.join(element, right);
+            }
+            Asserts.test(right.isEmpty());
+            checkTree(tree, expected);
+        }
+    }
+
+    private static BBST<Integer> randomTree(Supplier<BBST<Integer>> factory, int size, Random random, TreeSet<Integer> expected) {
+        BBST<Integer> tree = factory.get();
+        while (expected.size() < size) {
+            int element = random.nextInt(3 * size);
+            tree.add(element);
+            expected.add(element);
+        }
+        return tree;
+    }
+
+    private static void checkTree(BBST<Integer> tree, SortedSet<Integer> expected) {
+        Asserts.test(tree.size() == expected.size());
+        Asserts.test(toList(tree).equals(new ArrayList<>(expected)));
+        Asserts.test(validTree(tree));
+        if (tree.isOrderStatistic()) {
+            int index = 0;
+            for (Integer element : expected) {
+                Asserts.test(tree.select(index).equals(element) && tree.rank(element) == index);
+                index++;
+            }
+        }
+    }
+
+    private static boolean validTree(BBST<Integer> tree) {
+        if (tree instanceof AVLTree) return avlHeight(tree, tree.root()) >= 0;
+        return blackHeight(tree, tree.root()) >= 0 && !isRed(tree, tree.root());
+    }
+
+    /**
+     * 两棵200万个元素的树求并集、交集、差集：逐个add/remove，以及不同并行度的join-based实现
+     */
+    static void test18() {
+        int n = 200_0000;
+        // 偶数和3的倍数，有1/3的元素重复
+        Integer[] data1 = new Integer[n];
+        Integer[] data2 = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            data1[i] = i * 2;
+            data2[i] = i * 3;
+        }
+
+        Times.test("RBTree 逐个add（并集）", () -> {
+            RBTree<Integer> tree1 = RBTree.buildFromSorted(data1);
+            RBTree<Integer> tree2 = RBTree.buildFromSorted(data2);
+            long begin = System.nanoTime();
+            for (Integer element : tree2) {
+                tree1.add(element);
+            }
+            System.out.println(String.format("%dms, size=%d", (System.nanoTime() - begin) / 100_0000, tree1.size()));
+        });
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int parallelism = 1; parallelism <= Math.max(4, processors); parallelism *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            benchmarkSetOperation("RBTree union", parallelism, pool, () -> RBTree.buildFromSorted(data1), () -> RBTree.buildFromSorted(data2), BBST::union);
+            benchmarkSetOperation("RBTree intersection", parallelism, pool, () -> RBTree.buildFromSorted(data1), () -> RBTree.buildFromSorted(data2), BBST::intersection);
+            benchmarkSetOperation("RBTree difference", parallelism, pool, () -> RBTree.buildFromSorted(data1), () -> RBTree.buildFromSorted(data2), BBST::difference);
+            benchmarkSetOperation("AVLTree union", parallelism, pool, () -> AVLTree.buildFromSorted(data1), () -> AVLTree.buildFromSorted(data2), BBST::union);
+            pool.shutdown();
+        }
+    }
+
+    private interface SetOperation {
+        void apply(BBST<Integer> tree1, BBST<Integer> tree2, ForkJoinPool pool);
+    }
+
+    private static void benchmarkSetOperation(String title, int parallelism, ForkJoinPool pool,
+                                              Supplier<BBST<Integer>> factory1, Supplier<BBST<Integer>> factory2,
+                                              SetOperation operation) {
+        Times.test(title + "（并行度" + parallelism + "）", () -> {
+            long best = Long.MAX_VALUE;
+            int size = 0;
+            for (int round = 0; round < 3; round++) {
+                BBST<Integer> tree1 = factory1.get();
+                BBST<Integer> tree2 = factory2.get();
+                long begin = System.nanoTime();
+                operation.apply(tree1, tree2, pool);
+                best = Math.min(best, System.nanoTime() - begin);
+                size = tree1.size();
+            }
+            System.out.println(String.format("最快%dms, size=%d", best / 100_0000, size));
+        });
+    }
+
+    /**
+     * 并行归约、计数、遍历和Spliterator的结果与顺序的中序遍历一致
+     */
+    static void test19() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Random random = new Random(1);
+        for (int n : new int[]{0, 1, 10, 5000, 10_0000}) {
+            BST<Integer> bst = new BST<>();
+            AVLTree<Integer> avl = new AVLTree<>();
+            RBTree<Integer> rb = new RBTree<>();
+            for (int i = 0; i < n; i++) {
+                int element = random.nextInt();
+                bst.add(element);
+                avl.add(element);
+                rb.add(element);
+            }
+            checkParallel(bst, pool);
+            checkParallel(avl, pool);
+            checkParallel(rb, pool);
+        }
+        // 按顺序添加，退化成链表
+        BST<Integer> list = new BST<>();
+        for (int i = 0; i < 2_0000; i++) {
+            list.add(i);
+        }
+        checkParallel(list, pool);
+        pool.shutdown();
+    }
+
+    private static void checkParallel(BinaryTree<Integer> tree, ForkJoinPool pool) {
+        List<Integer> expected = inorder(tree, null);
+        long sum = 0;
+        long even = 0;
+        for (Integer element : expected) {
+            sum += element;
+            if (element % 2 == 0) {
+                even++;
+            }
+        }
+
+        Asserts.test(tree.parallelReduce(0L, (result, element) -> result + element, Long::sum, pool) == sum);
+        // 归约成 [数量, 第一个, 最后一个, 是否递增]，检查合并的顺序
+        long[] range = tree.parallelReduce(new long[]{0, 0, 0, 1},
+                (result, element) -> concat(result, new long[]{1, element, element, 1}), Main::concat, pool);
+        Asserts.test(range[0] == expected.size() && range[3] == 1);
+        Asserts.test(expected.isEmpty() || (range[1] == expected.get(0) && range[2] == expected.get(expected.size() - 1)));
+
+        Asserts.test(tree.parallelCount(element -> element % 2 == 0, pool) == even);
+        LongAdder adder = new LongAdder();
+        tree.parallelForEach(adder::add, pool);
+        Asserts.test(adder.sum() == sum);
+
+        Asserts.test(tree.stream().collect(Collectors.toList()).equals(expected));
+        // 在pool中执行，parallelStream拆分出的任务也在pool中执行
+        Asserts.test(pool.submit(() -> tree.parallelStream().collect(Collectors.toList())).join().equals(expected));
+        Asserts.test(tree.parallelStream().mapToLong(Integer::longValue).sum() == sum);
+    }
+
+    private static long[] concat(long[] left, long[] right) {
+        if (left[0] == 0) return right;
+        if (right[0] == 0) return left;
+        boolean ordered = left[3] == 1 && right[3] == 1 && left[2] < right[1];
+        return new long[]{left[0] + right[0], left[1], right[2], ordered ? 1 : 0};
+    }
+
+    /**
+     * 500万个元素的红黑树：Visitor、stream顺序遍历与不同并行度的parallelReduce、parallelCount、parallelStream对比
+     */
+    static void test20() {
+        int n = 500_0000;
+        Integer[] data = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            data[i] = i;
+        }
+        RBTree<Integer> tree = RBTree.buildFromSorted(data);
+        // 每个元素做一点计算，避免只测到内存访问
+        Predicate<Integer> predicate = element -> Integer.bitCount(element * 0x9E3779B9) > 16;
+
+        Times.test("inorder + Visitor", () -> {
+            long[] count = new long[1];
+            for (int round = 0; round < 5; round++) {
+                tree.inorder(new Visitor<Integer>() {
+                    @Override
+                    public boolean visit(Integer element) {
+                        if (predicate.test(element)) {
+                            count[0]++;
+                        }
+                        return false;
+                    }
+                });
+            }
+            System.out.println(count[0]);
+        });
+        Times.test("stream", () -> {
+            long count = 0;
+            for (int round = 0; round < 5; round++) {
+                count += tree.stream().filter(predicate).count();
+            }
+            System.out.println(count);
+        });
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int parallelism = 1; parallelism <= Math.max(4, processors); parallelism *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            Times.test("parallelCount（并行度" + parallelism + "）", () -> {
+                long count = 0;
+                for (int round = 0; round < 5; round++) {
+                    count += tree.parallelCount(predicate, pool);
+                }
+                System.out.println(count);
+            });
+            Times.test("parallelReduce（并行度" + parallelism + "）", () -> {
+                long sum = 0;
+                for (int round = 0; round < 5; round++) {
+                    sum += tree.parallelReduce(0L, (result, element) -> result + element, Long::sum, pool);
+                }
+                System.out.println(sum);
+            });
+            Times.test("parallelStream（并行度" + parallelism + "）", () -> {
+                long count = 0;
+                for (int round = 0; round < 5; round++) {
+                    count += pool.submit(() -> tree.parallelStream().filter(predicate).count()).join();
+                }
+                System.out.println(count);
+            });
+            pool.shutdown();
+        }
+    }
+
+    static void test21() {
+        // 普通二叉搜索树：随机添加、删除、清空，增量维护的统计和重新遍历的结果一致
+        Random random = new Random(1);
+        BST<Integer> bst = new BST<>();
+        Asserts.test(bst.stats().height() == 0 && bst.height() == 0 && !bst.isComplete());
+        for (int i = 0; i < 20000; i++) {
+            int value = random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                bst.remove(value);
+            } else {
+                bst.add(value);
+            }
+            if (i % 50 == 0) {
+                checkStats(bst);
+            }
+            if (i == 10000) {
+                bst.clear();
+                checkStats(bst);
+            }
+        }
+        checkStats(bst);
+
+        // 顺序添加退化成链表，每次删除根节点，整条链上移一层
+        bst.clear();
+        for (int i = 0; i < 1000; i++) {
+            bst.add(i);
+        }
+        checkStats(bst);
+        for (int i = 0; i < 1000; i++) {
+            bst.remove(i);
+            if (i % 10 == 0) {
+                checkStats(bst);
+            }
+        }
+        checkStats(bst);
+
+        // 相同的添加顺序，一棵开启统计、一棵不开启，isComplete、height的结果相同
+        for (int round = 0; round < 2000; round++) {
+            BST<Integer> withStats = new BST<>();
+            BST<Integer> withoutStats = new BST<>();
+            withStats.stats();
+            int n = random.nextInt(16);
+            for (int i = 0; i < n; i++) {
+                int value = random.nextInt(n);
+                withStats.add(value);
+                withoutStats.add(value);
+            }
+            Asserts.test(withStats.isComplete() == withoutStats.isComplete());
+            Asserts.test(withStats.height() == withoutStats.height());
+        }
+
+        // AVL树：height()是O(1)的；isComplete与同样形状的BST一致
+        for (int n = 0; n <= 300; n++) {
+            Integer[] data = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                data[i] = i;
+            }
+            AVLTree<Integer> avl = AVLTree.buildFromSorted(data);
+            BST<Integer> same = BST.buildFromSorted(data);
+            Asserts.test(avl.height() == same.height() && avl.isComplete() == same.isComplete());
+        }
+        AVLTree<Integer> avl = new AVLTree<>();
+        RBTree<Integer> rb = new RBTree<>();
+        for (int i = 0; i < 20000; i++) {
+            int value = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                avl.remove(value);
+                rb.remove(value);
+            } else {
+                avl.add(value);
+                rb.add(value);
+            }
+            if (i % 100 == 0) {
+                Asserts.test(avl.height() == avl.height2());
+                // 红黑树：黑高度与逐个路径数出来的相同（空节点也算一个黑色节点），高度在上下界之间
+                int height = rb.height2();
+                Asserts.test(rb.blackHeight() + 1 == blackHeight(rb, rb.root()));
+                Asserts.test(rb.minHeight() <= height && height <= rb.maxHeight());
+            }
+        }
+
+        // 平衡二叉搜索树不支持结构统计
+        Asserts.test(avl.stats() == null && rb.stats() == null);
+    }
+
+    private static void checkStats(BST<Integer> tree) {
+        TreeStats stats = tree.stats();
+        List<Integer> levels = new ArrayList<>();
+        int leaves = countLevels(tree, tree.root(), 0, levels);
+        Asserts.test(stats.size() == tree.size() && stats.leafCount() == leaves && stats.height() == levels.size());
+        Asserts.test(tree.height() == tree.height2());
+        for (int level = 0; level < levels.size(); level++) {
+            Asserts.test(stats.levelCount(level) == levels.get(level));
+        }
+    }
+
+    /**
+     * 把子树中每一层的节点数量累加到levels中
+     *
+     * @return 子树中叶子节点的数量
+     */
+    private static int countLevels(BinaryTreeInfo tree, Object node, int depth, List<Integer> levels) {
+        if (node == null) return 0;
+        if (depth == levels.size()) {
+            levels.add(0);
+        }
+        levels.set(depth, levels.get(depth) + 1);
+        Object left = tree.left(node);
+        Object right = tree.right(node);
+        if (left == null && right == null) return 1;
+        return countLevels(tree, left, depth + 1, levels) + countLevels(tree, right, depth + 1, levels);
+    }
+
+    /**
+     * 监控每秒调用height、isComplete：遍历整棵树与O(1)对比；结构统计对添加、删除的影响
+     */
+    static void test22() {
+        int n = 100_0000;
+        Random random = new Random(1);
+        int[] data = new int[n];
+        for (int i = 0; i < n; i++) {
+            data[i] = random.nextInt();
+        }
+        AVLTree<Integer> avl = new AVLTree<>();
+        for (int value : data) {
+            avl.add(value);
+        }
+        Times.test("AVLTree height2（遍历）x 20", () -> {
+            long sum = 0;
+            for (int round = 0; round < 20; round++) {
+                sum += avl.height2();
+            }
+            System.out.println(sum);
+        });
+        Times.test("AVLTree height x 100万", () -> {
+            long sum = 0;
+            for (int round = 0; round < 100_0000; round++) {
+                sum += avl.height();
+            }
+            System.out.println(sum);
+        });
+        Times.test("AVLTree isComplete x 100万", () -> {
+            long count = 0;
+            for (int round = 0; round < 100_0000; round++) {
+                count += avl.isComplete() ? 1 : 0;
+            }
+            System.out.println(count);
+        });
+
+        benchmarkStats("BST 不开启结构统计", new BST<>(), data);
+        BST<Integer> withStats = new BST<>();
+        withStats.stats();
+        benchmarkStats("BST 开启结构统计", withStats, data);
+
+        // 顺序添加退化成链表，每次删除的根节点都是度为1的节点：删除仍然是O(1)，不会逐个更新整条链
+        BST<Integer> chain = new BST<>();
+        for (int i = 0; i < 10_0000; i++) {
+            chain.add(i);
+        }
+        chain.stats();
+        Times.test("BST 开启结构统计 链表删除根节点 + 每1000次height", () -> {
+            long sum = 0;
+            for (int i = 0; i < 10_0000; i++) {
+                chain.remove(i);
+                if (i % 1000 == 0) {
+                    sum += chain.height();
+                }
+            }
+            System.out.println(sum);
+        });
+    }
+
+    private static void benchmarkStats(String title, BST<Integer> tree, int[] data) {
+        Times.test(title + " add", () -> {
+            for (int value : data) {
+                tree.add(value);
+            }
+        });
+        Times.test(title + " height x 100", () -> {
+            long sum = 0;
+            for (int round = 0; round < 100; round++) {
+                sum += tree.height();
+            }
+            System.out.println(sum);
+        });
+        Times.test(title + " remove", () -> {
+            for (int i = 0; i < data.length; i += 2) {
+                tree.remove(data[i]);
+            }
+        });
+    }
+
+    static void test23() {
+        Random random = new Random(1);
+        IntAVLTree intAvl = new IntAVLTree();
+        IntRBTree intRb = new IntRBTree();
+        LongRBTree longRb = new LongRBTree();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Asserts.test(intAvl.height() == 0 && intRb.height() == 0 && longRb.toArray().length == 0);
+        for (int i = 0; i < 50000; i++) {
+            // 包含负数，检查比较没有溢出问题
+            int value = random.nextInt(10000) - 5000;
+            long longValue = (long) value << 32;
+            boolean changed;
+            if (random.nextInt(3) == 0) {
+                changed = expected.remove(value);
+                Asserts.test(intAvl.remove(value) == changed && intRb.remove(value) == changed);
+                Asserts.test(longRb.remove(longValue) == changed);
+            } else {
+                changed = expected.add(value);
+                Asserts.test(intAvl.add(value) == changed && intRb.add(value) == changed);
+                Asserts.test(longRb.add(longValue) == changed);
+            }
+            Asserts.test(intAvl.contains(value) == expected.contains(value));
+            Asserts.test(intRb.contains(value) == expected.contains(value));
+            Asserts.test(longRb.contains(longValue) == expected.contains(value));
+
+            if (i % 500 == 0) {
+                int size = expected.size();
+                Asserts.test(intAvl.size() == size && intRb.size() == size && longRb.size() == size);
+                int[] elements = new int[size];
+                long[] longElements = new long[size];
+                int index = 0;
+                for (int element : expected) {
+                    longElements[index] = (long) element << 32;
+                    elements[index++] = element;
+                }
+                Asserts.test(Arrays.equals(intAvl.toArray(), elements));
+                Asserts.test(Arrays.equals(intRb.toArray(), elements));
+                Asserts.test(Arrays.equals(longRb.toArray(), longElements));
+                if (size > 0) {
+                    Asserts.test(intAvl.first() == expected.first() && intAvl.last() == expected.last());
+                    Asserts.test(intRb.first() == expected.first() && intRb.last() == expected.last());
+                    Asserts.test(longRb.first() == (long) expected.first() << 32);
+                }
+
+                // AVL树的高度不超过1.44log2(n + 2)，红黑树的高度在[黑高度, 2 * 黑高度]之间，不超过2log2(n + 1)
+                double log = Math.log(size + 2) / Math.log(2);
+                Asserts.test(intAvl.height() <= 1.44 * log);
+                int height = intRb.height();
+                int blackHeight = intRb.blackHeight();
+                Asserts.test(blackHeight <= height && height <= 2 * blackHeight && height <= 2 * log);
+            }
+        }
+
+        intAvl.clear();
+        Asserts.test(intAvl.isEmpty() && intAvl.toString().equals("size=0, []"));
+        try {
+            intAvl.first();
+            Asserts.test(false);
+        } catch (NoSuchElementException e) {
+        }
+        intRb.clear();
+        intRb.add(2);
+        intRb.add(1);
+        Asserts.test(intRb.toString().equals("size=2, [1, 2]"));
+    }
+
+    /**
+     * 1000万个随机的int：泛型的树（Integer元素）与元素直接存储在节点中的树对比
+     */
+    static void test24() {
+        int n = 1000_0000;
+        Random random = new Random(1);
+        int[] data = new int[n];
+        for (int i = 0; i < n; i++) {
+            data[i] = random.nextInt();
+        }
+
+        // 每种树单独写循环，避免共用的调用点变成多态调用，影响对比
+        benchmarkTree("AVLTree<Integer>", new AVLTree<>(), data);
+        benchmarkTree("RBTree<Integer>", new RBTree<>(), data);
+
+        IntAVLTree intAvl = new IntAVLTree();
+        Times.test("IntAVLTree add", () -> {
+            for (int value : data) {
+                intAvl.add(value);
+            }
+        });
+        Times.test("IntAVLTree contains", () -> {
+            int count = 0;
+            for (int value : data) {
+                if (intAvl.contains(value)) {
+                    count++;
+                }
+            }
+            System.out.println(count);
+        });
+        Times.test("IntAVLTree remove", () -> {
+            for (int value : data) {
+                intAvl.remove(value);
+            }
+        });
+
+        IntRBTree intRb = new IntRBTree();
+        Times.test("IntRBTree add", () -> {
+            for (int value : data) {
+                intRb.add(value);
+            }
+        });
+        Times.test("IntRBTree contains", () -> {
+            int count = 0;
+            for (int value : data) {
+                if (intRb.contains(value)) {
+                    count++;
+                }
+            }
+            System.out.println(count);
+        });
+        Times.test("IntRBTree remove", () -> {
+            for (int value : data) {
+                intRb.remove(value);
+            }
+        });
+
+        LongRBTree longRb = new LongRBTree();
+        Times.test("LongRBTree add", () -> {
+            for (int value : data) {
+                longRb.add(value);
+            }
+        });
+        Times.test("LongRBTree contains", () -> {
+            int count = 0;
+            for (int value : data) {
+                if (longRb.contains(value)) {
+                    count++;
+                }
+            }
+            System.out.println(count);
+        });
+        Times.test("LongRBTree remove", () -> {
+            for (int value : data) {
+                longRb.remove(value);
+            }
+        });
+    }
+
+    private static void benchmarkTree(String title, BST<Integer> tree, int[] data) {
+        Times.test(title + " add", () -> {
+            for (int value : data) {
+                tree.add(value);
+            }
+        });
+        Times.test(title + " contains", () -> {
+            int count = 0;
+            for (int value : data) {
+                if (tree.contains(value)) {
+                    count++;
+                }
+            }
+            System.out.println(count);
+        });
+        Times.test(title + " remove", () -> {
+            for (int value : data) {
+                tree.remove(value);
+            }
+        });
+    }
+
+    /**
+     * 层序遍历的队列每次创建：Visitor中再调用height、isComplete，多个线程同时调用height，互不影响
+     */
+    static void test25() throws InterruptedException {
+        Random random = new Random(1);
+        BST<Integer> tree = new BST<>();
+        for (int i = 0; i < 10000; i++) {
+            tree.add(random.nextInt(100000));
+        }
+        int height = tree.height2();
+        int[] visited = new int[1];
+        tree.levelOrder(new Visitor<Integer>() {
+            @Override
+            public boolean visit(Integer element) {
+                visited[0]++;
+                Asserts.test(tree.height() == height && !tree.isComplete());
+                return false;
+            }
+        });
+        Asserts.test(visited[0] == tree.size());
+
+        boolean[] failed = new boolean[1];
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int round = 0; round < 200; round++) {
+                    if (tree.height() != height) {
+                        failed[0] = true;
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Asserts.test(!failed[0]);
+    }
+
+    /**
+     * TreeMap.computeIfAbsent：mappingFunction执行期间key还不在映射中，mappingFunction可以修改映射
+     */
+    static void test26() {
+        TreeMap<Integer, String> map = new TreeMap<>();
+        java.util.TreeMap<Integer, String> expected = new java.util.TreeMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, "v" + i);
+            expected.put(i, "v" + i);
+        }
+        // 删除度为2的节点会用后继节点覆盖它，添加会旋转，都不能影响新key的映射
+        String value = map.computeIfAbsent(1000, key -> {
+            Asserts.test(!map.containsKey(key) && map.get(key) == null);
+            for (int i = 20; i < 80; i++) {
+                map.remove(i);
+            }
+            for (int i = 200; i < 260; i++) {
+                map.put(i, "v" + i);
+            }
+            return "computed";
+        });
+        for (int i = 20; i < 80; i++) {
+            expected.remove(i);
+        }
+        for (int i = 200; i < 260; i++) {
+            expected.put(i, "v" + i);
+        }
+        expected.put(1000, "computed");
+        Asserts.test(value.equals("computed"));
+        Asserts.test(map.toString().equals("size=" + expected.size() + ", " + expected));
+
+        // 计算出null时不添加；mappingFunction添加了其他key也不会被删除
+        Asserts.test(map.computeIfAbsent(2000, key -> {
+            map.put(3000, "v3000");
+            return null;
+        }) == null);
+        expected.put(3000, "v3000");
+        Asserts.test(!map.containsKey(2000) && map.get(3000).equals("v3000") && map.size() == expected.size());
+
+        // 已经存在时不调用mappingFunction
+        Asserts.test(map.computeIfAbsent(1000, key -> {
+            throw new IllegalStateException();
+        }).equals("computed"));
+    }
+
+    /**
+     * 比较器或者顺序统计设置不同的树不能join、求并集、交集、差集，两棵树都保持不变
+     */
+    static void test27() {
+        RBTree<Integer> statistic = new RBTree<>(null, true);
+        for (int i = 0; i < 100; i++) {
+            statistic.add(i);
+        }
+        RBTree<Integer> plain = new RBTree<>();
+        for (int i = 101; i < 1000; i++) {
+            plain.add(i);
+        }
+        Comparator<Integer> natural = Integer::compare;
+        RBTree<Integer> compared = new RBTree<>(natural, true);
+        for (int i = 101; i < 1000; i++) {
+            compared.add(i);
+        }
+
+        for (RBTree<Integer> other : Arrays.asList(plain, compared)) {
+            checkRejected(() -> statistic.join(100, other));
+            checkRejected(() -> statistic.union(other));
+            checkRejected(() -> statistic.intersection(other));
+            checkRejected(() -> statistic.difference(other));
+            Asserts.test(statistic.size() == 100 && other.size() == 899);
+        }
+        checkRejected(() -> plain.union(statistic));
+        Asserts.test(statistic.rank(99) == 99 && statistic.select(50) == 50);
+
+        // 设置相同时正常合并，子树节点数量保持正确
+        RBTree<Integer> right = new RBTree<>(null, true);
+        for (int i = 101; i < 1000; i++) {
+            right.add(i);
+        }
+        statistic.join(100, right);
+        Asserts.test(statistic.size() == 1000 && right.isEmpty());
+        Asserts.test(statistic.rank(999) == 999 && statistic.select(500) == 500);
+        BBST<Integer> upper = statistic.split(500);
+        Asserts.test(statistic.size() == 500 && upper.size() == 500 && upper.rank(999) == 499);
+    }
+
+    private static void checkRejected(Runnable operation) {
+        try {
+            operation.run();
+            Asserts.test(false);
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        test27();
     }
 }
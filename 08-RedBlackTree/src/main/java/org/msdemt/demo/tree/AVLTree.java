@@ -1,6 +1,8 @@
 package org.msdemt.demo.tree;
 
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Iterator;
 
 /**
  * AVL树
@@ -13,7 +15,40 @@ public class AVLTree<E> extends BBST<E> {
     }
 
     public AVLTree(Comparator<E> comparator) {
-        super(comparator);
+        this(comparator, false);
+    }
+
+    /**
+     * @param orderStatistic 是否开启顺序统计（rank、select、countRange）
+     */
+    public AVLTree(Comparator<E> comparator, boolean orderStatistic) {
+        super(comparator, orderStatistic);
+    }
+
+    /**
+     * 用从小到大排好序的元素构建一棵AVL树，每个节点的高度都是正确的，O(n)，没有比较、没有旋转
+     *
+     * @param elements 严格递增，不会检查
+     * @return
+     */
+    public static <E> AVLTree<E> buildFromSorted(E[] elements) {
+        return buildFromSorted(elements, null);
+    }
+
+    public static <E> AVLTree<E> buildFromSorted(E[] elements, Comparator<E> comparator) {
+        return buildFromSorted(Arrays.asList(elements).iterator(), elements.length, comparator);
+    }
+
+    public static <E> AVLTree<E> buildFromSorted(Iterator<? extends E> iterator, int size, Comparator<E> comparator) {
+        AVLTree<E> tree = new AVLTree<>(comparator);
+        tree.build(iterator, size);
+        return tree;
+    }
+
+    @Override
+    protected void afterBuild(Node<E> node, boolean bottom) {
+        // 子树是完全平衡的，子节点的高度已经计算好了
+        updateHeight(node);
     }
 
     @Override
@@ -33,7 +68,16 @@ public class AVLTree<E> extends BBST<E> {
 
     @Override
     protected void afterRemove(Node<E> node) {
-        while ((node = node.parent) != null) {
+        rebalanceUpward(node, null);
+    }
+
+    /**
+     * 从node的父节点开始往上（到stop为止，不包括stop），更新高度，遇到不平衡的节点就恢复平衡
+     * <p>
+     * 删除之后、join之后都可能有多个祖先节点需要恢复平衡，所以要一直走到最上面
+     */
+    private void rebalanceUpward(Node<E> node, Node<E> stop) {
+        while ((node = node.parent) != stop) {
             if (isBalanced(node)) {
                 // 更新高度
                 updateHeight(node);
@@ -44,6 +88,93 @@ public class AVLTree<E> extends BBST<E> {
         }
     }
 
+    @Override
+    public AVLTree<E> split(E element) {
+        return (AVLTree<E>) super.split(element);
+    }
+
+    @Override
+    protected BBST<E> createTree() {
+        return new AVLTree<>(comparator(), isOrderStatistic());
+    }
+
+    /**
+     * 高度相差不超过1时直接让middle成为left、right的父节点；
+     * 否则沿着较高的树的边界往下，找到第一个高度 <= 较矮的树的高度 + 1 的节点c，用middle替换c（c、较矮的树作为middle的子节点），
+     * middle子树的高度比c多1，和添加节点一样，再往上恢复平衡
+     */
+    @Override
+    protected Node<E> join(Node<E> left, Node<E> middle, Node<E> right) {
+        int leftHeight = heightOf(left);
+        int rightHeight = heightOf(right);
+        if (Math.abs(leftHeight - rightHeight) <= 1) {
+            link(left, middle, right);
+            updateHeight(middle);
+            return middle;
+        }
+
+        Node<E> sentinel;
+        Node<E> parent;
+        Node<E> node;
+        if (leftHeight > rightHeight) {
+            sentinel = attachSentinel(left);
+            // 沿着left的右边界往下找
+            parent = sentinel;
+            node = left;
+            while (heightOf(node) > rightHeight + 1) {
+                parent = node;
+                node = node.right;
+            }
+            link(node, middle, right);
+            parent.right = middle;
+        } else {
+            sentinel = attachSentinel(right);
+            // 沿着right的左边界往下找
+            parent = sentinel;
+            node = right;
+            while (heightOf(node) > leftHeight + 1) {
+                parent = node;
+                node = node.left;
+            }
+            link(left, middle, node);
+            parent.left = middle;
+        }
+        middle.parent = parent;
+        updateHeight(middle);
+        updateCountsUpward(parent, middle.count - (node == null ? 0 : node.count));
+        rebalanceUpward(middle, sentinel);
+        return detachSentinel(sentinel);
+    }
+
+    /**
+     * 根节点的高度就是树的高度，O(1)
+     *
+     * @return
+     */
+    @Override
+    public int height() {
+        return heightOf(root);
+    }
+
+    /**
+     * 高度是O(1)的：完全二叉树的高度只能是floor(log2(n)) + 1，高度不对直接返回false；
+     * 节点数量正好是2^height - 1时是满二叉树；其他情况才需要遍历
+     *
+     * @return
+     */
+    @Override
+    public boolean isComplete() {
+        if (root == null) return false;
+        int height = heightOf(root);
+        if (height != 32 - Integer.numberOfLeadingZeros(size)) return false;
+        if (size == (1 << height) - 1) return true;
+        return super.isComplete();
+    }
+
+    private int heightOf(Node<E> node) {
+        return node == null ? 0 : ((AVLNode<E>) node).height;
+    }
+
     @Override
     protected Node<E> createNode(E element, Node<E> parent) {
         return new AVLNode<>(element, parent);
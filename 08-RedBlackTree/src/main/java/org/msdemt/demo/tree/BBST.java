@@ -1,19 +1,458 @@
 package org.msdemt.demo.tree;
 
 import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 平衡二叉搜索树
+ * <p>
+ * 集合运算（并集、交集、差集）基于split和join：
+ * 1. join(left, middle, right)：left中的元素 < middle < right中的元素，合并成一棵平衡的树，
+ * 只需要沿着较高的树的边界往下走两棵树的高度差，O(|h(left) - h(right)| + 1)
+ * 2. split(tree, element)：沿着查找element的路径拆开，把路径两边的子树依次join起来，O(log n)（不包括统计元素数量，见{@link #split(Object)}）
+ * 3. union(t1, t2)：用t1的根节点split t2，两边分别递归求并集，最后用t1的根节点join起来，
+ * 两个递归互不影响，用fork-join并行执行。总的工作量O(m log(n/m + 1))（m <= n），并行深度O(log^2 n)
+ * <p>
+ * 只有平衡规则相关的join由子类实现，参与运算的子树都是独立的（各自的根节点不再依赖原来的parent），
+ * 旋转时在子树的根节点上面临时挂一个哨兵节点，不会修改root，所以不同的子树可以在不同的线程中同时处理
  *
  * @param <E>
  */
-public class BBST<E> extends BST<E> {
+public abstract class BBST<E> extends BST<E> {
+    // 两棵子树的元素总数估计小于这个值时不再拆分任务
+    private static final int SET_OPERATION_THRESHOLD = 1 << 13;
+    private static final int UNION = 0;
+    private static final int INTERSECTION = 1;
+    private static final int DIFFERENCE = 2;
     public BBST() {
         this(null);
     }
 
     public BBST(Comparator<E> comparator) {
-        super(comparator);
+        this(comparator, false);
+    }
+
+    public BBST(Comparator<E> comparator, boolean orderStatistic) {
+        super(comparator, orderStatistic);
+    }
+
+    /**
+     * 旋转会改变整棵子树中每个节点的深度，不支持结构统计
+     *
+     * @return null
+     */
+    @Override
+    public TreeStats stats() {
+        return null;
+    }
+
+    /**
+     * 创建一棵同类型、同比较器的空树，供split使用
+     *
+     * @return
+     */
+    protected abstract BBST<E> createTree();
+
+    /**
+     * 合并两棵独立的子树：left中的元素 < middle的元素 < right中的元素
+     * <p>
+     * middle是一个可以复用的节点（它原来的子节点、颜色、高度等都会被覆盖），返回的根节点的parent为null
+     *
+     * @param left   可以为null
+     * @param middle
+     * @param right  可以为null
+     * @return 合并后的根节点
+     */
+    protected abstract Node<E> join(Node<E> left, Node<E> middle, Node<E> right);
+
+    /**
+     * 一棵完整的树参与split、join之前调用，比如红黑树在这里计算根节点的黑高度
+     *
+     * @param root 可以为null
+     */
+    protected void beforeJoin(Node<E> root) {
+    }
+
+    /**
+     * node的左右子树即将被当作独立的子树处理之前调用，比如红黑树在这里算出子树的黑高度
+     *
+     * @param node
+     */
+    protected void expose(Node<E> node) {
+    }
+
+    /**
+     * split、join、集合运算得到最终的根节点之后调用，比如红黑树要保证根节点是黑色
+     *
+     * @param root 可以为null
+     */
+    protected void afterJoin(Node<E> root) {
+    }
+
+    /**
+     * 让node成为left、right的父节点，重新计算node的子树节点数量
+     *
+     * @return node
+     */
+    protected Node<E> link(Node<E> left, Node<E> node, Node<E> right) {
+        node.left = left;
+        node.right = right;
+        node.parent = null;
+        if (left != null) {
+            left.parent = node;
+        }
+        if (right != null) {
+            right.parent = node;
+        }
+        updateCount(node);
+        return node;
+    }
+
+    /**
+     * 在独立子树的根节点上面挂一个哨兵节点，子树内部的旋转就不会修改root
+     *
+     * @param subtree
+     * @return 哨兵节点，调整完之后子树的根节点是哨兵的left
+     */
+    protected Node<E> attachSentinel(Node<E> subtree) {
+        Node<E> sentinel = createNode(null, null);
+        sentinel.left = subtree;
+        subtree.parent = sentinel;
+        return sentinel;
+    }
+
+    /**
+     * 取下哨兵节点
+     *
+     * @param sentinel
+     * @return 子树的根节点
+     */
+    protected Node<E> detachSentinel(Node<E> sentinel) {
+        Node<E> subtree = sentinel.left;
+        subtree.parent = null;
+        return subtree;
+    }
+
+    /**
+     * this = this中的元素 + element + right中的元素，right被清空
+     *
+     * @param element 必须大于this中的所有元素，小于right中的所有元素
+     * @param right   同一种树，比较器、是否开启顺序统计都必须相同
+     */
+    public void join(E element, BBST<E> right) {
+        sameTypeCheck(right);
+        if (element == null) {
+            throw new IllegalArgumentException("element must not be null");
+        }
+        if ((size > 0 && compare(last(), element) >= 0) || (right.size > 0 && compare(element, right.first()) >= 0)) {
+            throw new IllegalArgumentException("elements are not ordered");
+        }
+        beforeJoin(root);
+        beforeJoin(right.root);
+        root = join(root, createNode(element, null), right.root);
+        afterJoin(root);
+        size += right.size + 1;
+        right.clear();
+    }
+
+    /**
+     * 把大于等于element的元素移到一棵新的树中，this只保留小于element的元素
+     * <p>
+     * 拆开、合并子树只沿着查找element的路径进行，O(log n)；但是两棵树的元素数量需要重新确定：
+     * 1. 开启顺序统计（orderStatistic = true）时直接取根节点的子树节点数量，整个split是O(log n)
+     * 2. 没有开启时只能遍历返回的树来统计元素数量，整个split是O(n)
+     * 需要频繁split的场景应该开启顺序统计
+     *
+     * @param element
+     * @return 大于等于element的元素
+     */
+    public BBST<E> split(E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("element must not be null");
+        }
+        BBST<E> tree = createTree();
+        if (root == null) return tree;
+
+        beforeJoin(root);
+        Split<E> split = new Split<>();
+        split(root, element, split);
+        Node<E> right = split.right;
+        if (split.middle != null) {
+            // 等于element的节点放到右边最小的位置
+            right = join(null, split.middle, right);
+        }
+        root = split.left;
+        tree.root = right;
+        if (root != null) {
+            root.parent = null;
+        }
+        if (right != null) {
+            right.parent = null;
+        }
+        afterJoin(root);
+        afterJoin(right);
+
+        // 没有开启顺序统计时O(n)
+        tree.size = isOrderStatistic() ? (right == null ? 0 : right.count) : countNodes(right);
+        size -= tree.size;
+        return tree;
+    }
+
+    /**
+     * this = this ∪ other，相等的元素保留this中的，other被清空
+     * <p>
+     * 只能和同一种树（同一个比较器、同样的顺序统计设置）运算，使用ForkJoinPool.commonPool()并行执行
+     *
+     * @param other
+     */
+    public void union(BBST<E> other) {
+        union(other, ForkJoinPool.commonPool());
+    }
+
+    public void union(BBST<E> other, ForkJoinPool pool) {
+        int otherSize = other.size;
+        SetTask task = setOperation(UNION, other, pool);
+        size = size + otherSize - task.counter.intValue();
+        other.clear();
+    }
+
+    /**
+     * this = this ∩ other，元素保留this中的，other被清空
+     *
+     * @param other
+     */
+    public void intersection(BBST<E> other) {
+        intersection(other, ForkJoinPool.commonPool());
+    }
+
+    public void intersection(BBST<E> other, ForkJoinPool pool) {
+        SetTask task = setOperation(INTERSECTION, other, pool);
+        size = task.counter.intValue();
+        other.clear();
+    }
+
+    /**
+     * this = this - other，other只会被读取，保持不变
+     *
+     * @param other
+     */
+    public void difference(BBST<E> other) {
+        difference(other, ForkJoinPool.commonPool());
+    }
+
+    public void difference(BBST<E> other, ForkJoinPool pool) {
+        SetTask task = setOperation(DIFFERENCE, other, pool);
+        size -= task.counter.intValue();
+    }
+
+    private SetTask setOperation(int operation, BBST<E> other, ForkJoinPool pool) {
+        sameTypeCheck(other);
+        // 估计的子树元素总数 (size >> depth) 小于阈值之后不再拆分任务
+        int forkDepth = forkDepth((long) size + other.size, SET_OPERATION_THRESHOLD);
+        beforeJoin(root);
+        other.beforeJoin(other.root);
+        SetTask task = new SetTask(operation, root, other.root, 0, forkDepth, new LongAdder());
+        root = pool.invoke(task);
+        if (root != null) {
+            root.parent = null;
+        }
+        afterJoin(root);
+        return task;
+    }
+
+    private void sameTypeCheck(BBST<E> other) {
+        if (other == null) {
+            throw new IllegalArgumentException("tree must not be null");
+        }
+        if (other == this || other.getClass() != getClass()) {
+            throw new IllegalArgumentException("tree must be another " + getClass().getSimpleName());
+        }
+        // other的节点会直接挂到this上：比较规则不同会破坏元素的顺序，
+        // 没有开启顺序统计的节点count一直是1，会让rank、select、split的结果出错
+        if (other.comparator() != comparator()) {
+            throw new IllegalArgumentException("tree must use the same comparator");
+        }
+        if (other.isOrderStatistic() != isOrderStatistic()) {
+            throw new IllegalArgumentException("tree must have the same orderStatistic setting");
+        }
+    }
+
+    /**
+     * 沿着查找element的路径拆开node这棵子树
+     *
+     * @param result left：小于element的元素，middle：等于element的节点（不存在时为null），right：大于element的元素
+     */
+    private void split(Node<E> node, E element, Split<E> result) {
+        if (node == null) {
+            result.left = null;
+            result.middle = null;
+            result.right = null;
+            return;
+        }
+        expose(node);
+        Node<E> left = node.left;
+        Node<E> right = node.right;
+        int cmp = compare(element, node.element);
+        if (cmp == 0) {
+            result.left = left;
+            result.middle = node;
+            result.right = right;
+        } else if (cmp < 0) {
+            // node和它的右子树都大于element
+            split(left, element, result);
+            result.right = join(result.right, node, right);
+        } else {
+            // node和它的左子树都小于element
+            split(right, element, result);
+            result.left = join(left, node, result.left);
+        }
+    }
+
+    /**
+     * 合并两棵独立的子树，left中的元素 < right中的元素：取出left中最大的节点作为middle
+     */
+    private Node<E> join(Node<E> left, Node<E> right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        Split<E> result = new Split<>();
+        splitLast(left, result);
+        return join(result.left, result.middle, right);
+    }
+
+    /**
+     * @param result left：去掉最大节点之后的子树，middle：最大的节点
+     */
+    private void splitLast(Node<E> node, Split<E> result) {
+        expose(node);
+        Node<E> left = node.left;
+        Node<E> right = node.right;
+        if (right == null) {
+            result.left = left;
+            result.middle = node;
+            return;
+        }
+        splitLast(right, result);
+        result.left = join(left, node, result.left);
+    }
+
+    private Node<E> union(Node<E> node1, Node<E> node2, int depth, int forkDepth, LongAdder duplicates) {
+        if (node1 == null) return node2;
+        if (node2 == null) return node1;
+
+        expose(node1);
+        Split<E> split = new Split<>();
+        split(node2, node1.element, split);
+        if (split.middle != null) {
+            duplicates.increment();
+        }
+        both(UNION, node1.left, split.left, node1.right, split.right, depth, forkDepth, duplicates, split);
+        return join(split.left, node1, split.right);
+    }
+
+    private Node<E> intersection(Node<E> node1, Node<E> node2, int depth, int forkDepth, LongAdder count) {
+        if (node1 == null || node2 == null) return null;
+
+        expose(node1);
+        Split<E> split = new Split<>();
+        split(node2, node1.element, split);
+        boolean found = split.middle != null;
+        if (found) {
+            count.increment();
+        }
+        both(INTERSECTION, node1.left, split.left, node1.right, split.right, depth, forkDepth, count, split);
+        return found ? join(split.left, node1, split.right) : join(split.left, split.right);
+    }
+
+    private Node<E> difference(Node<E> node1, Node<E> node2, int depth, int forkDepth, LongAdder removed) {
+        if (node1 == null) return null;
+        if (node2 == null) return node1;
+
+        // node2属于另一棵树，只读取，不修改它的结构
+        expose(node2);
+        Split<E> split = new Split<>();
+        split(node1, node2.element, split);
+        if (split.middle != null) {
+            removed.increment();
+        }
+        both(DIFFERENCE, split.left, node2.left, split.right, node2.right, depth, forkDepth, removed, split);
+        return join(split.left, split.right);
+    }
+
+    private Node<E> run(int operation, Node<E> node1, Node<E> node2, int depth, int forkDepth, LongAdder counter) {
+        switch (operation) {
+            case UNION:
+                return union(node1, node2, depth, forkDepth, counter);
+            case INTERSECTION:
+                return intersection(node1, node2, depth, forkDepth, counter);
+            default:
+                return difference(node1, node2, depth, forkDepth, counter);
+        }
+    }
+
+    /**
+     * 分别对 (left1, left2)、(right1, right2) 做同一种运算，结果放入result.left、result.right
+     * <p>
+     * 深度小于forkDepth时左边交给其他线程，当前线程处理右边
+     */
+    private void both(int operation, Node<E> left1, Node<E> left2, Node<E> right1, Node<E> right2,
+                      int depth, int forkDepth, LongAdder counter, Split<E> result) {
+        if (depth < forkDepth) {
+            SetTask task = new SetTask(operation, left1, left2, depth + 1, forkDepth, counter);
+            task.fork();
+            result.right = run(operation, right1, right2, depth + 1, forkDepth, counter);
+            result.left = task.join();
+        } else {
+            result.left = run(operation, left1, left2, depth + 1, forkDepth, counter);
+            result.right = run(operation, right1, right2, depth + 1, forkDepth, counter);
+        }
+    }
+
+    private int countNodes(Node<E> root) {
+        if (root == null) return 0;
+        Node<E> node = root;
+        while (node.left != null) {
+            node = node.left;
+        }
+        int count = 0;
+        while (node != null) {
+            count++;
+            node = successor(node);
+        }
+        return count;
+    }
+
+    private static class Split<E> {
+        Node<E> left;
+        Node<E> middle;
+        Node<E> right;
+    }
+
+    private class SetTask extends RecursiveTask<Node<E>> {
+        private static final long serialVersionUID = 1L;
+
+        private final int operation;
+        private final Node<E> node1;
+        private final Node<E> node2;
+        private final int depth;
+        private final int forkDepth;
+        // 并集：重复的元素数量，交集：保留的元素数量，差集：删除的元素数量
+        private final LongAdder counter;
+
+        SetTask(int operation, Node<E> node1, Node<E> node2, int depth, int forkDepth, LongAdder counter) {
+            this.operation = operation;
+            this.node1 = node1;
+            this.node2 = node2;
+            this.depth = depth;
+            this.forkDepth = forkDepth;
+            this.counter = counter;
+        }
+
+        @Override
+        protected Node<E> compute() {
+            return run(operation, node1, node2, depth, forkDepth, counter);
+        }
     }
 
     protected void rotateLeft(Node<E> grand) {
@@ -50,6 +489,10 @@ public class BBST<E> extends BST<E> {
 
         // 更新grand的parent
         grand.parent = parent;
+
+        // 更新子树节点数量，grand现在是parent的子节点，要先更新
+        updateCount(grand);
+        updateCount(parent);
     }
 
     protected void rotate(
@@ -84,5 +527,10 @@ public class BBST<E> extends BST<E> {
         d.right = f;
         b.parent = d;
         f.parent = d;
+
+        // 更新子树节点数量
+        updateCount(b);
+        updateCount(f);
+        updateCount(d);
     }
 }
@@ -1,6 +1,10 @@
 package org.msdemt.demo.tree;
 
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.ObjIntConsumer;
 
 /**
  * 二叉搜索树
@@ -8,28 +12,87 @@ import java.util.Comparator;
  * @param <E>
  */
 @SuppressWarnings("unchecked")
-public class BST<E> extends BinaryTree<E> {
+public class BST<E> extends BinaryTree<E> implements Iterable<E> {
     private Comparator<E> comparator;
+    // 是否维护每个节点的子树节点数量，开启后支持rank、select、countRange
+    private final boolean orderStatistic;
+    // 是否跟踪结构统计，第一次调用stats()之后开启
+    private boolean trackStats;
+    // 结构统计，为null代表还没有统计或者已经丢弃，用到时再遍历整棵树重新统计
+    private TreeStats stats;
 
     public BST() {
         this(null);
     }
 
     public BST(Comparator<E> comparator) {
+        this(comparator, false);
+    }
+
+    /**
+     * 开启顺序统计后每个节点多维护一个子树节点数量：添加、删除时沿路径更新到根节点，旋转时重新计算，
+     * 代价是添加、删除多一次O(log n)的向上遍历
+     *
+     * @param comparator
+     * @param orderStatistic 是否开启顺序统计（rank、select、countRange）
+     */
+    public BST(Comparator<E> comparator, boolean orderStatistic) {
         this.comparator = comparator;
+        this.orderStatistic = orderStatistic;
+    }
+
+    public boolean isOrderStatistic() {
+        return orderStatistic;
+    }
+
+    protected Comparator<E> comparator() {
+        return comparator;
+    }
+
+    /**
+     * 用从小到大排好序的元素构建一棵完全平衡的二叉搜索树，见{@link #build(Iterator, int)}
+     *
+     * @param elements 严格递增，不会检查
+     * @return
+     */
+    public static <E> BST<E> buildFromSorted(E[] elements) {
+        return buildFromSorted(elements, null);
+    }
+
+    public static <E> BST<E> buildFromSorted(E[] elements, Comparator<E> comparator) {
+        return buildFromSorted(Arrays.asList(elements).iterator(), elements.length, comparator);
+    }
+
+    public static <E> BST<E> buildFromSorted(Iterator<? extends E> iterator, int size, Comparator<E> comparator) {
+        BST<E> tree = new BST<>(comparator);
+        tree.build(iterator, size);
+        return tree;
     }
 
     public void add(E element) {
+        addNode(element);
+    }
+
+    /**
+     * 添加element，已经存在相等的元素时用element覆盖它
+     *
+     * @param element
+     * @return element所在的节点（新添加的或者已经存在的）
+     */
+    protected Node<E> addNode(E element) {
         elementNotNullCheck(element);
 
         // 添加第一个节点
         if (root == null) {
             root = createNode(element, null);
             size++;
+            if (stats != null) {
+                statsAfterAdd(root);
+            }
 
             // 新添加节点之后的处理
             afterAdd(root);
-            return;
+            return root;
         }
 
         // 添加的不是第一个节点
@@ -46,7 +109,7 @@ public class BST<E> extends BinaryTree<E> {
                 node = node.left;
             } else { // 相等
                 node.element = element;
-                return;
+                return node;
             }
         } while (node != null);
 
@@ -58,9 +121,15 @@ public class BST<E> extends BinaryTree<E> {
             parent.left = newNode;
         }
         size++;
+        // 新节点的祖先的子树都多了一个节点，要在调整（旋转）之前更新
+        updateCountsUpward(parent, 1);
+        if (stats != null) {
+            statsAfterAdd(newNode);
+        }
 
         // 新添加节点之后的处理
         afterAdd(newNode);
+        return newNode;
     }
 
     /**
@@ -79,6 +148,61 @@ public class BST<E> extends BinaryTree<E> {
     protected void afterRemove(Node<E> node) {
     }
 
+    /**
+     * 清空这棵树，用iterator中从小到大排好序的size个元素重新构建
+     * <p>
+     * 和java.util.TreeMap的buildFromSorted一样，每次取中间的元素作为子树的根节点，左右子树的节点数量最多相差1，
+     * 所以除了最底下一层，其他层都是满的。按中序的顺序创建节点，每个元素只从iterator中取一次：
+     * O(n)，没有比较、没有旋转，递归深度O(log n)
+     *
+     * @param iterator 严格递增，不会检查
+     * @param size     元素数量
+     */
+    protected void build(Iterator<? extends E> iterator, int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size must not be negative");
+        }
+        clear();
+        // 节点数量为size的完全平衡二叉树，前bottomLevel层（从0开始）是满的，剩下的节点都在第bottomLevel层
+        int bottomLevel = 31 - Integer.numberOfLeadingZeros(size + 1);
+        root = build(iterator, 0, 0, size - 1, bottomLevel);
+        this.size = size;
+        // 丢弃原来的结构统计，用到时再重新统计
+        stats = null;
+    }
+
+    private Node<E> build(Iterator<? extends E> iterator, int level, int begin, int end, int bottomLevel) {
+        if (begin > end) return null;
+
+        int mid = (begin + end) >>> 1;
+        Node<E> left = build(iterator, level + 1, begin, mid - 1, bottomLevel);
+        E element = iterator.next();
+        elementNotNullCheck(element);
+        Node<E> node = createNode(element, null);
+        Node<E> right = build(iterator, level + 1, mid + 1, end, bottomLevel);
+
+        node.left = left;
+        node.right = right;
+        if (left != null) {
+            left.parent = node;
+        }
+        if (right != null) {
+            right.parent = node;
+        }
+        updateCount(node);
+        afterBuild(node, level == bottomLevel);
+        return node;
+    }
+
+    /**
+     * build中创建完node及其子树之后的处理（比如计算高度、染色）
+     *
+     * @param node
+     * @param bottom node是否在没有填满的最底层
+     */
+    protected void afterBuild(Node<E> node, boolean bottom) {
+    }
+
     public void remove(E element) {
         remove(node(element));
     }
@@ -87,7 +211,7 @@ public class BST<E> extends BinaryTree<E> {
         return node(element) != null;
     }
 
-    private void remove(Node<E> node) {
+    protected void remove(Node<E> node) {
         if (node == null) return;
 
         size--;
@@ -96,11 +220,17 @@ public class BST<E> extends BinaryTree<E> {
             // 找到后继节点
             Node<E> s = successor(node);
             // 用后继节点的值覆盖度为2的节点的值
-            node.element = s.element;
+            replaceElement(node, s);
             // 删除后继节点
             node = s;
         }
 
+        // 真正被删除的节点的祖先的子树都少了一个节点，要在调整（旋转）之前更新
+        updateCountsUpward(node.parent, -1);
+        if (stats != null) {
+            statsBeforeRemove(node);
+        }
+
         // 删除node节点（node的度必然是1或者0）
         Node<E> replacement = node.left != null ? node.left : node.right;
 
@@ -135,7 +265,480 @@ public class BST<E> extends BinaryTree<E> {
         }
     }
 
-    private Node<E> node(E element) {
+    /**
+     * 删除度为2的节点时，用后继节点的内容覆盖它，之后删除的是后继节点
+     * <p>
+     * 节点中还存放了其他数据（比如映射的value）时，子类需要一起覆盖
+     *
+     * @param node
+     * @param successor
+     */
+    protected void replaceElement(Node<E> node, Node<E> successor) {
+        node.element = successor.element;
+    }
+
+    /**
+     * 重新计算node的子树节点数量，子节点的数量必须是正确的
+     * <p>
+     * 供旋转之后调用，没有开启顺序统计时什么都不做
+     *
+     * @param node
+     */
+    protected void updateCount(Node<E> node) {
+        if (!orderStatistic) return;
+        node.count = 1 + countOf(node.left) + countOf(node.right);
+    }
+
+    /**
+     * node及其所有祖先的子树节点数量加上delta，没有开启顺序统计时什么都不做
+     *
+     * @param node
+     * @param delta
+     */
+    protected void updateCountsUpward(Node<E> node, int delta) {
+        if (!orderStatistic) return;
+        while (node != null) {
+            node.count += delta;
+            node = node.parent;
+        }
+    }
+
+    private static int countOf(Node<?> node) {
+        return node == null ? 0 : node.count;
+    }
+
+    /**
+     * 结构统计（每一层的节点数量、叶子节点数量、最大深度）的快照
+     * <p>
+     * 第一次调用时遍历整棵树统计O(n)，之后开始跟踪，再次调用只需要O(height)拷贝每一层的数量：
+     * 1. 添加节点、删除叶子节点时增量更新，多一次O(height)的向上遍历算出节点的深度
+     * 2. 删除度为1的节点时，它的整棵子树上移一层，逐个更新需要O(子树大小)；
+     * 这时直接丢弃统计，等下次调用stats()、height()、isComplete()时再遍历一次重新统计。
+     * 所以跟踪结构统计不会改变添加、删除的复杂度
+     * <p>
+     * 只支持不旋转的二叉搜索树：旋转会改变整棵子树的深度，会旋转的树（平衡二叉搜索树）返回null
+     *
+     * @return 快照，不支持结构统计时返回null
+     */
+    public TreeStats stats() {
+        trackStats = true;
+        return currentStats().copy();
+    }
+
+    /**
+     * 调用过stats()之后一般是O(1)（统计被丢弃之后的第一次调用需要遍历整棵树），否则遍历整棵树
+     *
+     * @return
+     */
+    @Override
+    public int height() {
+        return trackStats ? currentStats().height() : super.height();
+    }
+
+    /**
+     * 调用过stats()之后，先用每一层的节点数量判断：上面有没填满的层一定不是，最底层也填满了一定是；
+     * 只有最底层没有填满时，才需要遍历检查最底层的节点是否都靠左
+     *
+     * @return
+     */
+    @Override
+    public boolean isComplete() {
+        if (!trackStats || root == null) return super.isComplete();
+        TreeStats stats = currentStats();
+        int height = stats.height();
+        int fullLevels = stats.fullLevels();
+        if (fullLevels == height) return true;
+        if (fullLevels < height - 1) return false;
+        return super.isComplete();
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        if (stats != null) {
+            stats.clear();
+        }
+    }
+
+    private TreeStats currentStats() {
+        if (stats == null) {
+            TreeStats stats = new TreeStats();
+            if (root != null) {
+                forEachDepth(root, 0, (node, depth) -> stats.add(depth, node.isLeaf()));
+            }
+            this.stats = stats;
+        }
+        return stats;
+    }
+
+    private void statsAfterAdd(Node<E> node) {
+        stats.add(depthOf(node), true);
+        // 父节点只有node这一个子节点，说明它原来是叶子节点
+        Node<E> parent = node.parent;
+        if (parent != null && (parent.left == null || parent.right == null)) {
+            stats.addLeafCount(-1);
+        }
+    }
+
+    /**
+     * 在node（度为0或者1）被删除之前调用
+     *
+     * @param node
+     */
+    private void statsBeforeRemove(Node<E> node) {
+        if (node.left != null || node.right != null) {
+            // 子树整体上移一层，丢弃统计，用到时再重新统计
+            stats = null;
+            return;
+        }
+        // 父节点只有node这一个子节点，删除之后变成叶子节点
+        Node<E> parent = node.parent;
+        if (parent != null && (parent.left == null || parent.right == null)) {
+            stats.addLeafCount(1);
+        }
+        stats.remove(depthOf(node), true);
+    }
+
+    private static int depthOf(Node<?> node) {
+        int depth = 0;
+        while ((node = node.parent) != null) {
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * 前序遍历subtree，同时传入每个节点的深度
+     * <p>
+     * 沿着parent指针迭代，不使用递归和栈，退化成链表的子树也不会栈溢出
+     *
+     * @param subtree
+     * @param depth   subtree的深度
+     * @param action
+     */
+    private static <E> void forEachDepth(Node<E> subtree, int depth, ObjIntConsumer<Node<E>> action) {
+        Node<E> node = subtree;
+        while (true) {
+            action.accept(node, depth);
+            if (node.left != null) {
+                node = node.left;
+                depth++;
+            } else if (node.right != null) {
+                node = node.right;
+                depth++;
+            } else {
+                // 往上找到第一个还有右子树没有访问的祖先，转到它的右子节点
+                while (node != subtree && (node == node.parent.right || node.parent.right == null)) {
+                    node = node.parent;
+                    depth--;
+                }
+                if (node == subtree) return;
+                // 转到兄弟节点，深度不变
+                node = node.parent.right;
+            }
+        }
+    }
+
+    /**
+     * 比element小的元素数量，element不需要在树中，O(log n)
+     *
+     * @param element
+     * @return
+     */
+    public int rank(E element) {
+        orderStatisticCheck();
+        elementNotNullCheck(element);
+        int rank = 0;
+        Node<E> node = root;
+        while (node != null) {
+            if (compare(element, node.element) > 0) {
+                // node和它的左子树都比element小
+                rank += countOf(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * 第index小的元素（从0开始），O(log n)
+     *
+     * @param index
+     * @return
+     */
+    public E select(int index) {
+        orderStatisticCheck();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index:" + index + ", Size:" + size);
+        }
+        Node<E> node = root;
+        while (true) {
+            int leftCount = countOf(node.left);
+            if (index < leftCount) {
+                node = node.left;
+            } else if (index == leftCount) {
+                return node.element;
+            } else {
+                index -= leftCount + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * [fromElement, toElement) 范围内的元素数量，与subSet的范围一致，O(log n)
+     *
+     * @param fromElement 包含
+     * @param toElement   不包含
+     * @return
+     */
+    public int countRange(E fromElement, E toElement) {
+        orderStatisticCheck();
+        rangeCheck(fromElement, toElement);
+        return rank(toElement) - rank(fromElement);
+    }
+
+    /**
+     * @return 最小的元素，树为空时返回null
+     */
+    public E first() {
+        Node<E> node = firstNode();
+        return node == null ? null : node.element;
+    }
+
+    /**
+     * @return 最大的元素，树为空时返回null
+     */
+    public E last() {
+        Node<E> node = lastNode();
+        return node == null ? null : node.element;
+    }
+
+    /**
+     * @return 小于等于element的最大元素，不存在时返回null
+     */
+    public E floor(E element) {
+        return elementOf(floorNode(element, true));
+    }
+
+    /**
+     * @return 大于等于element的最小元素，不存在时返回null
+     */
+    public E ceiling(E element) {
+        return elementOf(ceilingNode(element, true));
+    }
+
+    /**
+     * @return 小于element的最大元素，不存在时返回null
+     */
+    public E lower(E element) {
+        return elementOf(floorNode(element, false));
+    }
+
+    /**
+     * @return 大于element的最小元素，不存在时返回null
+     */
+    public E higher(E element) {
+        return elementOf(ceilingNode(element, false));
+    }
+
+    /**
+     * 从小到大的迭代器
+     * <p>
+     * 先花O(log n)找到最小的节点，之后每一步用successor找下一个节点，均摊O(1)。
+     * 迭代过程中只能通过迭代器的remove删除元素
+     *
+     * @return
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new TreeIterator(firstNode(), false, null);
+    }
+
+    /**
+     * 从大到小的迭代器，每一步用predecessor找下一个节点
+     *
+     * @return
+     */
+    public Iterator<E> descendingIterator() {
+        return new TreeIterator(lastNode(), true, null);
+    }
+
+    /**
+     * [fromElement, toElement) 范围内的元素
+     * <p>
+     * 返回的是视图：每次创建迭代器时才用O(log n)定位到fromElement，遇到toElement就停止，不会访问范围之外的元素
+     *
+     * @param fromElement 包含
+     * @param toElement   不包含
+     * @return
+     */
+    public Iterable<E> subSet(E fromElement, E toElement) {
+        rangeCheck(fromElement, toElement);
+        return () -> new TreeIterator(ceilingNode(fromElement, true), false, toElement);
+    }
+
+    /**
+     * 小于toElement的元素
+     *
+     * @param toElement 不包含
+     * @return
+     */
+    public Iterable<E> headSet(E toElement) {
+        elementNotNullCheck(toElement);
+        return () -> new TreeIterator(firstNode(), false, toElement);
+    }
+
+    /**
+     * 大于等于fromElement的元素
+     *
+     * @param fromElement 包含
+     * @return
+     */
+    public Iterable<E> tailSet(E fromElement) {
+        elementNotNullCheck(fromElement);
+        return () -> new TreeIterator(ceilingNode(fromElement, true), false, null);
+    }
+
+    private class TreeIterator extends NodeIterator<E> {
+        TreeIterator(Node<E> first, boolean descending, E toElement) {
+            super(first, descending, toElement);
+        }
+
+        @Override
+        public E next() {
+            return nextNode().element;
+        }
+    }
+
+    /**
+     * 按顺序访问节点的迭代器，子类决定每个节点返回什么（元素、映射的entry等）
+     *
+     * @param <T>
+     */
+    protected abstract class NodeIterator<T> implements Iterator<T> {
+        private Node<E> next;
+        private Node<E> lastReturned;
+        private final boolean descending;
+        // 升序迭代的上界（不包含），为null代表没有上界
+        private final E toElement;
+
+        protected NodeIterator(Node<E> first, boolean descending, E toElement) {
+            this.descending = descending;
+            this.toElement = toElement;
+            next = outOfRange(first) ? null : first;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        protected final Node<E> nextNode() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            Node<E> node = descending ? predecessor(next) : successor(next);
+            next = outOfRange(node) ? null : node;
+            return lastReturned;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            // 度为2的节点被删除时，实际删除的是后继节点，后继节点的元素被移到了lastReturned中，
+            // 所以升序迭代的下一个节点变成了lastReturned
+            // （next为null说明后继节点已经超出了范围，仍然保持null）
+            if (!descending && lastReturned.hasTwoChildren() && next != null) {
+                next = lastReturned;
+            }
+            BST.this.remove(lastReturned);
+            lastReturned = null;
+        }
+
+        private boolean outOfRange(Node<E> node) {
+            return node == null || (toElement != null && compare(node.element, toElement) >= 0);
+        }
+    }
+
+    protected Node<E> firstNode() {
+        Node<E> node = root;
+        if (node == null) {
+            return null;
+        }
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    protected Node<E> lastNode() {
+        Node<E> node = root;
+        if (node == null) {
+            return null;
+        }
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
+
+    /**
+     * @param inclusive 为true时找小于等于element的最大节点，否则找小于element的最大节点
+     */
+    protected Node<E> floorNode(E element, boolean inclusive) {
+        elementNotNullCheck(element);
+        Node<E> node = root;
+        Node<E> result = null;
+        while (node != null) {
+            int cmp = compare(element, node.element);
+            if (cmp == 0 && inclusive) {
+                return node;
+            }
+            if (cmp > 0) {
+                // node满足条件，再看右子树中有没有更大的
+                result = node;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param inclusive 为true时找大于等于element的最小节点，否则找大于element的最小节点
+     */
+    protected Node<E> ceilingNode(E element, boolean inclusive) {
+        elementNotNullCheck(element);
+        Node<E> node = root;
+        Node<E> result = null;
+        while (node != null) {
+            int cmp = compare(element, node.element);
+            if (cmp == 0 && inclusive) {
+                return node;
+            }
+            if (cmp < 0) {
+                // node满足条件，再看左子树中有没有更小的
+                result = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return result;
+    }
+
+    private E elementOf(Node<E> node) {
+        return node == null ? null : node.element;
+    }
+
+    protected Node<E> node(E element) {
         Node<E> node = root;
         while (node != null) {
             int cmp = compare(element, node.element);
@@ -152,13 +755,27 @@ public class BST<E> extends BinaryTree<E> {
     /**
      * @return 返回值等于0，代表e1和e2相等；返回值大于0，代表e1大于e2；返回值小于于0，代表e1小于e2
      */
-    private int compare(E e1, E e2) {
+    protected int compare(E e1, E e2) {
         if (comparator != null) {
             return comparator.compare(e1, e2);
         }
         return ((Comparable<E>) e1).compareTo(e2);
     }
 
+    protected void rangeCheck(E fromElement, E toElement) {
+        elementNotNullCheck(fromElement);
+        elementNotNullCheck(toElement);
+        if (compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException("fromElement > toElement");
+        }
+    }
+
+    private void orderStatisticCheck() {
+        if (!orderStatistic) {
+            throw new UnsupportedOperationException("order statistic is not enabled");
+        }
+    }
+
     private void elementNotNullCheck(E element) {
         if (element == null) {
             throw new IllegalArgumentException("element must not be null");
@@ -0,0 +1,348 @@
+package org.msdemt.demo.tree;
+
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * int元素的AVL树
+ * <p>
+ * 添加、删除、恢复平衡的方式和AVLTree相同，元素直接存储在节点中，直接用 &lt; &gt; 比较：
+ * 没有装箱，没有比较器（或者compareTo）的调用，比较时也不需要再访问一次Integer对象
+ */
+public class IntAVLTree {
+    private int size;
+    private IntNode root;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * @param element
+     * @return element原来不存在时返回true
+     */
+    public boolean add(int element) {
+        // 添加第一个节点
+        if (root == null) {
+            root = new IntNode(element, null);
+            size++;
+            return true;
+        }
+
+        // 找到父节点
+        IntNode parent;
+        IntNode node = root;
+        do {
+            parent = node;
+            if (element > node.element) {
+                node = node.right;
+            } else if (element < node.element) {
+                node = node.left;
+            } else { // 相等
+                return false;
+            }
+        } while (node != null);
+
+        IntNode newNode = new IntNode(element, parent);
+        if (element > parent.element) {
+            parent.right = newNode;
+        } else {
+            parent.left = newNode;
+        }
+        size++;
+
+        afterAdd(newNode);
+        return true;
+    }
+
+    /**
+     * @param element
+     * @return element存在并被删除时返回true
+     */
+    public boolean remove(int element) {
+        IntNode node = node(element);
+        if (node == null) return false;
+
+        size--;
+
+        if (node.left != null && node.right != null) { // 度为2的节点
+            // 用后继节点的值覆盖度为2的节点的值，删除后继节点
+            IntNode s = node.right;
+            while (s.left != null) {
+                s = s.left;
+            }
+            node.element = s.element;
+            node = s;
+        }
+
+        // 删除node节点（node的度必然是1或者0）
+        IntNode replacement = node.left != null ? node.left : node.right;
+        if (replacement != null) {
+            replacement.parent = node.parent;
+        }
+        if (node.parent == null) {
+            root = replacement;
+        } else if (node == node.parent.left) {
+            node.parent.left = replacement;
+        } else {
+            node.parent.right = replacement;
+        }
+
+        afterRemove(node);
+        return true;
+    }
+
+    public boolean contains(int element) {
+        return node(element) != null;
+    }
+
+    /**
+     * @return 最小的元素
+     * @throws NoSuchElementException 树为空
+     */
+    public int first() {
+        IntNode node = firstNode();
+        if (node == null) {
+            throw new NoSuchElementException();
+        }
+        return node.element;
+    }
+
+    /**
+     * @return 最大的元素
+     * @throws NoSuchElementException 树为空
+     */
+    public int last() {
+        IntNode node = root;
+        if (node == null) {
+            throw new NoSuchElementException();
+        }
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node.element;
+    }
+
+    /**
+     * 根节点的高度就是树的高度，O(1)
+     *
+     * @return
+     */
+    public int height() {
+        return heightOf(root);
+    }
+
+    /**
+     * 按从小到大的顺序访问每个元素
+     *
+     * @param action
+     */
+    public void forEach(IntConsumer action) {
+        if (action == null) {
+            throw new NullPointerException("action must not be null");
+        }
+        for (IntNode node = firstNode(); node != null; node = successor(node)) {
+            action.accept(node.element);
+        }
+    }
+
+    /**
+     * @return 从小到大排好序的所有元素
+     */
+    public int[] toArray() {
+        int[] elements = new int[size];
+        int index = 0;
+        for (IntNode node = firstNode(); node != null; node = successor(node)) {
+            elements[index++] = node.element;
+        }
+        return elements;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        string.append("size=").append(size).append(", [");
+        IntNode first = firstNode();
+        for (IntNode node = first; node != null; node = successor(node)) {
+            if (node != first) {
+                string.append(", ");
+            }
+            string.append(node.element);
+        }
+        string.append("]");
+        return string.toString();
+    }
+
+    private IntNode node(int element) {
+        IntNode node = root;
+        while (node != null) {
+            if (element > node.element) {
+                node = node.right;
+            } else if (element < node.element) {
+                node = node.left;
+            } else {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private IntNode firstNode() {
+        IntNode node = root;
+        if (node == null) return null;
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    private static IntNode successor(IntNode node) {
+        if (node.right != null) {
+            node = node.right;
+            while (node.left != null) {
+                node = node.left;
+            }
+            return node;
+        }
+        while (node.parent != null && node == node.parent.right) {
+            node = node.parent;
+        }
+        return node.parent;
+    }
+
+    private void afterAdd(IntNode node) {
+        while ((node = node.parent) != null) {
+            if (node.isBalanced()) {
+                // 更新高度
+                node.updateHeight();
+            } else {
+                // 恢复平衡，整棵树恢复平衡
+                rebalance(node);
+                break;
+            }
+        }
+    }
+
+    /**
+     * @param node 被删除的节点，它的parent仍然指向原来的父节点
+     */
+    private void afterRemove(IntNode node) {
+        while ((node = node.parent) != null) {
+            if (node.isBalanced()) {
+                node.updateHeight();
+            } else {
+                rebalance(node);
+            }
+        }
+    }
+
+    /**
+     * 恢复平衡
+     *
+     * @param grand 高度最低的那个不平衡节点
+     */
+    private void rebalance(IntNode grand) {
+        IntNode parent = grand.tallerChild();
+        IntNode node = parent.tallerChild();
+        if (parent.isLeftChild()) { // L
+            if (node.isLeftChild()) { // LL
+                rotate(grand, node, node.right, parent, parent.right, grand);
+            } else { // LR
+                rotate(grand, parent, node.left, node, node.right, grand);
+            }
+        } else { // R
+            if (node.isLeftChild()) { // RL
+                rotate(grand, grand, node.left, node, node.right, parent);
+            } else { // RR
+                rotate(grand, grand, parent.left, parent, node.left, node);
+            }
+        }
+    }
+
+    private void rotate(
+            IntNode r, // 子树的根节点
+            IntNode b, IntNode c,
+            IntNode d,
+            IntNode e, IntNode f) {
+        // 让d成为这棵子树的根节点
+        d.parent = r.parent;
+        if (r.isLeftChild()) {
+            r.parent.left = d;
+        } else if (r.isRightChild()) {
+            r.parent.right = d;
+        } else {
+            root = d;
+        }
+
+        // b-c
+        b.right = c;
+        if (c != null) {
+            c.parent = b;
+        }
+        b.updateHeight();
+
+        // e-f
+        f.left = e;
+        if (e != null) {
+            e.parent = f;
+        }
+        f.updateHeight();
+
+        // b-d-f
+        d.left = b;
+        d.right = f;
+        b.parent = d;
+        f.parent = d;
+        d.updateHeight();
+    }
+
+    private static int heightOf(IntNode node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static class IntNode {
+        int element;
+        int height = 1;
+        IntNode left;
+        IntNode right;
+        IntNode parent;
+
+        IntNode(int element, IntNode parent) {
+            this.element = element;
+            this.parent = parent;
+        }
+
+        boolean isLeftChild() {
+            return parent != null && this == parent.left;
+        }
+
+        boolean isRightChild() {
+            return parent != null && this == parent.right;
+        }
+
+        boolean isBalanced() {
+            return Math.abs(heightOf(left) - heightOf(right)) <= 1;
+        }
+
+        void updateHeight() {
+            height = 1 + Math.max(heightOf(left), heightOf(right));
+        }
+
+        IntNode tallerChild() {
+            int leftHeight = heightOf(left);
+            int rightHeight = heightOf(right);
+            if (leftHeight > rightHeight) return left;
+            if (leftHeight < rightHeight) return right;
+            return isLeftChild() ? left : right;
+        }
+    }
+}
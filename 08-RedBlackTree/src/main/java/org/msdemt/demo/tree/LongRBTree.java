@@ -0,0 +1,461 @@
+package org.msdemt.demo.tree;
+
+import java.util.NoSuchElementException;
+import java.util.function.LongConsumer;
+
+/**
+ * long元素的红黑树
+ * <p>
+ * 添加、删除、恢复红黑性质的方式和RBTree相同，元素直接存储在节点中，直接用 &lt; &gt; 比较：
+ * 没有装箱，没有比较器（或者compareTo）的调用，比较时也不需要再访问一次Long对象
+ */
+public class LongRBTree {
+    private static final boolean RED = false;
+    private static final boolean BLACK = true;
+
+    private int size;
+    private LongNode root;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * @param element
+     * @return element原来不存在时返回true
+     */
+    public boolean add(long element) {
+        // 添加第一个节点
+        if (root == null) {
+            root = new LongNode(element, null);
+            root.color = BLACK;
+            size++;
+            return true;
+        }
+
+        // 找到父节点
+        LongNode parent;
+        LongNode node = root;
+        do {
+            parent = node;
+            if (element > node.element) {
+                node = node.right;
+            } else if (element < node.element) {
+                node = node.left;
+            } else { // 相等
+                return false;
+            }
+        } while (node != null);
+
+        LongNode newNode = new LongNode(element, parent);
+        if (element > parent.element) {
+            parent.right = newNode;
+        } else {
+            parent.left = newNode;
+        }
+        size++;
+
+        afterAdd(newNode);
+        return true;
+    }
+
+    /**
+     * @param element
+     * @return element存在并被删除时返回true
+     */
+    public boolean remove(long element) {
+        LongNode node = node(element);
+        if (node == null) return false;
+
+        size--;
+
+        if (node.left != null && node.right != null) { // 度为2的节点
+            // 用后继节点的值覆盖度为2的节点的值，删除后继节点
+            LongNode s = node.right;
+            while (s.left != null) {
+                s = s.left;
+            }
+            node.element = s.element;
+            node = s;
+        }
+
+        // 删除node节点（node的度必然是1或者0）
+        LongNode replacement = node.left != null ? node.left : node.right;
+        if (replacement != null) {
+            replacement.parent = node.parent;
+        }
+        if (node.parent == null) {
+            root = replacement;
+        } else if (node == node.parent.left) {
+            node.parent.left = replacement;
+        } else {
+            node.parent.right = replacement;
+        }
+
+        // 度为1时传入用以取代被删除节点的子节点
+        afterRemove(replacement != null ? replacement : node);
+        return true;
+    }
+
+    public boolean contains(long element) {
+        return node(element) != null;
+    }
+
+    /**
+     * @return 最小的元素
+     * @throws NoSuchElementException 树为空
+     */
+    public long first() {
+        LongNode node = firstNode();
+        if (node == null) {
+            throw new NoSuchElementException();
+        }
+        return node.element;
+    }
+
+    /**
+     * @return 最大的元素
+     * @throws NoSuchElementException 树为空
+     */
+    public long last() {
+        LongNode node = root;
+        if (node == null) {
+            throw new NoSuchElementException();
+        }
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node.element;
+    }
+
+    /**
+     * 红黑树的节点中没有高度，需要遍历整棵树，O(n)；
+     * 递归深度不超过树的高度（最多2log(n + 1)），不会栈溢出
+     *
+     * @return
+     */
+    public int height() {
+        return heightOf(root);
+    }
+
+    /**
+     * 黑高度：从根节点到任意一个空子节点的路径上黑色节点的数量，O(log n)
+     *
+     * @return
+     */
+    public int blackHeight() {
+        int blackHeight = 0;
+        for (LongNode node = root; node != null; node = node.left) {
+            if (node.color == BLACK) {
+                blackHeight++;
+            }
+        }
+        return blackHeight;
+    }
+
+    /**
+     * 按从小到大的顺序访问每个元素
+     *
+     * @param action
+     */
+    public void forEach(LongConsumer action) {
+        if (action == null) {
+            throw new NullPointerException("action must not be null");
+        }
+        for (LongNode node = firstNode(); node != null; node = successor(node)) {
+            action.accept(node.element);
+        }
+    }
+
+    /**
+     * @return 从小到大排好序的所有元素
+     */
+    public long[] toArray() {
+        long[] elements = new long[size];
+        int index = 0;
+        for (LongNode node = firstNode(); node != null; node = successor(node)) {
+            elements[index++] = node.element;
+        }
+        return elements;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        string.append("size=").append(size).append(", [");
+        LongNode first = firstNode();
+        for (LongNode node = first; node != null; node = successor(node)) {
+            if (node != first) {
+                string.append(", ");
+            }
+            string.append(node.element);
+        }
+        string.append("]");
+        return string.toString();
+    }
+
+    private LongNode node(long element) {
+        LongNode node = root;
+        while (node != null) {
+            if (element > node.element) {
+                node = node.right;
+            } else if (element < node.element) {
+                node = node.left;
+            } else {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private LongNode firstNode() {
+        LongNode node = root;
+        if (node == null) return null;
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    private static LongNode successor(LongNode node) {
+        if (node.right != null) {
+            node = node.right;
+            while (node.left != null) {
+                node = node.left;
+            }
+            return node;
+        }
+        while (node.parent != null && node == node.parent.right) {
+            node = node.parent;
+        }
+        return node.parent;
+    }
+
+    private void afterAdd(LongNode node) {
+        LongNode parent = node.parent;
+
+        // 添加的是根节点 或者 上溢到达了根节点
+        if (parent == null) {
+            black(node);
+            return;
+        }
+
+        // 如果父节点是黑色，直接返回
+        if (isBlack(parent)) return;
+
+        // 叔父节点
+        LongNode uncle = parent.sibling();
+        // 祖父节点
+        LongNode grand = red(parent.parent);
+        if (isRed(uncle)) { // 叔父节点是红色【B树节点上溢】
+            black(parent);
+            black(uncle);
+            // 把祖父节点当做是新添加的节点
+            afterAdd(grand);
+            return;
+        }
+
+        // 叔父节点不是红色
+        if (parent.isLeftChild()) { // L
+            if (node.isLeftChild()) { // LL
+                black(parent);
+            } else { // LR
+                black(node);
+                rotateLeft(parent);
+            }
+            rotateRight(grand);
+        } else { // R
+            if (node.isLeftChild()) { // RL
+                black(node);
+                rotateRight(parent);
+            } else { // RR
+                black(parent);
+            }
+            rotateLeft(grand);
+        }
+    }
+
+    /**
+     * @param node 被删除的节点 或者 用以取代被删除节点的子节点（当被删除节点的度为1）
+     */
+    private void afterRemove(LongNode node) {
+        // 如果删除的节点是红色
+        // 或者 用以取代删除节点的子节点是红色
+        if (isRed(node)) {
+            black(node);
+            return;
+        }
+
+        LongNode parent = node.parent;
+        // 删除的是根节点
+        if (parent == null) return;
+
+        // 删除的是黑色叶子节点【下溢】
+        // 判断被删除的node是左还是右
+        boolean left = parent.left == null || node.isLeftChild();
+        LongNode sibling = left ? parent.right : parent.left;
+        if (left) { // 被删除的节点在左边，兄弟节点在右边
+            if (isRed(sibling)) { // 兄弟节点是红色
+                black(sibling);
+                red(parent);
+                rotateLeft(parent);
+                // 更换兄弟
+                sibling = parent.right;
+            }
+
+            // 兄弟节点必然是黑色
+            if (isBlack(sibling.left) && isBlack(sibling.right)) {
+                // 兄弟节点没有1个红色子节点，父节点要向下跟兄弟节点合并
+                boolean parentBlack = isBlack(parent);
+                black(parent);
+                red(sibling);
+                if (parentBlack) {
+                    afterRemove(parent);
+                }
+            } else { // 兄弟节点至少有1个红色子节点，向兄弟节点借元素
+                // 兄弟节点的左边是黑色，兄弟要先旋转
+                if (isBlack(sibling.right)) {
+                    rotateRight(sibling);
+                    sibling = parent.right;
+                }
+
+                color(sibling, colorOf(parent));
+                black(sibling.right);
+                black(parent);
+                rotateLeft(parent);
+            }
+        } else { // 被删除的节点在右边，兄弟节点在左边
+            if (isRed(sibling)) { // 兄弟节点是红色
+                black(sibling);
+                red(parent);
+                rotateRight(parent);
+                // 更换兄弟
+                sibling = parent.left;
+            }
+
+            // 兄弟节点必然是黑色
+            if (isBlack(sibling.left) && isBlack(sibling.right)) {
+                // 兄弟节点没有1个红色子节点，父节点要向下跟兄弟节点合并
+                boolean parentBlack = isBlack(parent);
+                black(parent);
+                red(sibling);
+                if (parentBlack) {
+                    afterRemove(parent);
+                }
+            } else { // 兄弟节点至少有1个红色子节点，向兄弟节点借元素
+                // 兄弟节点的左边是黑色，兄弟要先旋转
+                if (isBlack(sibling.left)) {
+                    rotateLeft(sibling);
+                    sibling = parent.left;
+                }
+
+                color(sibling, colorOf(parent));
+                black(sibling.left);
+                black(parent);
+                rotateRight(parent);
+            }
+        }
+    }
+
+    private void rotateLeft(LongNode grand) {
+        LongNode parent = grand.right;
+        LongNode child = parent.left;
+        grand.right = child;
+        parent.left = grand;
+        afterRotate(grand, parent, child);
+    }
+
+    private void rotateRight(LongNode grand) {
+        LongNode parent = grand.left;
+        LongNode child = parent.right;
+        grand.left = child;
+        parent.right = grand;
+        afterRotate(grand, parent, child);
+    }
+
+    private void afterRotate(LongNode grand, LongNode parent, LongNode child) {
+        // 让parent成为子树的根节点
+        parent.parent = grand.parent;
+        if (grand.isLeftChild()) {
+            grand.parent.left = parent;
+        } else if (grand.isRightChild()) {
+            grand.parent.right = parent;
+        } else { // grand是root节点
+            root = parent;
+        }
+
+        // 更新child的parent
+        if (child != null) {
+            child.parent = grand;
+        }
+
+        // 更新grand的parent
+        grand.parent = parent;
+    }
+
+    private static int heightOf(LongNode node) {
+        return node == null ? 0 : 1 + Math.max(heightOf(node.left), heightOf(node.right));
+    }
+
+    private static LongNode color(LongNode node, boolean color) {
+        if (node == null) return node;
+        node.color = color;
+        return node;
+    }
+
+    private static LongNode red(LongNode node) {
+        return color(node, RED);
+    }
+
+    private static LongNode black(LongNode node) {
+        return color(node, BLACK);
+    }
+
+    private static boolean colorOf(LongNode node) {
+        return node == null ? BLACK : node.color;
+    }
+
+    private static boolean isBlack(LongNode node) {
+        return colorOf(node) == BLACK;
+    }
+
+    private static boolean isRed(LongNode node) {
+        return colorOf(node) == RED;
+    }
+
+    private static class LongNode {
+        long element;
+        boolean color = RED;
+        LongNode left;
+        LongNode right;
+        LongNode parent;
+
+        LongNode(long element, LongNode parent) {
+            this.element = element;
+            this.parent = parent;
+        }
+
+        boolean isLeftChild() {
+            return parent != null && this == parent.left;
+        }
+
+        boolean isRightChild() {
+            return parent != null && this == parent.right;
+        }
+
+        LongNode sibling() {
+            if (isLeftChild()) return parent.right;
+            if (isRightChild()) return parent.left;
+            return null;
+        }
+    }
+}
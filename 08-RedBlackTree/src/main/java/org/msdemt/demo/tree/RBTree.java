@@ -1,6 +1,8 @@
 package org.msdemt.demo.tree;
 
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Iterator;
 
 /**
  * 红黑树
@@ -16,7 +18,196 @@ public class RBTree<E> extends BBST<E> {
     }
 
     public RBTree(Comparator<E> comparator) {
-        super(comparator);
+        this(comparator, false);
+    }
+
+    /**
+     * @param orderStatistic 是否开启顺序统计（rank、select、countRange）
+     */
+    public RBTree(Comparator<E> comparator, boolean orderStatistic) {
+        super(comparator, orderStatistic);
+    }
+
+    /**
+     * 用从小到大排好序的元素构建一棵红黑树，每个节点的颜色都满足红黑树的性质，O(n)，没有比较、没有旋转
+     *
+     * @param elements 严格递增，不会检查
+     * @return
+     */
+    public static <E> RBTree<E> buildFromSorted(E[] elements) {
+        return buildFromSorted(elements, null);
+    }
+
+    public static <E> RBTree<E> buildFromSorted(E[] elements, Comparator<E> comparator) {
+        return buildFromSorted(Arrays.asList(elements).iterator(), elements.length, comparator);
+    }
+
+    public static <E> RBTree<E> buildFromSorted(Iterator<? extends E> iterator, int size, Comparator<E> comparator) {
+        RBTree<E> tree = new RBTree<>(comparator);
+        tree.build(iterator, size);
+        return tree;
+    }
+
+    @Override
+    protected void afterBuild(Node<E> node, boolean bottom) {
+        // 上面的满层都染成黑色，每条路径的黑色节点数量相同；最底层没有填满，染成红色，它们的父节点都是黑色
+        color(node, bottom ? RED : BLACK);
+    }
+
+    @Override
+    public RBTree<E> split(E element) {
+        return (RBTree<E>) super.split(element);
+    }
+
+    @Override
+    protected BBST<E> createTree() {
+        return new RBTree<>(comparator(), isOrderStatistic());
+    }
+
+    /**
+     * 黑高度：从根节点到任意一个空子节点的路径上黑色节点的数量，红黑树的性质保证每条路径都相同，
+     * 沿着最左边的路径数一遍就行，O(log n)
+     *
+     * @return
+     */
+    public int blackHeight() {
+        return blackHeightOf(root);
+    }
+
+    /**
+     * 高度的下界，O(log n)：每条路径上至少有blackHeight个节点
+     *
+     * @return
+     */
+    public int minHeight() {
+        return blackHeight();
+    }
+
+    /**
+     * 高度的上界，O(log n)：根节点是黑色并且红色节点不能连续，每条路径上红色节点的数量不超过黑色节点的数量。
+     * 精确的高度没法从颜色推出来，仍然需要调用height()遍历整棵树
+     *
+     * @return
+     */
+    public int maxHeight() {
+        return 2 * blackHeight();
+    }
+
+    @Override
+    protected void beforeJoin(Node<E> root) {
+        if (root == null) return;
+        // 根节点是黑色
+        ((RBNode<E>) root).blackHeight = blackHeightOf(root);
+    }
+
+    private int blackHeightOf(Node<E> root) {
+        int blackHeight = 0;
+        for (Node<E> node = root; node != null; node = node.left) {
+            if (isBlack(node)) {
+                blackHeight++;
+            }
+        }
+        return blackHeight;
+    }
+
+    @Override
+    protected void expose(Node<E> node) {
+        // 每条路径上的黑色节点数量相同，子节点的黑高度由父节点直接算出，不需要再往下数
+        int blackHeight = ((RBNode<E>) node).blackHeight - (isBlack(node) ? 1 : 0);
+        if (node.left != null) {
+            ((RBNode<E>) node.left).blackHeight = blackHeight;
+        }
+        if (node.right != null) {
+            ((RBNode<E>) node.right).blackHeight = blackHeight;
+        }
+    }
+
+    @Override
+    protected void afterJoin(Node<E> root) {
+        black(root);
+    }
+
+    /**
+     * 先把两棵子树的根节点染成黑色，黑高度相同时middle作为黑色的根节点；
+     * 否则沿着黑高度较大的树的边界往下，找到第一个黑高度等于较小黑高度的黑色节点c，
+     * 用红色的middle替换c（c、较矮的树作为middle的子节点），各条路径的黑色节点数量不变，
+     * 只可能出现连续的红色节点，和添加节点一样往上修复
+     */
+    @Override
+    protected Node<E> join(Node<E> left, Node<E> middle, Node<E> right) {
+        int leftHeight = rootBlackHeight(left);
+        int rightHeight = rootBlackHeight(right);
+        if (leftHeight == rightHeight) {
+            link(left, middle, right);
+            black(middle);
+            ((RBNode<E>) middle).blackHeight = leftHeight + 1;
+            return middle;
+        }
+
+        Node<E> sentinel;
+        Node<E> parent;
+        Node<E> node;
+        int height;
+        if (leftHeight > rightHeight) {
+            sentinel = black(attachSentinel(left));
+            // 沿着left的右边界往下找
+            parent = sentinel;
+            node = left;
+            height = leftHeight;
+            while (isRed(node) || height != rightHeight) {
+                if (isBlack(node)) {
+                    height--;
+                }
+                parent = node;
+                node = node.right;
+            }
+            link(node, middle, right);
+            parent.right = middle;
+        } else {
+            sentinel = black(attachSentinel(right));
+            // 沿着right的左边界往下找
+            parent = sentinel;
+            node = right;
+            height = rightHeight;
+            while (isRed(node) || height != leftHeight) {
+                if (isBlack(node)) {
+                    height--;
+                }
+                parent = node;
+                node = node.left;
+            }
+            link(left, middle, node);
+            parent.left = middle;
+        }
+        middle.parent = parent;
+        red(middle);
+        updateCountsUpward(parent, middle.count - (node == null ? 0 : node.count));
+        // 哨兵是黑色的，修复到子树的根节点就会停止
+        afterAdd(middle);
+
+        Node<E> root = detachSentinel(sentinel);
+        int blackHeight = Math.max(leftHeight, rightHeight);
+        if (isRed(root)) {
+            black(root);
+            blackHeight++;
+        }
+        ((RBNode<E>) root).blackHeight = blackHeight;
+        return root;
+    }
+
+    /**
+     * 把独立子树的根节点染成黑色（仍然是一棵红黑树，黑高度加1）
+     *
+     * @return 子树的黑高度
+     */
+    private int rootBlackHeight(Node<E> root) {
+        if (root == null) return 0;
+        RBNode<E> node = (RBNode<E>) root;
+        if (node.color == RED) {
+            node.color = BLACK;
+            node.blackHeight++;
+        }
+        return node.blackHeight;
     }
 
     @Override
@@ -255,8 +446,11 @@ public class RBTree<E> extends BBST<E> {
         return new RBNode<>(element, parent);
     }
 
-    private static class RBNode<E> extends Node<E> {
+    protected static class RBNode<E> extends Node<E> {
         boolean color = RED;
+        // 黑高度：从该节点往下到叶子的路径上的黑色节点数量（包括自己）
+        // 只在split、join期间对独立子树的根节点有效
+        int blackHeight;
 
         public RBNode(E element, Node<E> parent) {
             super(element, parent);
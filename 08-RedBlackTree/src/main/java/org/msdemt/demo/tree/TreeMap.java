@@ -0,0 +1,324 @@
+package org.msdemt.demo.tree;
+
+import org.msdemt.demo.tree.BinaryTree.Node;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 基于红黑树的映射
+ * <p>
+ * 用RBTree<K>存储，key就是树节点的element，value直接存放在节点中（MapEntry），
+ * 不需要为每个映射额外创建一个按key比较的包装对象；旋转、恢复红黑性质全部复用RBTree、BBST的代码
+ * <p>
+ * 不允许null key，允许null value
+ *
+ * @param <K>
+ * @param <V>
+ */
+@SuppressWarnings("unchecked")
+public class TreeMap<K, V> implements Iterable<Map.Entry<K, V>> {
+    private final EntryTree<K, V> tree;
+
+    public TreeMap() {
+        this(null);
+    }
+
+    public TreeMap(Comparator<K> comparator) {
+        tree = new EntryTree<>(comparator);
+    }
+
+    public int size() {
+        return tree.size();
+    }
+
+    public boolean isEmpty() {
+        return tree.isEmpty();
+    }
+
+    public void clear() {
+        tree.clear();
+    }
+
+    /**
+     * @param key
+     * @param value
+     * @return key之前对应的value，之前不存在时返回null
+     */
+    public V put(K key, V value) {
+        MapEntry<K, V> entry = (MapEntry<K, V>) tree.addNode(key);
+        V oldValue = entry.value;
+        entry.value = value;
+        return oldValue;
+    }
+
+    /**
+     * @param key
+     * @return key对应的value，不存在时返回null
+     */
+    public V get(K key) {
+        MapEntry<K, V> entry = entry(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * @param key
+     * @return 被删除的value，不存在时返回null
+     */
+    public V remove(K key) {
+        MapEntry<K, V> entry = entry(key);
+        if (entry == null) return null;
+
+        V oldValue = entry.value;
+        tree.remove(entry);
+        return oldValue;
+    }
+
+    public boolean containsKey(K key) {
+        return entry(key) != null;
+    }
+
+    /**
+     * 需要遍历所有节点，O(n)
+     */
+    public boolean containsValue(V value) {
+        for (Map.Entry<K, V> entry : this) {
+            if (Objects.equals(value, entry.getValue())) return true;
+        }
+        return false;
+    }
+
+    /**
+     * key不存在或者对应的value为null时才放入value
+     *
+     * @param key
+     * @param value
+     * @return key之前对应的value
+     */
+    public V putIfAbsent(K key, V value) {
+        MapEntry<K, V> entry = (MapEntry<K, V>) tree.addNode(key);
+        V oldValue = entry.value;
+        if (oldValue == null) {
+            entry.value = value;
+        }
+        return oldValue;
+    }
+
+    /**
+     * key不存在或者对应的value为null时，用mappingFunction计算value并放入
+     * <p>
+     * 先查找key，mappingFunction执行期间映射中还没有这个key，mappingFunction可以修改映射；
+     * 计算出的value不为null时再添加，只有key不存在时才会多一次从根节点往下的查找
+     *
+     * @param key
+     * @param mappingFunction
+     * @return key当前对应的value
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        MapEntry<K, V> entry = entry(key);
+        if (entry != null && entry.value != null) return entry.value;
+
+        V value = mappingFunction.apply(key);
+        if (value != null) {
+            // mappingFunction可能修改了映射，重新添加（或者找到）key的节点
+            ((MapEntry<K, V>) tree.addNode(key)).value = value;
+        }
+        return value;
+    }
+
+    public K firstKey() {
+        return tree.first();
+    }
+
+    public K lastKey() {
+        return tree.last();
+    }
+
+    public K floorKey(K key) {
+        return tree.floor(key);
+    }
+
+    public K ceilingKey(K key) {
+        return tree.ceiling(key);
+    }
+
+    public K lowerKey(K key) {
+        return tree.lower(key);
+    }
+
+    public K higherKey(K key) {
+        return tree.higher(key);
+    }
+
+    /**
+     * 返回的entry就是树中的节点，setValue会直接修改映射；删除映射之后不要再使用
+     *
+     * @return 最小key的映射，为空时返回null
+     */
+    public Map.Entry<K, V> firstEntry() {
+        return (MapEntry<K, V>) tree.firstNode();
+    }
+
+    /**
+     * @return 最大key的映射，为空时返回null
+     */
+    public Map.Entry<K, V> lastEntry() {
+        return (MapEntry<K, V>) tree.lastNode();
+    }
+
+    /**
+     * @return key小于等于参数的最大映射，不存在时返回null
+     */
+    public Map.Entry<K, V> floorEntry(K key) {
+        return (MapEntry<K, V>) tree.floorNode(key, true);
+    }
+
+    /**
+     * @return key大于等于参数的最小映射，不存在时返回null
+     */
+    public Map.Entry<K, V> ceilingEntry(K key) {
+        return (MapEntry<K, V>) tree.ceilingNode(key, true);
+    }
+
+    /**
+     * @return key小于参数的最大映射，不存在时返回null
+     */
+    public Map.Entry<K, V> lowerEntry(K key) {
+        return (MapEntry<K, V>) tree.floorNode(key, false);
+    }
+
+    /**
+     * @return key大于参数的最小映射，不存在时返回null
+     */
+    public Map.Entry<K, V> higherEntry(K key) {
+        return (MapEntry<K, V>) tree.ceilingNode(key, false);
+    }
+
+    /**
+     * 按key从小到大的迭代器，支持remove
+     *
+     * @return
+     */
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return tree.entryIterator(tree.firstNode(), false, null);
+    }
+
+    public Iterator<Map.Entry<K, V>> descendingIterator() {
+        return tree.entryIterator(tree.lastNode(), true, null);
+    }
+
+    /**
+     * key在 [fromKey, toKey) 范围内的映射，返回的是视图
+     *
+     * @param fromKey 包含
+     * @param toKey   不包含
+     * @return
+     */
+    public Iterable<Map.Entry<K, V>> subMap(K fromKey, K toKey) {
+        tree.rangeCheck(fromKey, toKey);
+        return () -> tree.entryIterator(tree.ceilingNode(fromKey, true), false, toKey);
+    }
+
+    /**
+     * 按key从小到大的顺序
+     *
+     * @return
+     */
+    public Iterable<K> keys() {
+        return tree;
+    }
+
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        Node<K> node = tree.firstNode();
+        while (node != null) {
+            action.accept(node.element, ((MapEntry<K, V>) node).value);
+            node = tree.successor(node);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        string.append("size=").append(size()).append(", {");
+        boolean first = true;
+        for (Map.Entry<K, V> entry : this) {
+            if (!first) {
+                string.append(", ");
+            }
+            first = false;
+            string.append(entry.getKey()).append("=").append(entry.getValue());
+        }
+        string.append("}");
+        return string.toString();
+    }
+
+    private MapEntry<K, V> entry(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("element must not be null");
+        }
+        return (MapEntry<K, V>) tree.node(key);
+    }
+
+    private static class EntryTree<K, V> extends RBTree<K> {
+        EntryTree(Comparator<K> comparator) {
+            super(comparator);
+        }
+
+        @Override
+        protected Node<K> createNode(K element, Node<K> parent) {
+            return new MapEntry<K, V>(element, parent);
+        }
+
+        @Override
+        protected void replaceElement(Node<K> node, Node<K> successor) {
+            super.replaceElement(node, successor);
+            ((MapEntry<K, V>) node).value = ((MapEntry<K, V>) successor).value;
+        }
+
+        Iterator<Map.Entry<K, V>> entryIterator(Node<K> first, boolean descending, K toElement) {
+            return new NodeIterator<Map.Entry<K, V>>(first, descending, toElement) {
+                @Override
+                public Map.Entry<K, V> next() {
+                    return (MapEntry<K, V>) nextNode();
+                }
+            };
+        }
+    }
+
+    private static class MapEntry<K, V> extends RBTree.RBNode<K> implements Map.Entry<K, V> {
+        V value;
+
+        MapEntry(K key, Node<K> parent) {
+            super(key, parent);
+        }
+
+        @Override
+        public K getKey() {
+            return element;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V oldValue = this.value;
+            this.value = value;
+            return oldValue;
+        }
+
+        @Override
+        public String toString() {
+            return super.toString() + "_" + value;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package org.msdemt.demo;
+
+import org.msdemt.demo.heap.BinaryHeap;
+import org.msdemt.demo.heap.DaryHeap;
+import org.msdemt.demo.heap.Heap;
+import org.msdemt.demo.heap.IndexedHeap;
+import org.msdemt.demo.heap.IndexedMinPQ;
+import org.msdemt.demo.heap.IndexedPairingHeap;
+import org.msdemt.demo.heap.IntHeap;
+import org.msdemt.demo.heap.LongHeap;
+import org.msdemt.demo.printer.BinaryTrees;
+import org.msdemt.demo.tree.RBTree;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+@SuppressWarnings("unused")
+public class Main {
+
+    static void test1() {
+        Integer[] data = {88, 44, 53, 41, 16, 6, 70, 18, 85, 98, 81, 23, 36, 43, 37};
+        BinaryHeap<Integer> heap = new BinaryHeap<>(data);
+        BinaryTrees.println(heap);
+
+        PriorityQueue<Integer> queue = new PriorityQueue<>();
+        for (Integer e : data) {
+            queue.enQueue(e);
+        }
+        while (!queue.isEmpty()) {
+            System.out.print(queue.deQueue() + " ");
+        }
+        System.out.println();
+    }
+
+    /**
+     * 各种堆依次出堆的结果必须与排序结果一致
+     */
+    static void test2() {
+        Random random = new Random(1);
+        int[] data = new int[10_0000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = random.nextInt(100_0000);
+        }
+        Integer[] boxed = Arrays.stream(data).boxed().toArray(Integer[]::new);
+        int[] sorted = data.clone();
+        Arrays.sort(sorted);
+
+        Comparator<Integer> reverse = (e1, e2) -> e2.compareTo(e1);
+        checkAscending(new BinaryHeap<>(boxed, reverse), sorted);
+        checkAscending(new DaryHeap<>(4, boxed, reverse), sorted);
+        checkAscending(new DaryHeap<>(3, boxed, reverse), sorted);
+
+        Heap<Integer> added = new DaryHeap<>(reverse);
+        for (Integer e : boxed) {
+            added.add(e);
+        }
+        checkAscending(added, sorted);
+
+        IntHeap intHeap = new IntHeap(data, true);
+        for (int e : sorted) {
+            Asserts.test(intHeap.remove() == e);
+        }
+        LongHeap longHeap = new LongHeap(false);
+        for (int e : data) {
+            longHeap.add(e);
+        }
+        for (int i = sorted.length - 1; i >= 0; i--) {
+            Asserts.test(longHeap.remove() == sorted[i]);
+        }
+        Asserts.test(intHeap.isEmpty() && longHeap.isEmpty());
+    }
+
+    private static void checkAscending(Heap<Integer> heap, int[] sorted) {
+        for (int e : sorted) {
+            Asserts.test(heap.remove() == e);
+        }
+        Asserts.test(heap.isEmpty());
+    }
+
+    /**
+     * 小顶堆：依次添加count个随机数，再依次取出最小值
+     */
+    static void test3() {
+        int count = 100_0000;
+        Random random = new Random(1);
+        int[] data = new int[count];
+        for (int i = 0; i < count; i++) {
+            data[i] = random.nextInt();
+        }
+        Integer[] boxed = Arrays.stream(data).boxed().toArray(Integer[]::new);
+        Integer[] sorted = boxed.clone();
+        Arrays.sort(sorted);
+        Comparator<Integer> reverse = (e1, e2) -> e2.compareTo(e1);
+
+        Times.test("BinaryHeap", () -> {
+            BinaryHeap<Integer> heap = new BinaryHeap<>(reverse);
+            for (Integer e : boxed) heap.add(e);
+            while (!heap.isEmpty()) heap.remove();
+        });
+
+        Times.test("BinaryHeap heapify", () -> {
+            BinaryHeap<Integer> heap = new BinaryHeap<>(boxed, reverse);
+            while (!heap.isEmpty()) heap.remove();
+        });
+
+        Times.test("DaryHeap(d=4)", () -> {
+            DaryHeap<Integer> heap = new DaryHeap<>(reverse);
+            for (Integer e : boxed) heap.add(e);
+            while (!heap.isEmpty()) heap.remove();
+        });
+
+        Times.test("IntHeap", () -> {
+            IntHeap heap = new IntHeap(true);
+            for (int e : data) heap.add(e);
+            while (!heap.isEmpty()) heap.remove();
+        });
+
+        Times.test("java.util.PriorityQueue", () -> {
+            java.util.PriorityQueue<Integer> queue = new java.util.PriorityQueue<>();
+            for (Integer e : boxed) queue.offer(e);
+            while (!queue.isEmpty()) queue.poll();
+        });
+
+        // RBTree没有取最小值的接口，按从小到大的顺序remove来模拟
+        Times.test("RBTree", () -> {
+            RBTree<Integer> tree = new RBTree<>();
+            for (Integer e : boxed) tree.add(e);
+            for (Integer e : sorted) tree.remove(e);
+        });
+    }
+
+    /**
+     * IndexedMinPQ与IndexedPairingHeap执行相同的随机操作，结果必须一致
+     */
+    static void test4() {
+        int capacity = 1000;
+        Random random = new Random(1);
+        IndexedMinPQ pq = new IndexedMinPQ(capacity);
+        IndexedPairingHeap pairing = new IndexedPairingHeap(capacity);
+        for (int i = 0; i < 100_0000; i++) {
+            int id = random.nextInt(capacity);
+            // 加上id作为小数部分，保证优先级不重复，两个堆弹出的id相同
+            double priority = random.nextInt(10_0000) + (double) id / capacity;
+            int op = random.nextInt(5);
+            if (!pq.contains(id)) {
+                pq.insert(id, priority);
+                pairing.insert(id, priority);
+            } else if (op == 0) {
+                pq.delete(id);
+                pairing.delete(id);
+            } else if (op == 1 && priority < pq.priority(id)) {
+                pq.decreaseKey(id, priority);
+                pairing.decreaseKey(id, priority);
+            } else if (op == 2 && priority > pq.priority(id)) {
+                pq.increaseKey(id, priority);
+                pairing.increaseKey(id, priority);
+            } else if (op == 3) {
+                Asserts.test(pq.poll() == pairing.poll());
+            }
+            Asserts.test(pq.size() == pairing.size());
+        }
+        while (!pq.isEmpty()) {
+            Asserts.test(pq.poll() == pairing.poll());
+        }
+        Asserts.test(pairing.isEmpty());
+    }
+
+    /**
+     * 在随机图上执行Dijkstra：
+     * 1. IndexedMinPQ、IndexedPairingHeap使用decreaseKey
+     * 2. java.util.PriorityQueue只能重复插入，出队时跳过过期的元素
+     */
+    static void test5() {
+        int vertices = 100_0000;
+        int edgesPerVertex = 10;
+        Random random = new Random(1);
+        // 邻接表使用CSR格式：顶点v的边为 [offsets[v], offsets[v + 1])
+        int[] offsets = new int[vertices + 1];
+        int[] targets = new int[vertices * edgesPerVertex];
+        float[] weights = new float[targets.length];
+        for (int v = 0; v < vertices; v++) {
+            offsets[v + 1] = offsets[v] + edgesPerVertex;
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                targets[e] = random.nextInt(vertices);
+                weights[e] = 1 + random.nextInt(1000);
+            }
+        }
+        System.out.println("顶点：" + vertices + " 边：" + targets.length);
+
+        double[][] results = new double[3][];
+        Times.test("Dijkstra + IndexedMinPQ", () -> {
+            results[0] = dijkstra(new IndexedMinPQ(vertices), offsets, targets, weights);
+        });
+        Times.test("Dijkstra + IndexedPairingHeap", () -> {
+            results[1] = dijkstra(new IndexedPairingHeap(vertices), offsets, targets, weights);
+        });
+        Times.test("Dijkstra + java.util.PriorityQueue", () -> {
+            results[2] = dijkstra(offsets, targets, weights);
+        });
+        Asserts.test(Arrays.equals(results[0], results[1]));
+        Asserts.test(Arrays.equals(results[0], results[2]));
+    }
+
+    private static double[] dijkstra(IndexedHeap heap, int[] offsets, int[] targets, float[] weights) {
+        double[] distances = new double[offsets.length - 1];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        distances[0] = 0;
+        heap.insert(0, 0);
+        while (!heap.isEmpty()) {
+            int v = heap.poll();
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                int w = targets[e];
+                double distance = distances[v] + weights[e];
+                if (distance >= distances[w]) continue;
+
+                if (distances[w] == Double.POSITIVE_INFINITY) {
+                    heap.insert(w, distance);
+                } else {
+                    heap.decreaseKey(w, distance);
+                }
+                distances[w] = distance;
+            }
+        }
+        return distances;
+    }
+
+    private static double[] dijkstra(int[] offsets, int[] targets, float[] weights) {
+        double[] distances = new double[offsets.length - 1];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        distances[0] = 0;
+        java.util.PriorityQueue<double[]> queue = new java.util.PriorityQueue<>(
+                (e1, e2) -> Double.compare(e1[0], e2[0]));
+        queue.offer(new double[]{0, 0});
+        while (!queue.isEmpty()) {
+            double[] entry = queue.poll();
+            int v = (int) entry[1];
+            // 过期的元素
+            if (entry[0] > distances[v]) continue;
+
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                int w = targets[e];
+                double distance = distances[v] + weights[e];
+                if (distance >= distances[w]) continue;
+
+                distances[w] = distance;
+                queue.offer(new double[]{distance, w});
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * 四种堆的replace：堆为空时直接添加，不为空时返回原来的堆顶元素
+     */
+    static void test6() {
+        Heap<Integer> binaryHeap = new BinaryHeap<>();
+        Asserts.test(binaryHeap.replace(5) == null);
+        Asserts.test(binaryHeap.size() == 1 && binaryHeap.get() == 5);
+        Asserts.test(binaryHeap.replace(3) == 5 && binaryHeap.get() == 3);
+
+        Heap<Integer> daryHeap = new DaryHeap<>(4);
+        Asserts.test(daryHeap.replace(5) == null);
+        Asserts.test(daryHeap.size() == 1 && daryHeap.get() == 5);
+        Asserts.test(daryHeap.replace(3) == 5 && daryHeap.get() == 3);
+
+        IntHeap intHeap = new IntHeap(new int[0], false);
+        Asserts.test(intHeap.replace(5) == 5);
+        Asserts.test(intHeap.size() == 1 && intHeap.get() == 5);
+        Asserts.test(intHeap.replace(3) == 5 && intHeap.get() == 3);
+        intHeap.add(8);
+        Asserts.test(intHeap.replace(1) == 8 && intHeap.get() == 3);
+
+        LongHeap longHeap = new LongHeap(true);
+        Asserts.test(longHeap.replace(5) == 5);
+        Asserts.test(longHeap.size() == 1 && longHeap.get() == 5);
+        Asserts.test(longHeap.replace(7) == 5 && longHeap.get() == 7);
+        longHeap.add(2);
+        Asserts.test(longHeap.replace(9) == 2 && longHeap.get() == 7);
+    }
+
+    public static void main(String[] args) {
+        test6();
+    }
+}
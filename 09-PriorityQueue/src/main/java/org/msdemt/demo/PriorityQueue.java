@@ -0,0 +1,46 @@
+package org.msdemt.demo;
+
+import org.msdemt.demo.heap.BinaryHeap;
+
+import java.util.Comparator;
+
+/**
+ * 使用二叉堆实现优先级队列，优先级最高（compare结果最大）的元素先出队
+ *
+ * @param <E>
+ */
+public class PriorityQueue<E> {
+    private BinaryHeap<E> heap;
+
+    public PriorityQueue(Comparator<E> comparator) {
+        heap = new BinaryHeap<>(comparator);
+    }
+
+    public PriorityQueue() {
+        this(null);
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    public boolean isEmpty() {
+        return heap.isEmpty();
+    }
+
+    public void clear() {
+        heap.clear();
+    }
+
+    public void enQueue(E element) {
+        heap.add(element);
+    }
+
+    public E deQueue() {
+        return heap.remove();
+    }
+
+    public E front() {
+        return heap.get();
+    }
+}
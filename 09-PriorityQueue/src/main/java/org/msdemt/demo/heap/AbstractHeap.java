@@ -0,0 +1,54 @@
+package org.msdemt.demo.heap;
+
+import java.util.Comparator;
+
+/**
+ * 堆的公共逻辑
+ * <p>
+ * 堆顶是compare结果最大的元素，需要小顶堆时传入反向的比较器
+ *
+ * @param <E>
+ */
+@SuppressWarnings("unchecked")
+public abstract class AbstractHeap<E> implements Heap<E> {
+    protected int size;
+    protected Comparator<E> comparator;
+
+    public AbstractHeap(Comparator<E> comparator) {
+        this.comparator = comparator;
+    }
+
+    public AbstractHeap() {
+        this(null);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return 返回值等于0，代表e1和e2相等；返回值大于0，代表e1大于e2；返回值小于于0，代表e1小于e2
+     */
+    protected int compare(E e1, E e2) {
+        return comparator != null ? comparator.compare(e1, e2)
+                : ((Comparable<E>) e1).compareTo(e2);
+    }
+
+    protected void emptyCheck() {
+        if (size == 0) {
+            throw new IndexOutOfBoundsException("Heap is empty");
+        }
+    }
+
+    protected void elementNotNullCheck(E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("element must not be null");
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.msdemt.demo.heap;
+
+import org.msdemt.demo.printer.BinaryTreeInfo;
+
+import java.util.Comparator;
+
+/**
+ * 二叉堆（默认为大顶堆）
+ * <p>
+ * 用数组存储一棵完全二叉树，索引为i的节点：
+ * 1. 左子节点的索引为 2i + 1，右子节点的索引为 2i + 2
+ * 2. 父节点的索引为 (i - 1) / 2
+ *
+ * @param <E>
+ */
+@SuppressWarnings("unchecked")
+public class BinaryHeap<E> extends AbstractHeap<E> implements BinaryTreeInfo {
+    private E[] elements;
+    private static final int DEFAULT_CAPACITY = 10;
+
+    public BinaryHeap(E[] elements, Comparator<E> comparator) {
+        super(comparator);
+
+        if (elements == null || elements.length == 0) {
+            this.elements = (E[]) new Object[DEFAULT_CAPACITY];
+        } else {
+            heapify(elements);
+        }
+    }
+
+    public BinaryHeap(E[] elements) {
+        this(elements, null);
+    }
+
+    public BinaryHeap(Comparator<E> comparator) {
+        this(null, comparator);
+    }
+
+    public BinaryHeap() {
+        this(null, null);
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            elements[i] = null;
+        }
+        size = 0;
+    }
+
+    @Override
+    public void add(E element) {
+        elementNotNullCheck(element);
+        ensureCapacity(size + 1);
+        elements[size++] = element;
+        siftUp(size - 1);
+    }
+
+    @Override
+    public E get() {
+        emptyCheck();
+        return elements[0];
+    }
+
+    @Override
+    public E remove() {
+        emptyCheck();
+
+        int lastIndex = --size;
+        E root = elements[0];
+        elements[0] = elements[lastIndex];
+        elements[lastIndex] = null;
+
+        siftDown(0);
+        return root;
+    }
+
+    @Override
+    public E replace(E element) {
+        elementNotNullCheck(element);
+
+        E root = null;
+        if (size == 0) {
+            elements[0] = element;
+            size++;
+        } else {
+            root = elements[0];
+            elements[0] = element;
+            siftDown(0);
+        }
+        return root;
+    }
+
+    /**
+     * 批量建堆：用elements的拷贝替换堆中原有的元素
+     * <p>
+     * 自下而上的下滤，时间复杂度O(n)
+     *
+     * @param elements
+     */
+    public void heapify(E[] elements) {
+        int capacity = Math.max(elements.length, DEFAULT_CAPACITY);
+        this.elements = (E[]) new Object[capacity];
+        for (int i = 0; i < elements.length; i++) {
+            elementNotNullCheck(elements[i]);
+            this.elements[i] = elements[i];
+        }
+        size = elements.length;
+
+        // 从最后一个非叶子节点开始下滤
+        for (int i = (size >> 1) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * 让index位置的元素下滤
+     *
+     * @param index
+     */
+    private void siftDown(int index) {
+        E element = elements[index];
+        int half = size >> 1;
+        // 第一个叶子节点的索引 == 非叶子节点的数量
+        // index < 第一个叶子节点的索引
+        // 必须保证index位置是非叶子节点
+        while (index < half) {
+            // index的节点有2种情况
+            // 1.只有左子节点
+            // 2.同时有左右子节点
+
+            // 默认为左子节点跟它进行比较
+            int childIndex = (index << 1) + 1;
+            E child = elements[childIndex];
+
+            // 右子节点
+            int rightIndex = childIndex + 1;
+
+            // 选出左右子节点最大的那个
+            if (rightIndex < size && compare(elements[rightIndex], child) > 0) {
+                child = elements[childIndex = rightIndex];
+            }
+
+            if (compare(element, child) >= 0) break;
+
+            // 将子节点存放到index位置
+            elements[index] = child;
+            // 重新设置index
+            index = childIndex;
+        }
+        elements[index] = element;
+    }
+
+    /**
+     * 让index位置的元素上滤
+     *
+     * @param index
+     */
+    private void siftUp(int index) {
+        E element = elements[index];
+        while (index > 0) {
+            int parentIndex = (index - 1) >> 1;
+            E parent = elements[parentIndex];
+            if (compare(element, parent) <= 0) break;
+
+            // 将父元素存储在index位置
+            elements[index] = parent;
+
+            // 重新赋值index
+            index = parentIndex;
+        }
+        elements[index] = element;
+    }
+
+    private void ensureCapacity(int capacity) {
+        int oldCapacity = elements.length;
+        if (oldCapacity >= capacity) return;
+
+        // 新容量为旧容量的1.5倍
+        int newCapacity = oldCapacity + (oldCapacity >> 1);
+        E[] newElements = (E[]) new Object[newCapacity];
+        for (int i = 0; i < size; i++) {
+            newElements[i] = elements[i];
+        }
+        elements = newElements;
+    }
+
+    @Override
+    public Object root() {
+        return size == 0 ? null : 0;
+    }
+
+    @Override
+    public Object left(Object node) {
+        int index = ((int) node << 1) + 1;
+        return index >= size ? null : index;
+    }
+
+    @Override
+    public Object right(Object node) {
+        int index = ((int) node << 1) + 2;
+        return index >= size ? null : index;
+    }
+
+    @Override
+    public Object string(Object node) {
+        return elements[(int) node];
+    }
+}
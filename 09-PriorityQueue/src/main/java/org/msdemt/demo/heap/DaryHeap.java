@@ -0,0 +1,175 @@
+package org.msdemt.demo.heap;
+
+import java.util.Comparator;
+
+/**
+ * d叉堆（默认为大顶堆，d默认为4）
+ * <p>
+ * 索引为i的节点：子节点的索引为 d*i + 1 ~ d*i + d，父节点的索引为 (i - 1) / d
+ * <p>
+ * 与二叉堆相比，树的高度从log2(n)降为logd(n)，上滤更快；
+ * 下滤时每层要比较d个子节点，但这d个子节点在数组中是连续的，通常位于同一个缓存行
+ *
+ * @param <E>
+ */
+@SuppressWarnings("unchecked")
+public class DaryHeap<E> extends AbstractHeap<E> {
+    private static final int DEFAULT_ARITY = 4;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final int d;
+    private E[] elements;
+
+    public DaryHeap() {
+        this(DEFAULT_ARITY, null, null);
+    }
+
+    public DaryHeap(Comparator<E> comparator) {
+        this(DEFAULT_ARITY, null, comparator);
+    }
+
+    public DaryHeap(int d) {
+        this(d, null, null);
+    }
+
+    public DaryHeap(int d, Comparator<E> comparator) {
+        this(d, null, comparator);
+    }
+
+    public DaryHeap(int d, E[] elements, Comparator<E> comparator) {
+        super(comparator);
+        if (d < 2) {
+            throw new IllegalArgumentException("d must be at least 2");
+        }
+        this.d = d;
+
+        if (elements == null || elements.length == 0) {
+            this.elements = (E[]) new Object[DEFAULT_CAPACITY];
+        } else {
+            heapify(elements);
+        }
+    }
+
+    public int arity() {
+        return d;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            elements[i] = null;
+        }
+        size = 0;
+    }
+
+    @Override
+    public void add(E element) {
+        elementNotNullCheck(element);
+        ensureCapacity(size + 1);
+        elements[size++] = element;
+        siftUp(size - 1);
+    }
+
+    @Override
+    public E get() {
+        emptyCheck();
+        return elements[0];
+    }
+
+    @Override
+    public E remove() {
+        emptyCheck();
+
+        int lastIndex = --size;
+        E root = elements[0];
+        elements[0] = elements[lastIndex];
+        elements[lastIndex] = null;
+
+        siftDown(0);
+        return root;
+    }
+
+    @Override
+    public E replace(E element) {
+        elementNotNullCheck(element);
+
+        E root = null;
+        if (size == 0) {
+            elements[0] = element;
+            size++;
+        } else {
+            root = elements[0];
+            elements[0] = element;
+            siftDown(0);
+        }
+        return root;
+    }
+
+    /**
+     * 批量建堆：用elements的拷贝替换堆中原有的元素，时间复杂度O(n)
+     *
+     * @param elements
+     */
+    public void heapify(E[] elements) {
+        int capacity = Math.max(elements.length, DEFAULT_CAPACITY);
+        this.elements = (E[]) new Object[capacity];
+        for (int i = 0; i < elements.length; i++) {
+            elementNotNullCheck(elements[i]);
+            this.elements[i] = elements[i];
+        }
+        size = elements.length;
+
+        // 从最后一个非叶子节点开始下滤
+        for (int i = (size - 2) / d; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    private void siftDown(int index) {
+        E element = elements[index];
+        while (true) {
+            int firstChild = d * index + 1;
+            if (firstChild >= size) break;
+
+            // 选出d个子节点中最大的那个
+            int lastChild = Math.min(firstChild + d, size);
+            int childIndex = firstChild;
+            E child = elements[firstChild];
+            for (int i = firstChild + 1; i < lastChild; i++) {
+                if (compare(elements[i], child) > 0) {
+                    child = elements[childIndex = i];
+                }
+            }
+
+            if (compare(element, child) >= 0) break;
+
+            elements[index] = child;
+            index = childIndex;
+        }
+        elements[index] = element;
+    }
+
+    private void siftUp(int index) {
+        E element = elements[index];
+        while (index > 0) {
+            int parentIndex = (index - 1) / d;
+            E parent = elements[parentIndex];
+            if (compare(element, parent) <= 0) break;
+
+            elements[index] = parent;
+            index = parentIndex;
+        }
+        elements[index] = element;
+    }
+
+    private void ensureCapacity(int capacity) {
+        int oldCapacity = elements.length;
+        if (oldCapacity >= capacity) return;
+
+        // 新容量为旧容量的1.5倍
+        int newCapacity = oldCapacity + (oldCapacity >> 1);
+        E[] newElements = (E[]) new Object[newCapacity];
+        System.arraycopy(elements, 0, newElements, 0, size);
+        elements = newElements;
+    }
+}
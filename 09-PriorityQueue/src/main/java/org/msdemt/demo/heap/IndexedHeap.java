@@ -0,0 +1,49 @@
+package org.msdemt.demo.heap;
+
+/**
+ * 索引小顶堆：元素是 [0, capacity) 范围内的int id，每个id对应一个double优先级，
+ * 可以通过id修改或删除任意元素
+ */
+public interface IndexedHeap {
+    int size();
+
+    boolean isEmpty();
+
+    void clear();
+
+    boolean contains(int id);
+
+    void insert(int id, double priority);
+
+    /**
+     * 减小id的优先级
+     *
+     * @param id
+     * @param priority 必须不大于当前优先级
+     */
+    void decreaseKey(int id, double priority);
+
+    /**
+     * 增大id的优先级
+     *
+     * @param id
+     * @param priority 必须不小于当前优先级
+     */
+    void increaseKey(int id, double priority);
+
+    void delete(int id);
+
+    /**
+     * @return 优先级最小的id
+     */
+    int peek();
+
+    /**
+     * 删除优先级最小的id
+     *
+     * @return 优先级最小的id
+     */
+    int poll();
+
+    double priority(int id);
+}
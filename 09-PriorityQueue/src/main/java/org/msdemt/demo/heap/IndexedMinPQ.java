@@ -0,0 +1,212 @@
+package org.msdemt.demo.heap;
+
+import java.util.Arrays;
+
+/**
+ * 索引小顶堆：元素是 [0, capacity) 范围内的int id，每个id对应一个double优先级
+ * <p>
+ * 除了堆数组heap（位置 → id）之外，还维护反向索引positions（id → 位置），
+ * 因此可以在O(logn)内修改、删除任意id的优先级，适合Dijkstra、A*等需要decreaseKey的场景
+ */
+public class IndexedMinPQ implements IndexedHeap {
+    private static final int NOT_IN_HEAP = -1;
+
+    private final int[] heap;
+    private final int[] positions;
+    private final double[] priorities;
+    private int size;
+
+    /**
+     * @param capacity id的范围为 [0, capacity)
+     */
+    public IndexedMinPQ(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative");
+        }
+        heap = new int[capacity];
+        positions = new int[capacity];
+        priorities = new double[capacity];
+        Arrays.fill(positions, NOT_IN_HEAP);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = NOT_IN_HEAP;
+        }
+        size = 0;
+    }
+
+    @Override
+    public boolean contains(int id) {
+        idCheck(id);
+        return positions[id] != NOT_IN_HEAP;
+    }
+
+    /**
+     * 插入id
+     *
+     * @param id
+     * @param priority
+     */
+    @Override
+    public void insert(int id, double priority) {
+        idCheck(id);
+        if (positions[id] != NOT_IN_HEAP) {
+            throw new IllegalArgumentException("id is already in the queue: " + id);
+        }
+
+        priorities[id] = priority;
+        heap[size] = id;
+        positions[id] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * 把id的优先级减小为priority
+     *
+     * @param id
+     * @param priority 必须不大于当前优先级
+     */
+    @Override
+    public void decreaseKey(int id, double priority) {
+        containsCheck(id);
+        if (priority > priorities[id]) {
+            throw new IllegalArgumentException("priority is greater than the current priority");
+        }
+        priorities[id] = priority;
+        siftUp(positions[id]);
+    }
+
+    /**
+     * 把id的优先级增大为priority
+     *
+     * @param id
+     * @param priority 必须不小于当前优先级
+     */
+    @Override
+    public void increaseKey(int id, double priority) {
+        containsCheck(id);
+        if (priority < priorities[id]) {
+            throw new IllegalArgumentException("priority is less than the current priority");
+        }
+        priorities[id] = priority;
+        siftDown(positions[id]);
+    }
+
+    /**
+     * 删除id
+     *
+     * @param id
+     */
+    @Override
+    public void delete(int id) {
+        containsCheck(id);
+
+        int index = positions[id];
+        int lastId = heap[--size];
+        positions[id] = NOT_IN_HEAP;
+        if (index == size) return;
+
+        // 用最后一个元素填补index位置，它可能需要上滤也可能需要下滤
+        heap[index] = lastId;
+        positions[lastId] = index;
+        siftUp(index);
+        siftDown(positions[lastId]);
+    }
+
+    /**
+     * @return 优先级最小的id
+     */
+    @Override
+    public int peek() {
+        emptyCheck();
+        return heap[0];
+    }
+
+    /**
+     * 删除优先级最小的id
+     *
+     * @return 优先级最小的id
+     */
+    @Override
+    public int poll() {
+        emptyCheck();
+        int id = heap[0];
+        delete(id);
+        return id;
+    }
+
+    @Override
+    public double priority(int id) {
+        containsCheck(id);
+        return priorities[id];
+    }
+
+    private void siftUp(int index) {
+        int id = heap[index];
+        double priority = priorities[id];
+        while (index > 0) {
+            int parentIndex = (index - 1) >> 1;
+            int parentId = heap[parentIndex];
+            if (priority >= priorities[parentId]) break;
+
+            heap[index] = parentId;
+            positions[parentId] = index;
+            index = parentIndex;
+        }
+        heap[index] = id;
+        positions[id] = index;
+    }
+
+    private void siftDown(int index) {
+        int id = heap[index];
+        double priority = priorities[id];
+        int half = size >> 1;
+        while (index < half) {
+            int childIndex = (index << 1) + 1;
+            int childId = heap[childIndex];
+
+            int rightIndex = childIndex + 1;
+            if (rightIndex < size && priorities[heap[rightIndex]] < priorities[childId]) {
+                childId = heap[childIndex = rightIndex];
+            }
+
+            if (priority <= priorities[childId]) break;
+
+            heap[index] = childId;
+            positions[childId] = index;
+            index = childIndex;
+        }
+        heap[index] = id;
+        positions[id] = index;
+    }
+
+    private void idCheck(int id) {
+        if (id < 0 || id >= positions.length) {
+            throw new IndexOutOfBoundsException("id:" + id + ", capacity:" + positions.length);
+        }
+    }
+
+    private void containsCheck(int id) {
+        if (!contains(id)) {
+            throw new IllegalArgumentException("id is not in the queue: " + id);
+        }
+    }
+
+    private void emptyCheck() {
+        if (size == 0) {
+            throw new IndexOutOfBoundsException("Heap is empty");
+        }
+    }
+}
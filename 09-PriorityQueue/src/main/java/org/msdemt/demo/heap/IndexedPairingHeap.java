@@ -0,0 +1,241 @@
+package org.msdemt.demo.heap;
+
+import java.util.Arrays;
+
+/**
+ * 索引配对堆（小顶堆）：与IndexedMinPQ的接口相同，insert、decreaseKey均摊O(1)，poll、delete均摊O(logn)
+ * <p>
+ * 每个id是树中的一个节点，用三个int数组表示树的结构：
+ * 1. child：最左边的子节点
+ * 2. next：右边的兄弟节点
+ * 3. prev：左边的兄弟节点，如果是最左边的子节点则为父节点
+ * decreaseKey时把id所在的子树剪下来，直接与根节点合并
+ */
+public class IndexedPairingHeap implements IndexedHeap {
+    private static final int NONE = -1;
+
+    private final double[] priorities;
+    private final int[] child;
+    private final int[] next;
+    private final int[] prev;
+    private final boolean[] inHeap;
+    private int root = NONE;
+    private int size;
+
+    /**
+     * @param capacity id的范围为 [0, capacity)
+     */
+    public IndexedPairingHeap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative");
+        }
+        priorities = new double[capacity];
+        child = new int[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+        inHeap = new boolean[capacity];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(inHeap, false);
+        root = NONE;
+        size = 0;
+    }
+
+    @Override
+    public boolean contains(int id) {
+        idCheck(id);
+        return inHeap[id];
+    }
+
+    @Override
+    public void insert(int id, double priority) {
+        idCheck(id);
+        if (inHeap[id]) {
+            throw new IllegalArgumentException("id is already in the queue: " + id);
+        }
+
+        priorities[id] = priority;
+        child[id] = next[id] = prev[id] = NONE;
+        inHeap[id] = true;
+        root = meld(root, id);
+        size++;
+    }
+
+    /**
+     * @param id
+     * @param priority 必须不大于当前优先级
+     */
+    @Override
+    public void decreaseKey(int id, double priority) {
+        containsCheck(id);
+        if (priority > priorities[id]) {
+            throw new IllegalArgumentException("priority is greater than the current priority");
+        }
+
+        priorities[id] = priority;
+        if (id == root) return;
+
+        cut(id);
+        root = meld(root, id);
+    }
+
+    /**
+     * @param id
+     * @param priority 必须不小于当前优先级
+     */
+    @Override
+    public void increaseKey(int id, double priority) {
+        containsCheck(id);
+        if (priority < priorities[id]) {
+            throw new IllegalArgumentException("priority is less than the current priority");
+        }
+
+        delete(id);
+        insert(id, priority);
+    }
+
+    @Override
+    public void delete(int id) {
+        containsCheck(id);
+
+        if (id == root) {
+            root = mergePairs(child[id]);
+        } else {
+            cut(id);
+            root = meld(root, mergePairs(child[id]));
+        }
+        inHeap[id] = false;
+        size--;
+    }
+
+    @Override
+    public int peek() {
+        emptyCheck();
+        return root;
+    }
+
+    @Override
+    public int poll() {
+        emptyCheck();
+        int id = root;
+        delete(id);
+        return id;
+    }
+
+    @Override
+    public double priority(int id) {
+        containsCheck(id);
+        return priorities[id];
+    }
+
+    /**
+     * 合并两棵树，优先级大的根节点成为另一个根节点最左边的子节点
+     *
+     * @return 合并后的根节点
+     */
+    private int meld(int a, int b) {
+        if (a == NONE) return b;
+        if (b == NONE) return a;
+        if (priorities[b] < priorities[a]) {
+            int tmp = a;
+            a = b;
+            b = tmp;
+        }
+
+        int first = child[a];
+        next[b] = first;
+        if (first != NONE) {
+            prev[first] = b;
+        }
+        prev[b] = a;
+        child[a] = b;
+        return a;
+    }
+
+    /**
+     * 把以id为根节点的子树从树中剪下来
+     */
+    private void cut(int id) {
+        int p = prev[id];
+        int n = next[id];
+        if (child[p] == id) { // id是最左边的子节点，p是父节点
+            child[p] = n;
+        } else { // p是左边的兄弟节点
+            next[p] = n;
+        }
+        if (n != NONE) {
+            prev[n] = p;
+        }
+        prev[id] = next[id] = NONE;
+    }
+
+    /**
+     * 两趟合并first及其右边的所有兄弟节点：
+     * 1. 从左到右两两合并
+     * 2. 从右到左依次合并到一起
+     *
+     * @return 合并后的根节点
+     */
+    private int mergePairs(int first) {
+        if (first == NONE) return NONE;
+
+        // 第一趟：合并结果用next串成一个逆序链表
+        int pairs = NONE;
+        int a = first;
+        while (a != NONE) {
+            int b = next[a];
+            int rest = b == NONE ? NONE : next[b];
+            prev[a] = next[a] = NONE;
+            if (b != NONE) {
+                prev[b] = next[b] = NONE;
+            }
+            int merged = meld(a, b);
+            next[merged] = pairs;
+            pairs = merged;
+            a = rest;
+        }
+
+        // 第二趟：从最右边的结果开始依次合并
+        int result = pairs;
+        int rest = next[result];
+        next[result] = NONE;
+        while (rest != NONE) {
+            int following = next[rest];
+            next[rest] = NONE;
+            result = meld(result, rest);
+            rest = following;
+        }
+        prev[result] = NONE;
+        return result;
+    }
+
+    private void idCheck(int id) {
+        if (id < 0 || id >= inHeap.length) {
+            throw new IndexOutOfBoundsException("id:" + id + ", capacity:" + inHeap.length);
+        }
+    }
+
+    private void containsCheck(int id) {
+        if (!contains(id)) {
+            throw new IllegalArgumentException("id is not in the queue: " + id);
+        }
+    }
+
+    private void emptyCheck() {
+        if (size == 0) {
+            throw new IndexOutOfBoundsException("Heap is empty");
+        }
+    }
+}
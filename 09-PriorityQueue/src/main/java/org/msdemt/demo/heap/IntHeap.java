@@ -0,0 +1,159 @@
+package org.msdemt.demo.heap;
+
+import java.util.Arrays;
+
+/**
+ * int元素的二叉堆（默认为大顶堆）
+ * <p>
+ * 元素直接存储在int[]中，直接用 &lt; &gt; 比较，没有装箱和比较器调用
+ */
+public class IntHeap {
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private int[] elements;
+    private int size;
+    // true代表小顶堆
+    private final boolean min;
+
+    public IntHeap() {
+        this(false);
+    }
+
+    /**
+     * @param min true为小顶堆，false为大顶堆
+     */
+    public IntHeap(boolean min) {
+        this.min = min;
+        elements = new int[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * @param elements 批量建堆的元素
+     * @param min      true为小顶堆，false为大顶堆
+     */
+    public IntHeap(int[] elements, boolean min) {
+        this.min = min;
+        heapify(elements);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(int element) {
+        ensureCapacity(size + 1);
+        elements[size++] = element;
+        siftUp(size - 1);
+    }
+
+    public int get() {
+        emptyCheck();
+        return elements[0];
+    }
+
+    public int remove() {
+        emptyCheck();
+
+        int root = elements[0];
+        elements[0] = elements[--size];
+        siftDown(0);
+        return root;
+    }
+
+    /**
+     * 删除堆顶元素的同时插入一个新元素
+     *
+     * <p>
+     * 和BinaryHeap一样，堆为空时直接添加element
+     *
+     * @param element
+     * @return 原来的堆顶元素；堆为空时没有原来的堆顶元素，返回element
+     */
+    public int replace(int element) {
+        if (size == 0) {
+            elements[0] = element;
+            size++;
+            return element;
+        }
+
+        int root = elements[0];
+        elements[0] = element;
+        siftDown(0);
+        return root;
+    }
+
+    /**
+     * 批量建堆：用elements的拷贝替换堆中原有的元素，时间复杂度O(n)
+     *
+     * @param elements
+     */
+    public void heapify(int[] elements) {
+        this.elements = Arrays.copyOf(elements, Math.max(elements.length, DEFAULT_CAPACITY));
+        size = elements.length;
+        for (int i = (size >> 1) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * e1是否应该比e2更靠近堆顶
+     */
+    private boolean higher(int e1, int e2) {
+        return min ? e1 < e2 : e1 > e2;
+    }
+
+    private void siftDown(int index) {
+        int element = elements[index];
+        int half = size >> 1;
+        while (index < half) {
+            int childIndex = (index << 1) + 1;
+            int child = elements[childIndex];
+
+            int rightIndex = childIndex + 1;
+            if (rightIndex < size && higher(elements[rightIndex], child)) {
+                child = elements[childIndex = rightIndex];
+            }
+
+            if (!higher(child, element)) break;
+
+            elements[index] = child;
+            index = childIndex;
+        }
+        elements[index] = element;
+    }
+
+    private void siftUp(int index) {
+        int element = elements[index];
+        while (index > 0) {
+            int parentIndex = (index - 1) >> 1;
+            int parent = elements[parentIndex];
+            if (!higher(element, parent)) break;
+
+            elements[index] = parent;
+            index = parentIndex;
+        }
+        elements[index] = element;
+    }
+
+    private void ensureCapacity(int capacity) {
+        int oldCapacity = elements.length;
+        if (oldCapacity >= capacity) return;
+
+        // 新容量为旧容量的1.5倍
+        elements = Arrays.copyOf(elements, oldCapacity + (oldCapacity >> 1));
+    }
+
+    private void emptyCheck() {
+        if (size == 0) {
+            throw new IndexOutOfBoundsException("Heap is empty");
+        }
+    }
+}